@@ -1,7 +1,12 @@
 package com.example;
 
 import com.example.village.VillageExpansionManager;
+import com.example.village.command.VillageExpansionCommand;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
 
@@ -32,6 +37,32 @@ public class VillagerExpansionMod implements ModInitializer {
 			expansionManager.onWorldTick(world);
 		});
 		
+		// Registra eventos de carregamento de chunks para os dados de terreno
+		ServerChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
+			expansionManager.onChunkLoad(world, chunk);
+		});
+		ServerChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
+			expansionManager.onChunkUnload(world, chunk);
+		});
+		
+		// Registra eventos de carregamento de entidades para as referências dos villagers com profissão
+		ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+			expansionManager.onEntityLoad(entity, world);
+		});
+		ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+			expansionManager.onEntityUnload(entity, world);
+		});
+		
+		// Grava os dados em disco quando o servidor para
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+			expansionManager.onServerStopping(server);
+		});
+		
+		// Registra os comandos administrativos
+		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
+			VillageExpansionCommand.register(dispatcher);
+		});
+		
 		LOGGER.info("Villager Expansion Mod inicializado com sucesso!");
 	}
 	
@@ -0,0 +1,25 @@
+package com.example.mixin;
+
+import com.example.VillagerExpansionMod;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.ChestBlockEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(BlockEntity.class)
+public abstract class BlockEntityMixin {
+    
+    /**
+     * Notifica o índice de estoque das vilas quando o conteúdo de um baú muda
+     */
+    @Inject(method = "markDirty()V", at = @At("TAIL"))
+    private void onMarkDirty(CallbackInfo ci) {
+        if ((Object) this instanceof ChestBlockEntity chest && 
+            chest.getWorld() != null && !chest.getWorld().isClient &&
+            VillagerExpansionMod.getExpansionManager() != null) {
+            VillagerExpansionMod.getExpansionManager().getStockChests().onChestChanged(chest);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.mixin;
+
+import net.minecraft.world.chunk.ChunkSection;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ChunkSection.class)
+public interface ChunkSectionAccessor {
+    
+    /**
+     * Quantidade de blocos que não são ar na seção, mantida pelo próprio jogo
+     */
+    @Accessor("nonEmptyBlockCount")
+    short getNonEmptyBlockCount();
+}
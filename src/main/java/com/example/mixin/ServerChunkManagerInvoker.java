@@ -0,0 +1,21 @@
+package com.example.mixin;
+
+import net.minecraft.server.world.OptionalChunk;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkStatus;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+import java.util.concurrent.CompletableFuture;
+
+@Mixin(ServerChunkManager.class)
+public interface ServerChunkManagerInvoker {
+    
+    /**
+     * Pede um chunk ao gerenciador sem esperar pelo resultado
+     * Adiciona um ticket temporário ao chunk e devolve o future do carregamento (ou da geração)
+     */
+    @Invoker("getChunkFuture")
+    CompletableFuture<OptionalChunk<Chunk>> invokeGetChunkFuture(int chunkX, int chunkZ, ChunkStatus leastStatus, boolean create);
+}
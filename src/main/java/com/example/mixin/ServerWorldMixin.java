@@ -0,0 +1,35 @@
+package com.example.mixin;
+
+import com.example.VillagerExpansionMod;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.ProgressListener;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerWorld.class)
+public abstract class ServerWorldMixin {
+    
+    /**
+     * Repassa as mudanças de bloco para os dados derivados do terreno mantidos pelo mod
+     */
+    @Inject(method = "onBlockStateChanged", at = @At("TAIL"))
+    private void onBlockStateChanged(BlockPos pos, BlockState oldState, BlockState newState, CallbackInfo ci) {
+        if (VillagerExpansionMod.getExpansionManager() != null) {
+            VillagerExpansionMod.getExpansionManager().onBlockChanged((ServerWorld) (Object) this, pos, oldState, newState);
+        }
+    }
+    
+    /**
+     * Grava os dados das vilas sempre que o mundo é salvo, e não apenas quando o servidor para
+     */
+    @Inject(method = "save", at = @At("HEAD"))
+    private void onSave(ProgressListener progressListener, boolean flush, boolean savingDisabled, CallbackInfo ci) {
+        if (!savingDisabled && VillagerExpansionMod.getExpansionManager() != null) {
+            VillagerExpansionMod.getExpansionManager().onWorldSave((ServerWorld) (Object) this);
+        }
+    }
+}
@@ -3,20 +3,23 @@ package com.example.mixin;
 import com.example.VillagerExpansionMod;
 import com.example.village.VillageData;
 import com.example.village.exploration.ExplorationTask;
+import com.example.village.inventory.ExtendedInventoryHolder;
+import com.example.village.inventory.VillagerInventory;
 import com.example.village.inventory.VillagerInventorySystem;
 import com.example.village.mining.MiningTask;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.EquipmentSlot;
-import net.minecraft.entity.ai.brain.Activity;
 import net.minecraft.entity.passive.MerchantEntity;
 import net.minecraft.entity.passive.VillagerEntity;
-import net.minecraft.inventory.SimpleInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.armor.ArmorItem;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.village.VillagerData;
 import net.minecraft.world.World;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
@@ -26,7 +29,7 @@ import java.util.Random;
 import java.util.UUID;
 
 @Mixin(VillagerEntity.class)
- public abstract class VillagerEntityMixin extends MerchantEntity {
+ public abstract class VillagerEntityMixin extends MerchantEntity implements ExtendedInventoryHolder {
     
     // Contador para limitar a frequência de verificações
     private int expansionTickCounter = 0;
@@ -44,14 +47,52 @@ import java.util.UUID;
         super(entityType, world);
     }
     
-    // Contador para limitar a frequência de verificações de profissão
-    private int professionTickCounter = 0;
-    private static final int PROFESSION_CHECK_INTERVAL = 60; // A cada 3 segundos
-    
     // Contador para verificações de inventário e equipamentos
     private int inventoryTickCounter = 0;
     private static final int INVENTORY_CHECK_INTERVAL = 100; // A cada 5 segundos
     
+    // Inventário estendido do villager, salvo no NBT da entidade
+    @Unique
+    private static final String EXTENDED_INVENTORY_KEY = "VillagerExpansionInventory";
+    @Unique
+    private static final String PROFESSION_KEY = "VillagerExpansionProfession";
+    @Unique
+    private final VillagerInventory extendedInventory = new VillagerInventory(VillagerInventorySystem.INVENTORY_SIZE);
+    
+    @Override
+    public VillagerInventory villagerExpansion$getExtendedInventory() {
+        return extendedInventory;
+    }
+    
+    @Inject(method = "writeCustomDataToNbt", at = @At("TAIL"))
+    private void onWriteCustomData(NbtCompound nbt, CallbackInfo ci) {
+        // Só salva o inventário estendido se ele tiver algum item
+        if (!extendedInventory.isEmpty()) {
+            nbt.put(EXTENDED_INVENTORY_KEY, extendedInventory.toNbtList(this.getRegistryManager()));
+        }
+        
+        // Salva a profissão personalizada e o seu estado, se houver
+        if (VillagerExpansionMod.getExpansionManager() != null) {
+            NbtCompound profession = VillagerExpansionMod.getExpansionManager().getProfessionManager()
+                    .writeProfessionNbt((VillagerEntity)(Object)this);
+            if (profession != null) {
+                nbt.put(PROFESSION_KEY, profession);
+            }
+        }
+    }
+    
+    @Inject(method = "readCustomDataFromNbt", at = @At("TAIL"))
+    private void onReadCustomData(NbtCompound nbt, CallbackInfo ci) {
+        extendedInventory.clear();
+        extendedInventory.readNbtList(nbt.getListOrEmpty(EXTENDED_INVENTORY_KEY), this.getRegistryManager());
+        
+        // Restaura a profissão personalizada antes do carregamento, para que o villager não entre na fila de atribuição
+        if (!this.getWorld().isClient && VillagerExpansionMod.getExpansionManager() != null) {
+            nbt.getCompound(PROFESSION_KEY).ifPresent(profession -> VillagerExpansionMod.getExpansionManager()
+                    .getProfessionManager().readProfessionNbt((VillagerEntity)(Object)this, profession));
+        }
+    }
+    
     @Inject(method = "tick", at = @At("TAIL"))
     private void onTick(CallbackInfo ci) {
         // Só executa no servidor
@@ -59,7 +100,6 @@ import java.util.UUID;
         
         expansionTickCounter++;
         taskCheckCounter++;
-        professionTickCounter++;
         inventoryTickCounter++;
         
         // Limita a frequência de verificações de vila
@@ -74,12 +114,6 @@ import java.util.UUID;
             checkAndUpdateTasks((ServerWorld) this.getWorld());
         }
         
-        // Limita a frequência de verificações de profissão
-        if (professionTickCounter % PROFESSION_CHECK_INTERVAL == 0) {
-            // Verifica e atualiza a profissão do villager
-            checkVillagerProfession((ServerWorld) this.getWorld());
-        }
-        
         // Limita a frequência de verificações de inventário
         if (inventoryTickCounter % INVENTORY_CHECK_INTERVAL == 0) {
             // Verifica e atualiza o inventário e equipamentos do villager
@@ -189,12 +223,12 @@ import java.util.UUID;
     private void tryStartExploration(ServerWorld world, VillageData village) {
         // Verifica se há tarefas de exploração disponíveis
         Map<UUID, ExplorationTask> tasks = VillagerExpansionMod.getExpansionManager()
-                .getExplorationManager().getActiveExplorationTasks();
+                .getExplorationManager().getVillageExplorationTasks(village.getVillageId());
         
         // Procura por uma tarefa para a vila deste villager
         for (Map.Entry<UUID, ExplorationTask> entry : tasks.entrySet()) {
             ExplorationTask task = entry.getValue();
-            if (task.getVillageId().equals(village.getVillageId()) && !task.isCompleted()) {
+            if (!task.isCompleted()) {
                 // Encontrou uma tarefa, atribui ao villager
                 isExploring = true;
                 currentTaskId = entry.getKey();
@@ -211,12 +245,12 @@ import java.util.UUID;
     private void tryStartMining(ServerWorld world, VillageData village) {
         // Verifica se há tarefas de mineração disponíveis
         Map<UUID, MiningTask> tasks = VillagerExpansionMod.getExpansionManager()
-                .getMiningManager().getActiveMiningTasks();
+                .getMiningManager().getVillageMiningTasks(village.getVillageId());
         
         // Procura por uma tarefa para a vila deste villager
         for (Map.Entry<UUID, MiningTask> entry : tasks.entrySet()) {
             MiningTask task = entry.getValue();
-            if (task.getVillageId().equals(village.getVillageId()) && !task.isCompleted()) {
+            if (!task.isCompleted()) {
                 // Encontrou uma tarefa, atribui ao villager
                 isMining = true;
                 currentTaskId = entry.getKey();
@@ -269,35 +303,26 @@ import java.util.UUID;
         }
     }
     
-    /**
-     * Verifica e atualiza a profissão do villager
-     * @param world O mundo do servidor
-     */
-    private void checkVillagerProfession(ServerWorld world) {
+    @Inject(method = "onGrowUp", at = @At("TAIL"))
+    private void onGrowUpEnqueue(CallbackInfo ci) {
+        // Um villager que acabou de crescer pode receber uma profissão personalizada
+        if (!this.getWorld().isClient && VillagerExpansionMod.getExpansionManager() != null) {
+            VillagerExpansionMod.getExpansionManager().getProfessionManager().enqueueCandidate((VillagerEntity)(Object)this);
+        }
+    }
+    
+    @Inject(method = "setVillagerData", at = @At("HEAD"))
+    private void onSetVillagerData(VillagerData villagerData, CallbackInfo ci) {
+        // Só interessa uma troca de profissão vanilla em um villager que já está no mundo; o construtor, as subidas de
+        // nível nas trocas e as entidades temporárias (modelos de estruturas) ficam de fora, e o evento de carregamento
+        // cobre os villagers que entram no mundo
         VillagerEntity villager = (VillagerEntity)(Object)this;
-        UUID villagerId = villager.getUuid();
-        
-        // Verifica se o villager já tem uma profissão personalizada
-        if (VillagerExpansionMod.getExpansionManager().getProfessionManager().hasProfession(villagerId)) {
-            // Já tem uma profissão personalizada, não faz nada
+        if (this.getWorld().isClient || VillagerExpansionMod.getExpansionManager() == null ||
+            villagerData.profession().equals(villager.getVillagerData().profession()) ||
+            !(this.getWorld() instanceof ServerWorld serverWorld) || serverWorld.getEntity(villager.getUuid()) != villager) {
             return;
         }
-        
-        // Verifica se o villager não tem profissão no sistema vanilla
-        // Na versão 1.21, a forma de verificar a profissão pode ter mudado
-        // Verificamos se o villager tem uma profissão usando instanceof ou outras propriedades
-        boolean hasNoProfession = true;
-        
-        // Verifica se o villager está em alguma atividade de trabalho
-        if (villager.getBrain().hasActivity(Activity.WORK)) {
-            hasNoProfession = false;
-        }
-        
-        if (hasNoProfession && !villager.isBaby()) {
-            // Não tem profissão, atribui uma profissão personalizada
-            // O ProfessionManager cuidará de atribuir uma profissão aleatória
-            VillagerExpansionMod.LOGGER.info("Villager " + villagerId + " não tem profissão, atribuindo uma profissão personalizada");
-        }
+        VillagerExpansionMod.getExpansionManager().getProfessionManager().enqueueCandidate(villager);
     }
     
     /**
@@ -307,9 +332,6 @@ import java.util.UUID;
     private void checkVillagerInventory(ServerWorld world) {
         VillagerEntity villager = (VillagerEntity)(Object)this;
         
-        // Inicializa o inventário do villager se ainda não existir
-        SimpleInventory inventory = VillagerInventorySystem.getInventory(villager);
-        
         // Chance de tentar equipar armaduras do inventário
         if (random.nextFloat() < 0.3f) {
             VillagerInventorySystem.equipArmorFromInventory(villager);
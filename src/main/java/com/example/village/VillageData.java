@@ -1,13 +1,20 @@
 package com.example.village;
 
 import com.example.VillagerExpansionMod;
+import com.example.village.exploration.DiscoveryStore;
+import com.example.village.exploration.DiscoverySummary;
+import com.example.village.inventory.VillageStockIndex;
+import com.example.village.mining.MineNetwork;
+import com.example.village.navigation.VillageFlowFields;
+import com.example.village.resources.ResourceFlowLog;
+import com.example.village.resources.ResourceFlowSource;
+import com.example.village.resources.ResourceType;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.util.math.BlockPos;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -41,14 +48,74 @@ public class VillageData {
     private int diamondResource = 0;
     
     // Localizações descobertas pelos villagers exploradores
-    private final Set<UUID> discoveredLocations = new HashSet<>();
-    private final Map<UUID, BlockPos> discoveredLocationPositions = new HashMap<>();
-    private final Map<UUID, String> discoveredLocationTypes = new HashMap<>();
+    private final DiscoveryStore discoveries = new DiscoveryStore();
+    
+    // Resumo do que a vila explorou e descobriu, e a união dos resumos recebidos das vilas vizinhas
+    private DiscoverySummary discoverySummary = new DiscoverySummary();
+    private DiscoverySummary neighborSummary = new DiscoverySummary();
+    
+    // Índice do estoque guardado nos baús de armazenamento da vila
+    private final VillageStockIndex stockIndex = new VillageStockIndex();
+    
+    // Registro das movimentações de recursos da vila
+    private final ResourceFlowLog flowLog = new ResourceFlowLog();
+    
+    // Rede de túneis escavados pelos mineradores da vila
+    private MineNetwork mineNetwork = new MineNetwork();
+    
+    // Campos de direção até os destinos compartilhados da vila (não persistidos, recalculados sob demanda)
+    private final VillageFlowFields flowFields = new VillageFlowFields();
+    
+    // Registro da vila no arquivo de chunks explorados (-1 enquanto não alocado)
+    private int exploredSlot = -1;
     
     public VillageData(UUID villageId, BlockPos center) {
+        this(villageId, center, true);
+    }
+    
+    /**
+     * @param created Se a vila acabou de ser criada (false quando é restaurada do save)
+     */
+    private VillageData(UUID villageId, BlockPos center, boolean created) {
         this.villageId = villageId;
         this.center = center;
-        VillagerExpansionMod.LOGGER.info("Nova vila criada com ID: " + villageId + " no centro: " + center);
+        if (created) {
+            VillagerExpansionMod.LOGGER.info("Nova vila criada com ID: " + villageId + " no centro: " + center);
+        }
+    }
+    
+    /**
+     * Grava os dados persistentes da vila em NBT
+     */
+    public NbtCompound writeNbt() {
+        NbtCompound nbt = new NbtCompound();
+        nbt.putString("Id", villageId.toString());
+        nbt.putLong("Center", center.asLong());
+        nbt.put("MineNetwork", mineNetwork.writeNbt());
+        nbt.putInt("ExploredSlot", exploredSlot);
+        nbt.putLongArray("DiscoverySummary", discoverySummary.toLongArray());
+        nbt.put("StockIndex", stockIndex.writeNbt());
+        return nbt;
+    }
+    
+    /**
+     * Reconstrói uma vila a partir do NBT gravado por writeNbt
+     * @return A vila, ou null se o NBT não tiver um ID válido
+     */
+    public static VillageData fromNbt(NbtCompound nbt) {
+        UUID id;
+        try {
+            id = UUID.fromString(nbt.getString("Id", ""));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        
+        VillageData village = new VillageData(id, BlockPos.fromLong(nbt.getLong("Center", 0L)), false);
+        village.mineNetwork = MineNetwork.fromNbt(nbt.getCompoundOrEmpty("MineNetwork"));
+        village.exploredSlot = nbt.getInt("ExploredSlot", -1);
+        village.discoverySummary = DiscoverySummary.fromLongArray(nbt.getLongArray("DiscoverySummary").orElse(new long[0]));
+        village.stockIndex.readNbt(nbt.getCompoundOrEmpty("StockIndex"));
+        return village;
     }
     
     /**
@@ -69,6 +136,13 @@ public class VillageData {
         }
     }
     
+    /**
+     * Verifica se um villager pertence à vila
+     */
+    public boolean hasVillager(UUID villagerId) {
+        return villagers.contains(villagerId);
+    }
+    
     /**
      * Remove um villager da vila
      */
@@ -153,26 +227,36 @@ public class VillageData {
         population++;
         // Consome recursos para o novo villager
         foodResource -= 10;
+        recordFlow(ResourceType.FOOD, -10, ResourceFlowSource.POPULATION);
     }
     
     /**
      * Adiciona recursos à vila
+     * @param source A origem dos recursos, registrada no histórico de movimentações
      */
-    public void addResources(int wood, int stone, int food) {
+    public void addResources(int wood, int stone, int food, ResourceFlowSource source) {
         woodResource += wood;
         stoneResource += stone;
         foodResource += food;
+        recordFlow(ResourceType.WOOD, wood, source);
+        recordFlow(ResourceType.STONE, stone, source);
+        recordFlow(ResourceType.FOOD, food, source);
     }
     
     /**
      * Adiciona recursos minerais à vila
+     * @param source A origem dos recursos, registrada no histórico de movimentações
      */
-    public void addMineralResources(int coal, int iron, int gold, int diamond) {
+    public void addMineralResources(int coal, int iron, int gold, int diamond, ResourceFlowSource source) {
         coalResource += coal;
         ironResource += iron;
         goldResource += gold;
         diamondResource += diamond;
-        VillagerExpansionMod.LOGGER.info("Recursos minerais adicionados à vila: " + coal + " carvão, " + 
+        recordFlow(ResourceType.COAL, coal, source);
+        recordFlow(ResourceType.IRON, iron, source);
+        recordFlow(ResourceType.GOLD, gold, source);
+        recordFlow(ResourceType.DIAMOND, diamond, source);
+        VillagerExpansionMod.LOGGER.debug("Recursos minerais adicionados à vila: " + coal + " carvão, " + 
                                         iron + " ferro, " + gold + " ouro, " + diamond + " diamante");
     }
     
@@ -202,6 +286,8 @@ public class VillageData {
         if (woodResource >= woodNeeded && stoneResource >= stoneNeeded) {
             woodResource -= woodNeeded;
             stoneResource -= stoneNeeded;
+            recordFlow(ResourceType.WOOD, -woodNeeded, ResourceFlowSource.BUILDING);
+            recordFlow(ResourceType.STONE, -stoneNeeded, ResourceFlowSource.BUILDING);
             return true;
         }
         
@@ -213,22 +299,35 @@ public class VillageData {
      * @param wood Quantidade de madeira a ser consumida
      * @param stone Quantidade de pedra a ser consumida
      * @param food Quantidade de comida a ser consumida
+     * @param source A origem do consumo, registrada no histórico de movimentações
      */
-    public void consumeResources(int wood, int stone, int food) {
+    public void consumeResources(int wood, int stone, int food, ResourceFlowSource source) {
+        int woodConsumed = Math.max(0, Math.min(wood, woodResource));
+        int stoneConsumed = Math.max(0, Math.min(stone, stoneResource));
+        int foodConsumed = Math.max(0, Math.min(food, foodResource));
         woodResource = Math.max(0, woodResource - wood);
         stoneResource = Math.max(0, stoneResource - stone);
         foodResource = Math.max(0, foodResource - food);
-        VillagerExpansionMod.LOGGER.info("Vila " + villageId + " perdeu recursos: " + 
+        recordFlow(ResourceType.WOOD, -woodConsumed, source);
+        recordFlow(ResourceType.STONE, -stoneConsumed, source);
+        recordFlow(ResourceType.FOOD, -foodConsumed, source);
+        VillagerExpansionMod.LOGGER.debug("Vila " + villageId + " perdeu recursos: " + 
                                       wood + " madeira, " + stone + " pedra, " + food + " comida");
     }
     
+    /**
+     * Registra uma movimentação de recurso no histórico da vila, marcada com o tick atual do servidor
+     */
+    private void recordFlow(ResourceType resource, int delta, ResourceFlowSource source) {
+        flowLog.record(VillagerExpansionMod.getExpansionManager().getCurrentTick(), resource, delta, source);
+    }
+    
     /**
      * Adiciona uma localização descoberta à vila
      */
     public void addDiscoveredLocation(UUID locationId, BlockPos position, String locationType) {
-        discoveredLocations.add(locationId);
-        discoveredLocationPositions.put(locationId, position);
-        discoveredLocationTypes.put(locationId, locationType);
+        discoveries.add(locationId, position, locationType);
+        discoverySummary.addDiscovery(locationType, position);
         VillagerExpansionMod.LOGGER.info("Nova localização descoberta adicionada à vila: " + locationType + " em " + position);
     }
     
@@ -236,40 +335,71 @@ public class VillageData {
      * Verifica se uma localização já foi descoberta pela vila
      */
     public boolean hasDiscoveredLocation(UUID locationId) {
-        return discoveredLocations.contains(locationId);
+        return discoveries.contains(locationId);
     }
     
     /**
      * Verifica se uma posição está próxima a alguma localização já descoberta
      */
     public boolean isNearDiscoveredLocation(BlockPos pos, int radius) {
-        for (BlockPos discoveredPos : discoveredLocationPositions.values()) {
-            if (discoveredPos.isWithinDistance(pos, radius)) {
-                return true;
-            }
-        }
-        return false;
+        return discoveries.isNear(pos, radius);
+    }
+    
+    /**
+     * Encontra a localização descoberta de um tipo mais próxima de uma posição
+     * @return A posição da localização, ou null se não houver nenhuma no raio
+     */
+    public BlockPos findNearestDiscoveredLocation(String locationType, BlockPos pos, int maxRadius) {
+        DiscoveryStore.Discovery discovery = discoveries.findNearest(locationType, pos, maxRadius);
+        return discovery != null ? discovery.getPos() : null;
     }
     
     /**
      * Obtém todas as localizações descobertas
      */
     public Set<UUID> getDiscoveredLocations() {
-        return new HashSet<>(discoveredLocations);
+        return discoveries.getIds();
     }
     
     /**
      * Obtém a posição de uma localização descoberta
      */
     public BlockPos getDiscoveredLocationPosition(UUID locationId) {
-        return discoveredLocationPositions.get(locationId);
+        DiscoveryStore.Discovery discovery = discoveries.get(locationId);
+        return discovery != null ? discovery.getPos() : null;
     }
     
     /**
      * Obtém o tipo de uma localização descoberta
      */
     public String getDiscoveredLocationType(UUID locationId) {
-        return discoveredLocationTypes.get(locationId);
+        DiscoveryStore.Discovery discovery = discoveries.get(locationId);
+        return discovery != null ? discovery.getType() : null;
+    }
+    
+    /**
+     * Obtém o resumo do que a vila explorou e descobriu
+     */
+    public DiscoverySummary getDiscoverySummary() {
+        return discoverySummary;
+    }
+    
+    /**
+     * Obtém a união dos resumos compartilhados pelas vilas vizinhas
+     */
+    public DiscoverySummary getNeighborSummary() {
+        return neighborSummary;
+    }
+    
+    public void setNeighborSummary(DiscoverySummary neighborSummary) {
+        this.neighborSummary = neighborSummary;
+    }
+    
+    /**
+     * Obtém o armazenamento das localizações descobertas
+     */
+    public DiscoveryStore getDiscoveries() {
+        return discoveries;
     }
     
     // Getters
@@ -336,4 +466,28 @@ public class VillageData {
     public List<BuildingData> getBuildings() {
         return new ArrayList<>(buildings);
     }
+    
+    public VillageStockIndex getStockIndex() {
+        return stockIndex;
+    }
+    
+    public VillageFlowFields getFlowFields() {
+        return flowFields;
+    }
+    
+    public MineNetwork getMineNetwork() {
+        return mineNetwork;
+    }
+    
+    public int getExploredSlot() {
+        return exploredSlot;
+    }
+    
+    public void setExploredSlot(int exploredSlot) {
+        this.exploredSlot = exploredSlot;
+    }
+    
+    public ResourceFlowLog getFlowLog() {
+        return flowLog;
+    }
 }
\ No newline at end of file
@@ -3,15 +3,30 @@ package com.example.village;
 import com.example.VillagerExpansionMod;
 import com.example.village.builder.BuildingManager;
 import com.example.village.exploration.ExplorationManager;
+import com.example.village.inventory.ChestTransferManager;
+import com.example.village.inventory.StockChestRegistry;
 import com.example.village.mining.MiningManager;
+import com.example.village.navigation.VillageFlowFields;
 import com.example.village.resources.ResourceManager;
+import com.example.village.terrain.AsyncChunkAccess;
+import com.example.village.terrain.BiomeGrid;
+import com.example.village.terrain.VoidMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.village.VillagerGossipType;
 import net.minecraft.world.Heightmap;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -22,17 +37,30 @@ import java.util.UUID;
 public class VillageExpansionManager {
     
     private final Map<UUID, VillageData> villages = new HashMap<>();
+    
+    // Vilas cuja grade de campos de direção cobre cada chunk (posição do chunk compactada)
+    private final Long2ObjectOpenHashMap<List<VillageData>> villagesByChunk = new Long2ObjectOpenHashMap<>();
     private final BuildingManager buildingManager;
     private final ResourceManager resourceManager;
     private final ExplorationManager explorationManager;
     private final MiningManager miningManager;
     private final com.example.village.profession.ProfessionManager professionManager;
     private final com.example.village.relation.VillageRelationManager villageRelationManager;
+    private final VoidMap voidMap = new VoidMap();
+    private final AsyncChunkAccess chunkAccess = new AsyncChunkAccess();
+    private final BiomeGrid biomeGrid = new BiomeGrid();
+    private final StockChestRegistry stockChests = new StockChestRegistry();
+    
+    // Se as vilas salvas já foram carregadas
+    private boolean villagesLoaded = false;
     
     // Contador para limitar a frequência de verificações
     private int tickCounter = 0;
     private static final int VILLAGE_CHECK_INTERVAL = 200; // A cada 10 segundos (20 ticks/segundo)
     
+    // Tick atual do servidor, usado para marcar as movimentações de recursos
+    private long currentTick = 0;
+    
     public VillageExpansionManager() {
         this.buildingManager = new BuildingManager();
         this.resourceManager = new ResourceManager();
@@ -47,9 +75,108 @@ public class VillageExpansionManager {
      * Chamado quando um mundo é carregado
      */
     public void onWorldLoad(ServerWorld world) {
-        // Carregar dados de vilas salvos ou inicializar novos
+        // Carrega as vilas salvas uma única vez, antes da detecção, para manter os IDs das vilas
         VillagerExpansionMod.LOGGER.info("Carregando dados de vilas para o mundo");
+        if (!villagesLoaded && world.getRegistryKey() == World.OVERWORLD) {
+            for (VillageData village : VillageStorage.load(world.getServer())) {
+                villages.put(village.getVillageId(), village);
+            }
+            villagesLoaded = true;
+        }
         detectVillages(world);
+        rebuildChunkIndex();
+    }
+    
+    /**
+     * Refaz o índice de chunks para vilas a partir do centro de cada vila
+     */
+    private void rebuildChunkIndex() {
+        villagesByChunk.clear();
+        for (VillageData village : villages.values()) {
+            BlockPos center = village.getCenter();
+            int minChunkX = (center.getX() - VillageFlowFields.GRID_RADIUS) >> 4;
+            int maxChunkX = (center.getX() + VillageFlowFields.GRID_RADIUS) >> 4;
+            int minChunkZ = (center.getZ() - VillageFlowFields.GRID_RADIUS) >> 4;
+            int maxChunkZ = (center.getZ() + VillageFlowFields.GRID_RADIUS) >> 4;
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    villagesByChunk.computeIfAbsent(ChunkPos.toLong(chunkX, chunkZ), key -> new ArrayList<>()).add(village);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Chamado quando um chunk é carregado
+     */
+    public void onChunkLoad(ServerWorld world, WorldChunk chunk) {
+        miningManager.getOreSurvey().onChunkLoad(world, chunk);
+        stockChests.onChunkLoad(world, chunk);
+    }
+    
+    /**
+     * Chamado quando um chunk é descarregado
+     */
+    public void onChunkUnload(ServerWorld world, WorldChunk chunk) {
+        voidMap.onChunkUnload(world, chunk);
+    }
+    
+    /**
+     * Chamado quando uma entidade é carregada
+     */
+    public void onEntityLoad(Entity entity, ServerWorld world) {
+        professionManager.onEntityLoad(entity, world);
+    }
+    
+    /**
+     * Chamado quando uma entidade é descarregada
+     */
+    public void onEntityUnload(Entity entity, ServerWorld world) {
+        professionManager.onEntityUnload(entity, world);
+    }
+    
+    /**
+     * Chamado quando um bloco muda no mundo
+     */
+    public void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        miningManager.getOreSurvey().onBlockChanged(world, pos, oldState, newState);
+        voidMap.onBlockChanged(world, pos, oldState, newState);
+        stockChests.onBlockChanged(world, pos, oldState, newState);
+        
+        // Apenas as vilas cuja grade cobre o chunk do bloco
+        List<VillageData> nearby = villagesByChunk.get(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4));
+        if (nearby != null) {
+            for (VillageData village : nearby) {
+                village.getFlowFields().onBlockChanged(world, pos, oldState, newState);
+            }
+        }
+    }
+    
+    /**
+     * Chamado quando um mundo é salvo (salvamento automático, /save-all ou parada do servidor)
+     * As vilas são gravadas junto com o Overworld, para que o arquivo acompanhe os chunks já salvos
+     */
+    public void onWorldSave(ServerWorld world) {
+        if (villagesLoaded && world.getRegistryKey() == World.OVERWORLD) {
+            VillageStorage.save(world.getServer(), villages.values());
+        }
+    }
+    
+    /**
+     * Chamado quando o servidor está parando
+     */
+    public void onServerStopping(MinecraftServer server) {
+        // Grava em disco as vilas, os chunks explorados e os levantamentos de minério
+        VillageStorage.save(server, villages.values());
+        explorationManager.close();
+        miningManager.getOreSurvey().close();
+        stockChests.clear();
+        ChestTransferManager.clear();
+        
+        // O próximo servidor (outro mundo no cliente integrado) carrega as suas próprias vilas
+        villages.clear();
+        villagesByChunk.clear();
+        villagesLoaded = false;
     }
     
     /**
@@ -57,6 +184,7 @@ public class VillageExpansionManager {
      */
     public void onWorldTick(ServerWorld world) {
         tickCounter++;
+        currentTick = world.getServer().getTicks();
         
         // Limita a frequência de verificações para não sobrecarregar o servidor
         if (tickCounter % VILLAGE_CHECK_INTERVAL == 0) {
@@ -80,6 +208,9 @@ public class VillageExpansionManager {
         
         // Processa relações entre vilas e conflitos
         villageRelationManager.processVillageRelations(world);
+        
+        // Aplica as transferências de baús acumuladas neste tick
+        ChestTransferManager.flush(world);
     }
     
     /**
@@ -284,6 +415,27 @@ public class VillageExpansionManager {
         return villages.get(villageId);
     }
     
+    /**
+     * Encontra a vila à qual um villager pertence
+     * @param villagerId UUID do villager
+     * @return A vila do villager, ou null se não pertencer a nenhuma vila
+     */
+    public VillageData findVillageOf(UUID villagerId) {
+        for (VillageData village : villages.values()) {
+            if (village.hasVillager(villagerId)) {
+                return village;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Obtém o tick atual do servidor
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+    
     /**
      * Obtém todas as vilas gerenciadas
      */
@@ -319,6 +471,34 @@ public class VillageExpansionManager {
         return miningManager;
     }
     
+    /**
+     * Obtém o mapa de vazios subterrâneos
+     */
+    public VoidMap getVoidMap() {
+        return voidMap;
+    }
+    
+    /**
+     * Obtém o acesso assíncrono a chunks
+     */
+    public AsyncChunkAccess getChunkAccess() {
+        return chunkAccess;
+    }
+    
+    /**
+     * Obtém a grade de biomas por chunk
+     */
+    public BiomeGrid getBiomeGrid() {
+        return biomeGrid;
+    }
+    
+    /**
+     * Obtém o registro dos baús do estoque das vilas
+     */
+    public StockChestRegistry getStockChests() {
+        return stockChests;
+    }
+    
     /**
      * Obtém o gerenciador de profissões
      * @return O gerenciador de profissões
@@ -0,0 +1,83 @@
+package com.example.village;
+
+import com.example.VillagerExpansionMod;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtSizeTracker;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.WorldSavePath;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persistência das vilas no diretório de dados do save
+ * Mantém os IDs das vilas estáveis entre reinícios, junto com os dados que dependem deles (como a rede de minas)
+ */
+public class VillageStorage {
+    
+    private static final String FILE_NAME = "villagerexpansion_villages.dat";
+    
+    /**
+     * Carrega as vilas gravadas no save
+     * @param server O servidor
+     * @return As vilas gravadas, ou uma lista vazia se o arquivo não existir ou estiver corrompido
+     */
+    public static List<VillageData> load(MinecraftServer server) {
+        List<VillageData> villages = new ArrayList<>();
+        Path file = getFile(server);
+        if (!Files.exists(file)) {
+            return villages;
+        }
+        
+        try {
+            NbtCompound root = NbtIo.readCompressed(file, NbtSizeTracker.ofUnlimitedBytes());
+            NbtList list = root.getListOrEmpty("Villages");
+            for (int i = 0; i < list.size(); i++) {
+                VillageData village = VillageData.fromNbt(list.getCompoundOrEmpty(i));
+                if (village != null) {
+                    villages.add(village);
+                }
+            }
+            VillagerExpansionMod.LOGGER.info("Carregadas " + villages.size() + " vilas de " + file);
+        } catch (IOException e) {
+            VillagerExpansionMod.LOGGER.error("Falha ao carregar as vilas de " + file, e);
+        }
+        
+        return villages;
+    }
+    
+    /**
+     * Grava as vilas no save, substituindo o arquivo anterior de uma vez
+     * @param server O servidor
+     * @param villages As vilas a gravar
+     */
+    public static void save(MinecraftServer server, Collection<VillageData> villages) {
+        NbtList list = new NbtList();
+        for (VillageData village : villages) {
+            list.add(village.writeNbt());
+        }
+        NbtCompound root = new NbtCompound();
+        root.put("Villages", list);
+        
+        Path file = getFile(server);
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            NbtIo.writeCompressed(root, temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            VillagerExpansionMod.LOGGER.error("Falha ao gravar as vilas em " + file, e);
+        }
+    }
+    
+    private static Path getFile(MinecraftServer server) {
+        return server.getSavePath(WorldSavePath.ROOT).resolve("data").resolve(FILE_NAME);
+    }
+}
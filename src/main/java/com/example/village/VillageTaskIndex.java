@@ -0,0 +1,61 @@
+package com.example.village;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Índice das tarefas ativas de cada vila
+ * Mantém a lista de tarefas por vila, atualizada no início e na conclusão de cada tarefa,
+ * para que a contagem e a iteração das tarefas de uma vila não precisem percorrer as tarefas de todas as vilas
+ * @param <T> O tipo de tarefa
+ */
+public class VillageTaskIndex<T> {
+    
+    // Tarefas de cada vila, na ordem em que foram iniciadas
+    private final Map<UUID, Map<UUID, T>> tasksByVillage = new HashMap<>();
+    
+    /**
+     * Registra uma tarefa iniciada
+     * @param villageId O ID da vila
+     * @param taskId O ID da tarefa
+     * @param task A tarefa
+     */
+    public void add(UUID villageId, UUID taskId, T task) {
+        tasksByVillage.computeIfAbsent(villageId, id -> new LinkedHashMap<>()).put(taskId, task);
+    }
+    
+    /**
+     * Remove uma tarefa concluída
+     * @param villageId O ID da vila
+     * @param taskId O ID da tarefa
+     */
+    public void remove(UUID villageId, UUID taskId) {
+        Map<UUID, T> tasks = tasksByVillage.get(villageId);
+        if (tasks != null && tasks.remove(taskId) != null && tasks.isEmpty()) {
+            tasksByVillage.remove(villageId);
+        }
+    }
+    
+    /**
+     * Obtém a quantidade de tarefas ativas de uma vila
+     * @param villageId O ID da vila
+     * @return O número de tarefas ativas
+     */
+    public int count(UUID villageId) {
+        Map<UUID, T> tasks = tasksByVillage.get(villageId);
+        return tasks != null ? tasks.size() : 0;
+    }
+    
+    /**
+     * Obtém as tarefas ativas de uma vila
+     * @param villageId O ID da vila
+     * @return Mapa somente leitura do ID de cada tarefa para a tarefa
+     */
+    public Map<UUID, T> getTasks(UUID villageId) {
+        Map<UUID, T> tasks = tasksByVillage.get(villageId);
+        return tasks != null ? Collections.unmodifiableMap(tasks) : Collections.emptyMap();
+    }
+}
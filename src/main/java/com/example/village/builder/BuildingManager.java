@@ -4,9 +4,11 @@ import com.example.VillagerExpansionMod;
 import com.example.village.BuildingData;
 import com.example.village.BuildingType;
 import com.example.village.VillageData;
+import com.example.village.terrain.BiomeTemperature;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.ChestBlockEntity;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
@@ -144,6 +146,16 @@ public class BuildingManager {
             // Adiciona a construção à vila
             village.addBuilding(building);
             
+            // Registra os baús do armazém no índice de estoque da vila
+            if (template.getType() == BuildingType.STORAGE) {
+                for (BuildingBlock block : template.getBlocks()) {
+                    if (block.getBlockState().isOf(Blocks.CHEST) && 
+                        world.getBlockEntity(block.getPosition()) instanceof ChestBlockEntity chest) {
+                        village.getStockIndex().registerChest(chest);
+                    }
+                }
+            }
+            
             VillagerExpansionMod.LOGGER.info("Construção concluída: " + template.getType() + " em " + task.getPosition());
         } else {
             VillagerExpansionMod.LOGGER.warn("Vila não encontrada ao finalizar construção: " + villageId);
@@ -153,7 +165,7 @@ public class BuildingManager {
     /**
      * Cria um modelo de construção baseado no tipo
      */
-    private BuildingTemplate createBuildingTemplate(BuildingType type, BlockPos position, World world) {
+    private BuildingTemplate createBuildingTemplate(BuildingType type, BlockPos position, ServerWorld world) {
         switch (type) {
             case HOUSE:
                 return createHouseTemplate(position, world);
@@ -169,7 +181,7 @@ public class BuildingManager {
     /**
      * Cria um modelo de casa
      */
-    private BuildingTemplate createHouseTemplate(BlockPos position, World world) {
+    private BuildingTemplate createHouseTemplate(BlockPos position, ServerWorld world) {
         // Determina o tamanho da casa (variação aleatória)
         int sizeX = 5 + random.nextInt(2) * 2; // 5 ou 7
         int sizeY = 4 + random.nextInt(2);     // 4 ou 5
@@ -183,13 +195,14 @@ public class BuildingManager {
         Block floorMaterial = Blocks.OAK_PLANKS;
         Block roofMaterial = Blocks.OAK_STAIRS;
         
-        // Ajusta materiais baseado no bioma (simplificado)
-        if (world.getBiome(position).value().getTemperature() < 0.3f) {
+        // Ajusta materiais baseado na temperatura do bioma do chunk (em cache na grade de biomas)
+        BiomeTemperature temperature = VillagerExpansionMod.getExpansionManager().getBiomeGrid().getTemperature(world, position);
+        if (temperature == BiomeTemperature.COLD) {
             // Bioma frio (taiga, montanhas)
             wallMaterial = Blocks.SPRUCE_PLANKS;
             floorMaterial = Blocks.SPRUCE_PLANKS;
             roofMaterial = Blocks.SPRUCE_STAIRS;
-        } else if (world.getBiome(position).value().getTemperature() > 0.9f) {
+        } else if (temperature == BiomeTemperature.HOT) {
             // Bioma quente (deserto, savana)
             wallMaterial = Blocks.SANDSTONE;
             floorMaterial = Blocks.SMOOTH_SANDSTONE;
@@ -323,7 +336,7 @@ public class BuildingManager {
     /**
      * Cria um modelo de armazém
      */
-    private BuildingTemplate createStorageTemplate(BlockPos position, World world) {
+    private BuildingTemplate createStorageTemplate(BlockPos position, ServerWorld world) {
         // Tamanho do armazém
         int sizeX = 5;
         int sizeY = 4;
@@ -337,13 +350,14 @@ public class BuildingManager {
         Block floorMaterial = Blocks.OAK_PLANKS;
         Block roofMaterial = Blocks.OAK_STAIRS;
         
-        // Ajusta materiais baseado no bioma (simplificado)
-        if (world.getBiome(position).value().getTemperature() < 0.3f) {
+        // Ajusta materiais baseado na temperatura do bioma do chunk (em cache na grade de biomas)
+        BiomeTemperature temperature = VillagerExpansionMod.getExpansionManager().getBiomeGrid().getTemperature(world, position);
+        if (temperature == BiomeTemperature.COLD) {
             // Bioma frio (taiga, montanhas)
             wallMaterial = Blocks.SPRUCE_PLANKS;
             floorMaterial = Blocks.SPRUCE_PLANKS;
             roofMaterial = Blocks.SPRUCE_STAIRS;
-        } else if (world.getBiome(position).value().getTemperature() > 0.9f) {
+        } else if (temperature == BiomeTemperature.HOT) {
             // Bioma quente (deserto, savana)
             wallMaterial = Blocks.SANDSTONE;
             floorMaterial = Blocks.SMOOTH_SANDSTONE;
@@ -0,0 +1,176 @@
+package com.example.village.command;
+
+import com.example.VillagerExpansionMod;
+import com.example.village.VillageData;
+import com.example.village.exploration.DiscoveryStore;
+import com.example.village.navigation.VillageFlowFields;
+import com.example.village.profession.ProfessionManager;
+import com.example.village.profession.TickTimeHistogram;
+import com.example.village.resources.ResourceFlowLog;
+import com.example.village.resources.ResourceFlowSource;
+import com.example.village.resources.ResourceType;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+
+import java.util.Map;
+
+/**
+ * Comando administrativo /villageexpansion
+ * Permite consultar em um servidor ativo as taxas de entrada e saída de recursos de cada vila
+ * a ocupação da memória de descobertas de cada vila, os campos de direção de cada vila e o custo por tick das profissões
+ */
+public class VillageExpansionCommand {
+    
+    /**
+     * Registra o comando no dispatcher do servidor
+     * @param dispatcher O dispatcher de comandos
+     */
+    public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+        dispatcher.register(CommandManager.literal("villageexpansion")
+                .requires(source -> source.hasPermissionLevel(2))
+                .then(CommandManager.literal("flows")
+                        .executes(VillageExpansionCommand::showFlows))
+                .then(CommandManager.literal("discoveries")
+                        .executes(VillageExpansionCommand::showDiscoveries))
+                .then(CommandManager.literal("navigation")
+                        .executes(VillageExpansionCommand::showNavigation))
+                .then(CommandManager.literal("professions")
+                        .executes(VillageExpansionCommand::showProfessions)
+                        .then(CommandManager.literal("reset")
+                                .executes(VillageExpansionCommand::resetProfessions))));
+    }
+    
+    /**
+     * Mostra, para cada vila, a variação de cada recurso por minuto e por hora
+     * e as origens das movimentações na última hora
+     */
+    private static int showFlows(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        long now = VillagerExpansionMod.getExpansionManager().getCurrentTick();
+        int villageCount = 0;
+        
+        for (VillageData village : VillagerExpansionMod.getExpansionManager().getVillages()) {
+            villageCount++;
+            ResourceFlowLog log = village.getFlowLog();
+            source.sendFeedback(() -> Text.literal("Vila " + village.getVillageId() + " (" + log.getSize() + " registros)"), false);
+            
+            for (ResourceType resource : ResourceType.values()) {
+                if (log.getTotalIn(resource) == 0 && log.getTotalOut(resource) == 0) {
+                    continue; // Recurso sem movimentações
+                }
+                
+                double perMinute = log.getRatePerMinute(resource, now, ResourceFlowLog.TICKS_PER_MINUTE);
+                double perHour = log.getRatePerMinute(resource, now, ResourceFlowLog.TICKS_PER_HOUR) * 60.0;
+                
+                // Origens das movimentações na última hora
+                StringBuilder origins = new StringBuilder();
+                int[] bySource = log.sumBySource(resource, now - ResourceFlowLog.TICKS_PER_HOUR);
+                for (ResourceFlowSource flowSource : ResourceFlowSource.values()) {
+                    int sum = bySource[flowSource.ordinal()];
+                    if (sum != 0) {
+                        origins.append(origins.length() > 0 ? ", " : "").append(flowSource).append(" ").append(formatSigned(sum));
+                    }
+                }
+                
+                String line = String.format("  %s: %s/min, %s/h (entrada total %d, saída total %d)%s",
+                        resource, formatSigned(perMinute), formatSigned(perHour),
+                        log.getTotalIn(resource), log.getTotalOut(resource),
+                        origins.length() > 0 ? " [" + origins + "]" : "");
+                source.sendFeedback(() -> Text.literal(line), false);
+            }
+        }
+        
+        if (villageCount == 0) {
+            source.sendFeedback(() -> Text.literal("Nenhuma vila registrada"), false);
+        }
+        return villageCount;
+    }
+    
+    /**
+     * Mostra, para cada vila, a ocupação do armazenamento de descobertas por tipo e quantas foram descartadas
+     */
+    private static int showDiscoveries(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        int villageCount = 0;
+        
+        for (VillageData village : VillagerExpansionMod.getExpansionManager().getVillages()) {
+            villageCount++;
+            DiscoveryStore store = village.getDiscoveries();
+            source.sendFeedback(() -> Text.literal("Vila " + village.getVillageId() + ": " + store.size() + "/" +
+                    DiscoveryStore.MAX_DISCOVERIES + " descobertas, " + store.getEvictedCount() + " descartadas"), false);
+            
+            for (Map.Entry<String, Integer> entry : store.getTypeCounts().entrySet()) {
+                String line = String.format("  %s: %d/%d", entry.getKey(), entry.getValue(), DiscoveryStore.MAX_PER_TYPE);
+                source.sendFeedback(() -> Text.literal(line), false);
+            }
+        }
+        
+        if (villageCount == 0) {
+            source.sendFeedback(() -> Text.literal("Nenhuma vila registrada"), false);
+        }
+        return villageCount;
+    }
+    
+    /**
+     * Mostra, para cada vila, os campos de direção mantidos e quantas vezes foram consultados e recalculados
+     */
+    private static int showNavigation(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        int villageCount = 0;
+        
+        for (VillageData village : VillagerExpansionMod.getExpansionManager().getVillages()) {
+            villageCount++;
+            VillageFlowFields flowFields = village.getFlowFields();
+            source.sendFeedback(() -> Text.literal("Vila " + village.getVillageId() + ": " + flowFields.getFieldCount() + "/" +
+                    VillageFlowFields.MAX_FIELDS + " campos, " + flowFields.getQueryCount() + " consultas, " +
+                    flowFields.getRebuildCount() + " recálculos"), false);
+        }
+        
+        if (villageCount == 0) {
+            source.sendFeedback(() -> Text.literal("Nenhuma vila registrada"), false);
+        }
+        return villageCount;
+    }
+    
+    /**
+     * Mostra a distribuição dos villagers em grupos e o histograma do tempo gasto por tick nas profissões
+     */
+    private static int showProfessions(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        ProfessionManager professions = VillagerExpansionMod.getExpansionManager().getProfessionManager();
+        TickTimeHistogram histogram = professions.getTickHistogram();
+        
+        source.sendFeedback(() -> Text.literal(String.format("%d villagers com profissão em %d grupo(s); %d ticks medidos, média %.1fus, máximo %.1fus",
+                professions.getProfessionCount(), professions.getBucketCount(), histogram.getSamples(),
+                histogram.getAverageMicros(), histogram.getMaxMicros())), false);
+        
+        for (int bucket = 0; bucket < histogram.getBucketCount(); bucket++) {
+            if (histogram.getCount(bucket) == 0) {
+                continue;
+            }
+            String line = String.format("  %s: %d", histogram.getBucketLabel(bucket), histogram.getCount(bucket));
+            source.sendFeedback(() -> Text.literal(line), false);
+        }
+        return (int) histogram.getSamples();
+    }
+    
+    /**
+     * Zera o histograma do tempo gasto por tick nas profissões
+     */
+    private static int resetProfessions(CommandContext<ServerCommandSource> context) {
+        VillagerExpansionMod.getExpansionManager().getProfessionManager().getTickHistogram().reset();
+        context.getSource().sendFeedback(() -> Text.literal("Histograma das profissões zerado"), true);
+        return 1;
+    }
+    
+    private static String formatSigned(double value) {
+        return String.format("%+.1f", value);
+    }
+    
+    private static String formatSigned(int value) {
+        return String.format("%+d", value);
+    }
+}
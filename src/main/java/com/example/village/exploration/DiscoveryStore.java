@@ -0,0 +1,300 @@
+package com.example.village.exploration;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Armazena as localizações descobertas por uma vila
+ * As descobertas ficam em uma grade horizontal de células de 32 blocos, com uma grade separada por tipo,
+ * para que as consultas de proximidade visitem apenas as células ao redor da posição
+ * A capacidade é limitada, no total e por tipo; ao atingir o limite, a descoberta usada há mais tempo é descartada
+ */
+public class DiscoveryStore {
+    
+    // Tamanho da célula da grade (em blocos, como potência de 2)
+    private static final int CELL_SHIFT = 5;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+    
+    // Limites de capacidade do armazenamento
+    public static final int MAX_DISCOVERIES = 256;
+    public static final int MAX_PER_TYPE = 64;
+    
+    private final Map<UUID, Discovery> discoveries = new HashMap<>();
+    
+    // Grade com todas as descobertas e grades por tipo (chave da célula -> descobertas)
+    private final Long2ObjectOpenHashMap<List<Discovery>> grid = new Long2ObjectOpenHashMap<>();
+    private final Map<String, Long2ObjectOpenHashMap<List<Discovery>>> typeGrids = new HashMap<>();
+    private final Map<String, Integer> typeCounts = new HashMap<>();
+    
+    // Carimbo crescente de uso, para escolher a descoberta usada há mais tempo
+    private long useClock = 0;
+    
+    // Quantidade de descobertas descartadas por falta de espaço
+    private long evictedCount = 0;
+    
+    /**
+     * Adiciona uma descoberta, substituindo a anterior com o mesmo ID
+     * @param id O ID da descoberta
+     * @param pos A posição
+     * @param type O tipo da descoberta
+     */
+    public void add(UUID id, BlockPos pos, String type) {
+        remove(id);
+        
+        // Abre espaço descartando a descoberta usada há mais tempo, primeiro dentro do tipo e depois no total
+        if (count(type) >= MAX_PER_TYPE) {
+            evict(findLeastRecentlyUsed(typeGrids.get(type)));
+        } else if (discoveries.size() >= MAX_DISCOVERIES) {
+            evict(findLeastRecentlyUsed(grid));
+        }
+        
+        Discovery discovery = new Discovery(id, pos.toImmutable(), type);
+        discovery.lastUsed = ++useClock;
+        discoveries.put(id, discovery);
+        long cell = cellKey(pos.getX(), pos.getZ());
+        grid.computeIfAbsent(cell, c -> new ArrayList<>(2)).add(discovery);
+        typeGrids.computeIfAbsent(type, t -> new Long2ObjectOpenHashMap<>())
+                .computeIfAbsent(cell, c -> new ArrayList<>(2)).add(discovery);
+        typeCounts.merge(type, 1, Integer::sum);
+    }
+    
+    /**
+     * Remove uma descoberta
+     * @param id O ID da descoberta
+     */
+    public void remove(UUID id) {
+        Discovery discovery = discoveries.remove(id);
+        if (discovery == null) {
+            return;
+        }
+        
+        long cell = cellKey(discovery.pos.getX(), discovery.pos.getZ());
+        removeFromCell(grid, cell, discovery);
+        Long2ObjectOpenHashMap<List<Discovery>> typeGrid = typeGrids.get(discovery.type);
+        removeFromCell(typeGrid, cell, discovery);
+        if (typeGrid.isEmpty()) {
+            typeGrids.remove(discovery.type);
+        }
+        typeCounts.computeIfPresent(discovery.type, (t, count) -> count > 1 ? count - 1 : null);
+    }
+    
+    /**
+     * Obtém uma descoberta pelo ID
+     * @return A descoberta, ou null se não existir
+     */
+    public Discovery get(UUID id) {
+        Discovery discovery = discoveries.get(id);
+        if (discovery != null) {
+            discovery.lastUsed = ++useClock;
+        }
+        return discovery;
+    }
+    
+    public boolean contains(UUID id) {
+        return discoveries.containsKey(id);
+    }
+    
+    public int size() {
+        return discoveries.size();
+    }
+    
+    /**
+     * Obtém a quantidade de descobertas de um tipo
+     */
+    public int count(String type) {
+        return typeCounts.getOrDefault(type, 0);
+    }
+    
+    /**
+     * Obtém a quantidade de cada tipo de descoberta
+     * @return Mapa somente leitura (tipo -> quantidade)
+     */
+    public Map<String, Integer> getTypeCounts() {
+        return Collections.unmodifiableMap(typeCounts);
+    }
+    
+    /**
+     * Obtém quantas descobertas foram descartadas por falta de espaço desde a criação do armazenamento
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+    
+    /**
+     * Obtém os IDs de todas as descobertas
+     * @return Conjunto somente leitura, sem cópia
+     */
+    public Set<UUID> getIds() {
+        return Collections.unmodifiableSet(discoveries.keySet());
+    }
+    
+    /**
+     * Obtém todas as descobertas
+     * @return Coleção somente leitura, sem cópia
+     */
+    public Collection<Discovery> getAll() {
+        return Collections.unmodifiableCollection(discoveries.values());
+    }
+    
+    /**
+     * Verifica se há alguma descoberta a até uma distância da posição
+     * @param pos A posição
+     * @param radius A distância máxima
+     */
+    public boolean isNear(BlockPos pos, int radius) {
+        int minCellX = (pos.getX() - radius) >> CELL_SHIFT;
+        int maxCellX = (pos.getX() + radius) >> CELL_SHIFT;
+        int minCellZ = (pos.getZ() - radius) >> CELL_SHIFT;
+        int maxCellZ = (pos.getZ() + radius) >> CELL_SHIFT;
+        
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                List<Discovery> cell = grid.get(ChunkPos.toLong(cellX, cellZ));
+                if (cell == null) {
+                    continue;
+                }
+                for (Discovery discovery : cell) {
+                    if (discovery.pos.isWithinDistance(pos, radius)) {
+                        discovery.lastUsed = ++useClock;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Encontra a descoberta de um tipo mais próxima de uma posição
+     * Percorre anéis de células a partir da célula da posição e para assim que nenhum anel seguinte pode ter algo mais próximo
+     * @param type O tipo da descoberta
+     * @param pos A posição
+     * @param maxRadius A distância horizontal máxima da busca
+     * @return A descoberta mais próxima, ou null se não houver nenhuma no raio
+     */
+    public Discovery findNearest(String type, BlockPos pos, int maxRadius) {
+        Long2ObjectOpenHashMap<List<Discovery>> typeGrid = typeGrids.get(type);
+        if (typeGrid == null) {
+            return null;
+        }
+        
+        int centerCellX = pos.getX() >> CELL_SHIFT;
+        int centerCellZ = pos.getZ() >> CELL_SHIFT;
+        int maxRing = (maxRadius >> CELL_SHIFT) + 1;
+        long maxDistanceSq = (long) maxRadius * maxRadius;
+        Discovery best = null;
+        long bestDistanceSq = Long.MAX_VALUE;
+        
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dz = -ring; dz <= ring; dz++) {
+                    if (Math.abs(dx) != ring && Math.abs(dz) != ring) continue; // Apenas o perímetro do anel
+                    
+                    List<Discovery> cell = typeGrid.get(ChunkPos.toLong(centerCellX + dx, centerCellZ + dz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Discovery discovery : cell) {
+                        long distanceSq = horizontalDistanceSq(discovery.pos, pos);
+                        if (distanceSq <= maxDistanceSq && distanceSq < bestDistanceSq) {
+                            best = discovery;
+                            bestDistanceSq = distanceSq;
+                        }
+                    }
+                }
+            }
+            
+            // Qualquer célula do próximo anel está a pelo menos ring * CELL_SIZE blocos
+            long ringDistance = (long) ring * CELL_SIZE;
+            if (best != null && bestDistanceSq <= ringDistance * ringDistance) {
+                break;
+            }
+        }
+        
+        if (best != null) {
+            best.lastUsed = ++useClock;
+        }
+        return best;
+    }
+    
+    /**
+     * Descarta uma descoberta por falta de espaço
+     */
+    private void evict(Discovery discovery) {
+        if (discovery != null) {
+            remove(discovery.id);
+            evictedCount++;
+        }
+    }
+    
+    /**
+     * Encontra a descoberta usada há mais tempo em uma grade
+     * A busca é linear, mas só acontece quando o armazenamento está cheio e é limitada pela capacidade
+     */
+    private static Discovery findLeastRecentlyUsed(Long2ObjectOpenHashMap<List<Discovery>> cells) {
+        Discovery oldest = null;
+        for (List<Discovery> cell : cells.values()) {
+            for (Discovery discovery : cell) {
+                if (oldest == null || discovery.lastUsed < oldest.lastUsed) {
+                    oldest = discovery;
+                }
+            }
+        }
+        return oldest;
+    }
+    
+    private static long horizontalDistanceSq(BlockPos a, BlockPos b) {
+        long dx = a.getX() - b.getX();
+        long dz = a.getZ() - b.getZ();
+        return dx * dx + dz * dz;
+    }
+    
+    private static long cellKey(int x, int z) {
+        return ChunkPos.toLong(x >> CELL_SHIFT, z >> CELL_SHIFT);
+    }
+    
+    private static void removeFromCell(Long2ObjectOpenHashMap<List<Discovery>> cells, long cell, Discovery discovery) {
+        List<Discovery> list = cells.get(cell);
+        if (list != null && list.remove(discovery) && list.isEmpty()) {
+            cells.remove(cell);
+        }
+    }
+    
+    /**
+     * Uma localização descoberta
+     */
+    public static final class Discovery {
+        private final UUID id;
+        private final BlockPos pos;
+        private final String type;
+        private long lastUsed;
+        
+        private Discovery(UUID id, BlockPos pos, String type) {
+            this.id = id;
+            this.pos = pos;
+            this.type = type;
+        }
+        
+        public UUID getId() {
+            return id;
+        }
+        
+        public BlockPos getPos() {
+            return pos;
+        }
+        
+        public String getType() {
+            return type;
+        }
+    }
+}
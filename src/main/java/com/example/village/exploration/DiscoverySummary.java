@@ -0,0 +1,113 @@
+package com.example.village.exploration;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * Resumo compacto do conhecimento de uma vila: um filtro de Bloom de tamanho fixo com os chunks explorados
+ * e os tipos de localização descobertos em cada chunk
+ * O tamanho não depende do mundo e dois resumos se combinam com um OU bit a bit, então a troca entre vilas tem custo fixo
+ * Pode dar falsos positivos (um chunk não explorado aparece como coberto), nunca falsos negativos
+ */
+public class DiscoverySummary {
+    
+    // 16384 bits (2 KiB) e 3 funções de hash: ~3% de falsos positivos com 2000 entradas
+    private static final int WORDS = 256;
+    private static final int BITS = WORDS * Long.SIZE;
+    private static final int HASHES = 3;
+    
+    // Constante usada para separar as chaves de descobertas das chaves de chunks
+    private static final long DISCOVERY_SALT = 0x9E3779B97F4A7C15L;
+    
+    private final long[] bits = new long[WORDS];
+    
+    /**
+     * Registra um chunk explorado
+     */
+    public void addChunk(int chunkX, int chunkZ) {
+        add(ChunkPos.toLong(chunkX, chunkZ));
+    }
+    
+    /**
+     * Verifica se um chunk pode ter sido explorado
+     */
+    public boolean mightContainChunk(int chunkX, int chunkZ) {
+        return mightContain(ChunkPos.toLong(chunkX, chunkZ));
+    }
+    
+    /**
+     * Registra uma localização descoberta (tipo e chunk)
+     */
+    public void addDiscovery(String type, BlockPos pos) {
+        add(discoveryKey(type, pos.getX() >> 4, pos.getZ() >> 4));
+    }
+    
+    /**
+     * Verifica se uma localização de um tipo pode ter sido descoberta em um chunk
+     */
+    public boolean mightContainDiscovery(String type, int chunkX, int chunkZ) {
+        return mightContain(discoveryKey(type, chunkX, chunkZ));
+    }
+    
+    /**
+     * Combina outro resumo a este (união dos conjuntos)
+     */
+    public void merge(DiscoverySummary other) {
+        for (int i = 0; i < WORDS; i++) {
+            bits[i] |= other.bits[i];
+        }
+    }
+    
+    public boolean isEmpty() {
+        for (long word : bits) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Obtém as palavras do filtro, para gravação
+     */
+    public long[] toLongArray() {
+        return bits.clone();
+    }
+    
+    /**
+     * Reconstrói um resumo gravado por toLongArray (arrays de outro tamanho são ignorados)
+     */
+    public static DiscoverySummary fromLongArray(long[] words) {
+        DiscoverySummary summary = new DiscoverySummary();
+        if (words.length == WORDS) {
+            System.arraycopy(words, 0, summary.bits, 0, WORDS);
+        }
+        return summary;
+    }
+    
+    private void add(long key) {
+        long h1 = HashCommon.mix(key);
+        long h2 = HashCommon.mix(h1) | 1L;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, BITS);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+    
+    private boolean mightContain(long key) {
+        long h1 = HashCommon.mix(key);
+        long h2 = HashCommon.mix(h1) | 1L;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, BITS);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static long discoveryKey(String type, int chunkX, int chunkZ) {
+        return ChunkPos.toLong(chunkX, chunkZ) ^ (type.hashCode() * DISCOVERY_SALT);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.village.exploration;
+
+import com.example.VillagerExpansionMod;
+import com.example.village.VillageData;
+import com.example.village.terrain.BiomeCategory;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.io.IOException;
+
+/**
+ * Fronteira de exploração de uma vila: os chunks ainda não explorados na borda da área conhecida
+ * Há uma fila de prioridade por categoria de bioma, ordenada pela distância à origem da vila;
+ * a escolha compara só o topo de cada fila, descontando da distância um bônus pelo que a vila precisa
+ * A fronteira cresce incrementalmente: cada chunk explorado empurra os seus vizinhos ainda não explorados
+ */
+public class ExplorationFrontier {
+    
+    // Anel de exploração ao redor da origem (em chunks)
+    private final int minRadius;
+    private final int maxRadius;
+    
+    private final int originChunkX;
+    private final int originChunkZ;
+    
+    // Filas por categoria de bioma e conjunto dos chunks já enfileirados
+    private final LongHeapPriorityQueue[] queues = new LongHeapPriorityQueue[BiomeCategory.values().length];
+    private final LongOpenHashSet queued = new LongOpenHashSet();
+    
+    // Bônus máximo (em chunks de distância) para a categoria do recurso que mais falta
+    private static final int MAX_NEED_BONUS = 8;
+    private static final int WOOD_TARGET = 60;
+    private static final int STONE_TARGET = 60;
+    private static final int FOOD_TARGET = 40;
+    
+    private ExplorationFrontier(int originChunkX, int originChunkZ, int minRadius, int maxRadius) {
+        this.originChunkX = originChunkX;
+        this.originChunkZ = originChunkZ;
+        this.minRadius = minRadius;
+        this.maxRadius = maxRadius;
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new LongHeapPriorityQueue((a, b) -> Long.compare(distanceSq(a), distanceSq(b)));
+        }
+    }
+    
+    /**
+     * Monta a fronteira a partir do mapa de chunks explorados da vila
+     * @param origin O chunk de origem do mapa da vila
+     * @param minRadius A distância mínima (em chunks) dos alvos
+     * @param maxRadius A distância máxima (em chunks) dos alvos
+     */
+    public static ExplorationFrontier build(ServerWorld world, ExploredChunkStore store, int slot, ChunkPos origin,
+                                            int minRadius, int maxRadius) throws IOException {
+        ExplorationFrontier frontier = new ExplorationFrontier(origin.x, origin.z, minRadius, maxRadius);
+        for (int dz = -maxRadius; dz <= maxRadius; dz++) {
+            for (int dx = -maxRadius; dx <= maxRadius; dx++) {
+                int chunkX = origin.x + dx;
+                int chunkZ = origin.z + dz;
+                if (frontier.isFrontier(store, slot, chunkX, chunkZ)) {
+                    frontier.push(world, chunkX, chunkZ);
+                }
+            }
+        }
+        return frontier;
+    }
+    
+    /**
+     * Retira o melhor chunk da fronteira para as necessidades atuais da vila
+     * @return O chunk escolhido, ou null se a fronteira estiver vazia
+     */
+    public ChunkPos poll(ExploredChunkStore store, int slot, VillageData village) throws IOException {
+        int[] bonus = computeNeedBonus(village);
+        
+        while (true) {
+            // Compara apenas o topo de cada fila
+            int bestQueue = -1;
+            double bestScore = Double.MAX_VALUE;
+            for (int i = 0; i < queues.length; i++) {
+                if (queues[i].isEmpty()) {
+                    continue;
+                }
+                double score = Math.sqrt(distanceSq(queues[i].firstLong())) - bonus[i];
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestQueue = i;
+                }
+            }
+            if (bestQueue < 0) {
+                return null;
+            }
+            
+            long packed = queues[bestQueue].dequeueLong();
+            queued.remove(packed);
+            ChunkPos chunkPos = new ChunkPos(packed);
+            
+            // Descarta os chunks explorados depois de enfileirados (por exemplo, por conhecimento compartilhado)
+            if (!store.isExplored(slot, chunkPos.x, chunkPos.z)) {
+                return chunkPos;
+            }
+        }
+    }
+    
+    /**
+     * Atualiza a fronteira depois que um chunk foi marcado como explorado
+     */
+    public void onExplored(ServerWorld world, ExploredChunkStore store, int slot, int chunkX, int chunkZ) throws IOException {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if ((dx == 0) != (dz == 0) && isFrontier(store, slot, chunkX + dx, chunkZ + dz)) {
+                    push(world, chunkX + dx, chunkZ + dz);
+                }
+            }
+        }
+    }
+    
+    public int size() {
+        return queued.size();
+    }
+    
+    /**
+     * Verifica se um chunk pertence à fronteira: não explorado, dentro do anel e vizinho de um chunk explorado
+     * (ou na borda interna do anel, de onde a exploração começa)
+     */
+    private boolean isFrontier(ExploredChunkStore store, int slot, int chunkX, int chunkZ) throws IOException {
+        int dx = chunkX - originChunkX;
+        int dz = chunkZ - originChunkZ;
+        int distanceSq = dx * dx + dz * dz;
+        if (distanceSq < minRadius * minRadius || distanceSq > maxRadius * maxRadius) {
+            return false;
+        }
+        if (store.isExplored(slot, chunkX, chunkZ)) {
+            return false;
+        }
+        if (distanceSq < (minRadius + 1) * (minRadius + 1)) {
+            return true;
+        }
+        return store.isExplored(slot, chunkX + 1, chunkZ) || store.isExplored(slot, chunkX - 1, chunkZ) ||
+               store.isExplored(slot, chunkX, chunkZ + 1) || store.isExplored(slot, chunkX, chunkZ - 1);
+    }
+    
+    /**
+     * Enfileira um chunk na fila da categoria do seu bioma
+     */
+    private void push(ServerWorld world, int chunkX, int chunkZ) {
+        long packed = ChunkPos.toLong(chunkX, chunkZ);
+        if (!queued.add(packed)) {
+            return;
+        }
+        
+        BiomeCategory category = VillagerExpansionMod.getExpansionManager().getBiomeGrid()
+                .getCategory(world, new BlockPos((chunkX << 4) + 8, 0, (chunkZ << 4) + 8));
+        queues[category.ordinal()].enqueue(packed);
+    }
+    
+    /**
+     * Calcula o bônus de cada categoria de bioma pela falta do recurso que ela fornece
+     */
+    private static int[] computeNeedBonus(VillageData village) {
+        int[] bonus = new int[BiomeCategory.values().length];
+        bonus[BiomeCategory.FOREST.ordinal()] = needBonus(village.getWoodResource(), WOOD_TARGET);
+        bonus[BiomeCategory.MOUNTAIN.ordinal()] = needBonus(village.getStoneResource(), STONE_TARGET);
+        bonus[BiomeCategory.OCEAN.ordinal()] = needBonus(village.getFoodResource(), FOOD_TARGET);
+        return bonus;
+    }
+    
+    private static int needBonus(int amount, int target) {
+        return amount >= target ? 0 : (target - Math.max(0, amount)) * MAX_NEED_BONUS / target;
+    }
+    
+    private long distanceSq(long packed) {
+        long dx = ChunkPos.getPackedX(packed) - originChunkX;
+        long dz = ChunkPos.getPackedZ(packed) - originChunkZ;
+        return dx * dx + dz * dz;
+    }
+}
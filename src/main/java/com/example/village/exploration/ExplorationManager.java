@@ -2,17 +2,29 @@ package com.example.village.exploration;
 
 import com.example.VillagerExpansionMod;
 import com.example.village.VillageData;
-import net.minecraft.block.Block;
-import net.minecraft.block.Blocks;
+import com.example.village.VillageTaskIndex;
+import com.example.village.relation.VillageRelationManager;
+import com.example.village.resources.ResourceFlowSource;
+import com.example.village.terrain.BiomeCategory;
+import com.example.village.terrain.SurfaceCategory;
+import com.example.village.terrain.TerrainClassifier;
+import com.example.village.terrain.TerrainSummary;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.WorldSavePath;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.Heightmap;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -21,8 +33,27 @@ import java.util.UUID;
  */
 public class ExplorationManager {
     private final Map<UUID, ExplorationTask> activeExplorationTasks = new HashMap<>();
+    private final VillageTaskIndex<ExplorationTask> tasksByVillage = new VillageTaskIndex<>();
     private final Random random = new Random();
     
+    // Resumos do terreno por chunk usados para classificar as descobertas
+    private final TerrainClassifier terrainClassifier = new TerrainClassifier();
+    
+    // Mapas de bits dos chunks explorados por cada vila (aberto na primeira exploração)
+    private ExploredChunkStore exploredChunks = null;
+    private boolean exploredChunksUnavailable = false;
+    
+    // Fronteira de exploração de cada vila, montada a partir do mapa de chunks explorados
+    private final Map<UUID, ExplorationFrontier> frontiers = new HashMap<>();
+    private static final int FRONTIER_MIN_RADIUS = 4; // 64 blocos
+    private static final int FRONTIER_MAX_RADIUS = 16; // 256 blocos
+    
+    // Troca de resumos de exploração entre vilas vizinhas com boa reputação
+    private static final int SHARING_INTERVAL = 1200; // A cada minuto
+    private static final int SHARING_REPUTATION = 70;
+    private static final int SHARING_DISTANCE = 2 * FRONTIER_MAX_RADIUS * 16; // Anéis de exploração sobrepostos
+    private static final int MAX_SHARED_SKIPS = 64;
+    
     // Contador para limitar a frequência de exploração
     private int explorationTickCounter = 0;
     private static final int EXPLORATION_TICK_INTERVAL = 200; // A cada 10 segundos (20 ticks/segundo)
@@ -31,6 +62,11 @@ public class ExplorationManager {
      * Processa as tarefas de exploração
      */
     public void processExplorationTasks(ServerWorld world) {
+        // As vilas não guardam a dimensão e só são carregadas no Overworld (ver VillageStorage), então a exploração
+        // só acontece lá; caso contrário outros mundos pediriam e classificariam chunks nas coordenadas dos alvos
+        if (world.getRegistryKey() != World.OVERWORLD) {
+            return;
+        }
         explorationTickCounter++;
         
         // Limita a frequência de exploração para não sobrecarregar o servidor
@@ -45,6 +81,64 @@ public class ExplorationManager {
         
         // Processa tarefas de exploração em andamento
         processActiveTasks(world);
+        
+        // Troca periodicamente os resumos de exploração entre vilas com boa reputação
+        if (explorationTickCounter % SHARING_INTERVAL == 0) {
+            shareDiscoverySummaries();
+        }
+    }
+    
+    /**
+     * Monta, para cada vila, a união dos resumos das vilas vizinhas com quem ela tem boa reputação
+     * e une aos chunks explorados da vila os chunks explorados por essas vizinhas
+     */
+    private void shareDiscoverySummaries() {
+        VillageRelationManager relations = VillagerExpansionMod.getExpansionManager().getVillageRelationManager();
+        Iterable<VillageData> villages = VillagerExpansionMod.getExpansionManager().getVillages();
+        
+        for (VillageData village : villages) {
+            DiscoverySummary shared = new DiscoverySummary();
+            int partners = 0;
+            for (VillageData other : villages) {
+                if (other == village || !other.getCenter().isWithinDistance(village.getCenter(), SHARING_DISTANCE)) {
+                    continue;
+                }
+                if (relations.getReputation(village.getVillageId(), other.getVillageId()) >= SHARING_REPUTATION) {
+                    shared.merge(other.getDiscoverySummary());
+                    shareExploredChunks(village, other);
+                    partners++;
+                }
+            }
+            
+            village.setNeighborSummary(shared);
+            if (partners > 0) {
+                VillagerExpansionMod.LOGGER.debug("Vila " + village.getVillageId() + " recebeu os resumos de exploração de " +
+                                               partners + " vila(s) vizinha(s)");
+            }
+        }
+    }
+    
+    /**
+     * Une aos chunks explorados de uma vila os de uma vizinha, quando as duas já têm registro no arquivo
+     * A fronteira da vila é refeita na próxima exploração se ela ganhou chunks
+     */
+    private void shareExploredChunks(VillageData village, VillageData other) {
+        ExploredChunkStore store = exploredChunks;
+        if (store == null || village.getExploredSlot() < 0 || other.getExploredSlot() < 0) {
+            return;
+        }
+        
+        try {
+            int slot = getExploredSlot(village, store);
+            int otherSlot = getExploredSlot(other, store);
+            int before = store.countExplored(slot);
+            store.union(slot, otherSlot);
+            if (store.countExplored(slot) > before) {
+                frontiers.remove(village.getVillageId());
+            }
+        } catch (IOException e) {
+            VillagerExpansionMod.LOGGER.warn("Falha ao unir os chunks explorados da vila " + village.getVillageId(), e);
+        }
     }
     
     /**
@@ -56,9 +150,7 @@ public class ExplorationManager {
         int availableExplorers = Math.max(1, village.getPopulation() / 5); // 20% dos villagers
         
         // Conta quantos exploradores já estão ativos para esta vila
-        long activeExplorers = activeExplorationTasks.values().stream()
-                .filter(task -> task.getVillageId().equals(village.getVillageId()))
-                .count();
+        int activeExplorers = tasksByVillage.count(village.getVillageId());
         
         // Se já temos exploradores suficientes, não inicia novas explorações
         if (activeExplorers >= availableExplorers) {
@@ -83,34 +175,173 @@ public class ExplorationManager {
         BlockPos center = village.getCenter();
         int minDistance = 64; // Distância mínima da vila
         int maxDistance = 256; // Distância máxima da vila
+        int x;
+        int z;
         
-        // Escolhe uma direção aleatória
-        double angle = random.nextDouble() * Math.PI * 2;
-        int distance = minDistance + random.nextInt(maxDistance - minDistance);
-        
-        int x = center.getX() + (int)(Math.cos(angle) * distance);
-        int z = center.getZ() + (int)(Math.sin(angle) * distance);
+        ExploredChunkStore store = getExploredChunks(world);
+        if (store != null) {
+            // Escolhe o melhor chunk da fronteira da área já explorada pela vila
+            try {
+                int slot = getExploredSlot(village, store);
+                ExplorationFrontier frontier = getFrontier(village, store, slot, world);
+                ChunkPos chunkPos = frontier.poll(store, slot, village);
+                
+                // Pula os chunks que as vilas vizinhas já cobriram, tratando-os como explorados
+                DiscoverySummary neighbors = village.getNeighborSummary();
+                for (int skipped = 0; chunkPos != null && skipped < MAX_SHARED_SKIPS &&
+                        neighbors.mightContainChunk(chunkPos.x, chunkPos.z); skipped++) {
+                    store.markExplored(slot, chunkPos.x, chunkPos.z);
+                    frontier.onExplored(world, store, slot, chunkPos.x, chunkPos.z);
+                    chunkPos = frontier.poll(store, slot, village);
+                }
+                
+                if (chunkPos == null) {
+                    // Fronteira vazia: sorteia entre os chunks não explorados que restarem
+                    chunkPos = store.pickUnexplored(slot, FRONTIER_MIN_RADIUS, FRONTIER_MAX_RADIUS, random);
+                }
+                if (chunkPos == null) {
+                    return null; // Todos os chunks ao alcance já foram explorados
+                }
+                
+                // Reserva o chunk para esta tarefa
+                store.markExplored(slot, chunkPos.x, chunkPos.z);
+                village.getDiscoverySummary().addChunk(chunkPos.x, chunkPos.z);
+                frontier.onExplored(world, store, slot, chunkPos.x, chunkPos.z);
+                x = chunkPos.getCenterX();
+                z = chunkPos.getCenterZ();
+            } catch (IOException e) {
+                VillagerExpansionMod.LOGGER.warn("Falha ao acessar os chunks explorados da vila " + village.getVillageId(), e);
+                return null;
+            }
+        } else {
+            // Sem o mapa de chunks explorados, escolhe uma direção aleatória
+            double angle = random.nextDouble() * Math.PI * 2;
+            int distance = minDistance + random.nextInt(maxDistance - minDistance);
+            x = center.getX() + (int)(Math.cos(angle) * distance);
+            z = center.getZ() + (int)(Math.sin(angle) * distance);
+        }
         
-        // Encontra a altura do terreno nesta posição
-        int y = world.getTopY(Heightmap.Type.WORLD_SURFACE, x, z);
+        // Usa a altura do terreno só se o chunk já estiver carregado; caso contrário, a altura da vila
+        // serve de estimativa até o resumo do terreno ficar disponível
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(x >> 4, z >> 4);
+        int y = chunk != null ? chunk.sampleHeightmap(Heightmap.Type.WORLD_SURFACE, x & 15, z & 15) + 1 : center.getY();
         BlockPos target = new BlockPos(x, y, z);
         
-        // Verifica se o alvo não está muito próximo de uma localização já descoberta
-        if (village.isNearDiscoveredLocation(target, 32)) {
+        // Sem o mapa, verifica se o alvo não está muito próximo de uma localização já descoberta
+        if (store == null && village.isNearDiscoveredLocation(target, 32)) {
             return null; // Muito próximo de algo já descoberto
         }
         
         return target;
     }
     
+    /**
+     * Obtém o arquivo com os chunks explorados pelas vilas, abrindo-o na primeira chamada
+     * @return O arquivo, ou null se não puder ser aberto
+     */
+    private ExploredChunkStore getExploredChunks(ServerWorld world) {
+        if (exploredChunks == null && !exploredChunksUnavailable) {
+            Path file = world.getServer().getSavePath(WorldSavePath.ROOT)
+                    .resolve("villager_expansion").resolve("explored.vxe");
+            try {
+                exploredChunks = new ExploredChunkStore(file);
+                
+                // Libera os registros de vilas que não existem mais
+                Set<UUID> liveVillages = new HashSet<>();
+                for (VillageData village : VillagerExpansionMod.getExpansionManager().getVillages()) {
+                    liveVillages.add(village.getVillageId());
+                }
+                int released = exploredChunks.releaseSlots(liveVillages);
+                if (released > 0) {
+                    VillagerExpansionMod.LOGGER.info("Liberados " + released + " registros de vilas inexistentes em " + file);
+                }
+            } catch (IOException e) {
+                VillagerExpansionMod.LOGGER.warn("Não foi possível abrir o arquivo de chunks explorados " + file, e);
+                exploredChunksUnavailable = true;
+            }
+        }
+        return exploredChunks;
+    }
+    
+    /**
+     * Obtém a fronteira de exploração da vila, montando-a a partir do mapa de chunks explorados na primeira chamada
+     */
+    private ExplorationFrontier getFrontier(VillageData village, ExploredChunkStore store, int slot,
+                                            ServerWorld world) throws IOException {
+        ExplorationFrontier frontier = frontiers.get(village.getVillageId());
+        if (frontier == null) {
+            frontier = ExplorationFrontier.build(world, store, slot, store.getOrigin(slot),
+                                                 FRONTIER_MIN_RADIUS, FRONTIER_MAX_RADIUS);
+            frontiers.put(village.getVillageId(), frontier);
+        }
+        return frontier;
+    }
+    
+    /**
+     * Obtém o registro da vila no arquivo de chunks explorados, alocando um se necessário
+     */
+    private int getExploredSlot(VillageData village, ExploredChunkStore store) throws IOException {
+        BlockPos center = village.getCenter();
+        int slot = store.getSlot(village.getVillageId(), village.getExploredSlot(), center.getX() >> 4, center.getZ() >> 4);
+        village.setExploredSlot(slot);
+        return slot;
+    }
+    
+    /**
+     * Marca como explorados o chunk de um alvo e os seus vizinhos (a área avaliada pelo resumo do terreno)
+     */
+    private void markExplored(VillageData village, BlockPos target, ServerWorld world) {
+        ExploredChunkStore store = getExploredChunks(world);
+        if (store == null) {
+            return;
+        }
+        
+        try {
+            int slot = getExploredSlot(village, store);
+            ExplorationFrontier frontier = getFrontier(village, store, slot, world);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    int chunkX = (target.getX() >> 4) + dx;
+                    int chunkZ = (target.getZ() >> 4) + dz;
+                    store.markExplored(slot, chunkX, chunkZ);
+                    frontier.onExplored(world, store, slot, chunkX, chunkZ);
+                    village.getDiscoverySummary().addChunk(chunkX, chunkZ);
+                }
+            }
+        } catch (IOException e) {
+            VillagerExpansionMod.LOGGER.warn("Falha ao marcar os chunks explorados da vila " + village.getVillageId(), e);
+        }
+    }
+    
+    /**
+     * Grava e fecha o arquivo de chunks explorados
+     */
+    public void close() {
+        if (exploredChunks == null) {
+            return;
+        }
+        
+        try {
+            exploredChunks.close();
+        } catch (IOException e) {
+            VillagerExpansionMod.LOGGER.warn("Falha ao gravar o arquivo de chunks explorados", e);
+        }
+        exploredChunks = null;
+        frontiers.clear();
+    }
+    
     /**
      * Inicia uma tarefa de exploração
      */
     private void startExplorationTask(VillageData village, ServerWorld world, BlockPos target) {
         // Cria uma nova tarefa de exploração
-        ExplorationTask task = new ExplorationTask(village.getVillageId(), target);
+        ExplorationTask task = new ExplorationTask(village.getVillageId(), target, world.getRegistryKey());
         UUID taskId = UUID.randomUUID();
         activeExplorationTasks.put(taskId, task);
+        tasksByVillage.add(village.getVillageId(), taskId, task);
+        
+        // Pede em segundo plano os chunks do alvo, para que estejam prontos quando a exploração terminar
+        terrainClassifier.prefetch(world, target);
         
         VillagerExpansionMod.LOGGER.info("Iniciando exploração para a vila " + village.getVillageId() + 
                                        " em direção a " + target);
@@ -128,11 +359,20 @@ public class ExplorationManager {
             UUID taskId = entry.getKey();
             ExplorationTask task = entry.getValue();
             
+            // O terreno do alvo só é pedido e classificado no mundo da tarefa
+            if (task.getDimension() != world.getRegistryKey()) {
+                continue;
+            }
+            
             // Incrementa o progresso da exploração
-            int progressAmount = random.nextInt(10) + 5; // 5-15 de progresso por tick
-            boolean completed = task.incrementProgress(progressAmount);
+            boolean completed = task.isCompleted();
+            if (!completed) {
+                int progressAmount = random.nextInt(10) + 5; // 5-15 de progresso por tick
+                completed = task.incrementProgress(progressAmount);
+            }
             
-            if (completed) {
+            // Só finaliza quando o terreno do alvo já pode ser avaliado sem carregar chunks na thread do servidor
+            if (completed && terrainClassifier.getSummary(world, task.getTargetPosition()) != null) {
                 completedTasks.put(taskId, task);
             }
         }
@@ -144,6 +384,7 @@ public class ExplorationManager {
             
             completeExplorationTask(taskId, task, world);
             activeExplorationTasks.remove(taskId);
+            tasksByVillage.remove(task.getVillageId(), taskId);
         }
     }
     
@@ -162,6 +403,7 @@ public class ExplorationManager {
         
         // Verifica o que foi encontrado na exploração
         BlockPos target = task.getTargetPosition();
+        markExplored(village, target, world);
         String discoveryType = determineDiscoveryType(target, world);
         
         // Registra a descoberta na vila
@@ -177,40 +419,44 @@ public class ExplorationManager {
     }
     
     /**
-     * Determina o tipo de descoberta baseado na localização
+     * Determina o tipo de descoberta baseado no resumo do terreno da localização
      */
     private String determineDiscoveryType(BlockPos pos, ServerWorld world) {
-        // Verifica um raio ao redor da posição alvo
-        int radius = 16;
+        // Uma única amostragem por chunk fornece o histograma da superfície, a altura e o ar subterrâneo
+        TerrainSummary terrain = terrainClassifier.getSummary(world, pos);
+        if (terrain == null) {
+            return null; // Chunks do alvo ainda não disponíveis
+        }
         
         // Estruturas naturais
-        if (hasBlocksInArea(world, pos, radius, Blocks.WATER, 20)) {
+        if (terrain.getCount(SurfaceCategory.WATER) >= 20) {
             return "lake";
         }
         
-        if (hasBlocksInArea(world, pos, radius, Blocks.LAVA, 5)) {
+        if (terrain.getCount(SurfaceCategory.LAVA) >= 5) {
             return "lava_pool";
         }
         
-        if (hasBlocksInArea(world, pos, radius, new Block[]{Blocks.OAK_LOG, Blocks.BIRCH_LOG, 
-                Blocks.SPRUCE_LOG, Blocks.JUNGLE_LOG, Blocks.ACACIA_LOG, Blocks.DARK_OAK_LOG}, 15)) {
+        // Biomas, pela categoria em cache na grade de biomas
+        BiomeCategory biome = VillagerExpansionMod.getExpansionManager().getBiomeGrid().getCategory(world, pos);
+        if (biome == BiomeCategory.FOREST) {
             return "forest";
         }
         
-        if (hasBlocksInArea(world, pos, radius, Blocks.SAND, 30)) {
+        if (biome == BiomeCategory.DESERT) {
             return "desert";
         }
         
-        if (hasBlocksInArea(world, pos, radius, Blocks.SNOW_BLOCK, 20)) {
+        if (biome == BiomeCategory.SNOWY) {
             return "snow_biome";
         }
         
-        if (world.getTopY(Heightmap.Type.WORLD_SURFACE, pos.getX(), pos.getZ()) > 100) {
+        if (biome == BiomeCategory.MOUNTAIN || terrain.getMaxHeight() > 100) {
             return "mountain";
         }
         
         // Verifica se há cavernas próximas
-        if (hasCaveNearby(world, pos)) {
+        if (terrain.getCaveAir() >= 10) {
             return "cave_entrance";
         }
         
@@ -218,109 +464,42 @@ public class ExplorationManager {
         return null;
     }
     
-    /**
-     * Verifica se há uma quantidade mínima de um tipo de bloco em uma área
-     */
-    private boolean hasBlocksInArea(ServerWorld world, BlockPos center, int radius, Block block, int minCount) {
-        return hasBlocksInArea(world, center, radius, new Block[]{block}, minCount);
-    }
-    
-    /**
-     * Verifica se há uma quantidade mínima de blocos de um conjunto em uma área
-     */
-    private boolean hasBlocksInArea(ServerWorld world, BlockPos center, int radius, Block[] blocks, int minCount) {
-        int count = 0;
-        
-        for (int x = -radius; x <= radius; x += 4) { // Amostragem a cada 4 blocos para performance
-            for (int z = -radius; z <= radius; z += 4) {
-                BlockPos checkPos = center.add(x, 0, z);
-                // Ajusta para a superfície
-                checkPos = new BlockPos(checkPos.getX(), 
-                                       world.getTopY(Heightmap.Type.WORLD_SURFACE, checkPos.getX(), checkPos.getZ()), 
-                                       checkPos.getZ());
-                
-                Block block = world.getBlockState(checkPos).getBlock();
-                for (Block targetBlock : blocks) {
-                    if (block == targetBlock) {
-                        count++;
-                        break;
-                    }
-                }
-                
-                if (count >= minCount) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
-    }
-    
-    /**
-     * Verifica se há uma caverna próxima
-     */
-    private boolean hasCaveNearby(ServerWorld world, BlockPos pos) {
-        // Verifica se há espaços vazios abaixo da superfície
-        int airCount = 0;
-        int minAirCount = 10;
-        
-        BlockPos surfacePos = new BlockPos(pos.getX(), 
-                                          world.getTopY(Heightmap.Type.WORLD_SURFACE, pos.getX(), pos.getZ()), 
-                                          pos.getZ());
-        
-        // Verifica blocos abaixo da superfície
-        for (int y = 1; y <= 20; y++) {
-            for (int x = -3; x <= 3; x++) {
-                for (int z = -3; z <= 3; z++) {
-                    BlockPos checkPos = surfacePos.add(x, -y, z);
-                    if (world.isAir(checkPos)) {
-                        airCount++;
-                        
-                        if (airCount >= minAirCount) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        
-        return false;
-    }
-    
     /**
      * Adiciona recursos à vila baseado no tipo de descoberta
      */
     private void addResourcesBasedOnDiscovery(VillageData village, String discoveryType) {
         switch (discoveryType) {
             case "forest":
-                village.addResources(10, 0, 5); // Madeira e alguma comida
+                village.addResources(10, 0, 5, ResourceFlowSource.EXPLORATION); // Madeira e alguma comida
                 break;
             case "lake":
-                village.addResources(0, 0, 8); // Comida (peixe)
+                village.addResources(0, 0, 8, ResourceFlowSource.EXPLORATION); // Comida (peixe)
                 break;
             case "mountain":
-                village.addResources(0, 8, 0); // Pedra
+                village.addResources(0, 8, 0, ResourceFlowSource.EXPLORATION); // Pedra
                 break;
             case "cave_entrance":
                 // Chance de encontrar minérios
                 if (random.nextFloat() < 0.3f) {
-                    village.addMineralResources(2, 1, 0, 0); // Carvão e ferro
+                    village.addMineralResources(2, 1, 0, 0, ResourceFlowSource.EXPLORATION); // Carvão e ferro
                 }
                 break;
         }
     }
     
     /**
-     * Obtém uma tarefa de exploração ativa
+     * Obtém as tarefas de exploração ativas de uma vila
+     * @param villageId O ID da vila
+     * @return Mapa somente leitura das tarefas da vila
      */
-    public ExplorationTask getExplorationTask(UUID taskId) {
-        return activeExplorationTasks.get(taskId);
+    public Map<UUID, ExplorationTask> getVillageExplorationTasks(UUID villageId) {
+        return tasksByVillage.getTasks(villageId);
     }
     
     /**
-     * Obtém todas as tarefas de exploração ativas
+     * Obtém uma tarefa de exploração ativa
      */
-    public Map<UUID, ExplorationTask> getActiveExplorationTasks() {
-        return new HashMap<>(activeExplorationTasks);
+    public ExplorationTask getExplorationTask(UUID taskId) {
+        return activeExplorationTasks.get(taskId);
     }
 }
\ No newline at end of file
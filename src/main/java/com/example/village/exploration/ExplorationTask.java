@@ -1,6 +1,8 @@
 package com.example.village.exploration;
 
+import net.minecraft.registry.RegistryKey;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 
 import java.util.UUID;
 
@@ -10,12 +12,14 @@ import java.util.UUID;
 public class ExplorationTask {
     private final UUID villageId;
     private final BlockPos targetPosition;
+    private final RegistryKey<World> dimension;
     private int progress = 0;
     private static final int MAX_PROGRESS = 100;
     
-    public ExplorationTask(UUID villageId, BlockPos targetPosition) {
+    public ExplorationTask(UUID villageId, BlockPos targetPosition, RegistryKey<World> dimension) {
         this.villageId = villageId;
         this.targetPosition = targetPosition;
+        this.dimension = dimension;
     }
     
     /**
@@ -48,6 +52,13 @@ public class ExplorationTask {
         return targetPosition;
     }
     
+    /**
+     * Obtém a dimensão onde o alvo é explorado
+     */
+    public RegistryKey<World> getDimension() {
+        return dimension;
+    }
+    
     /**
      * Obtém o progresso atual da exploração (0-100%)
      */
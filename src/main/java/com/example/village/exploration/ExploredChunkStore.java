@@ -0,0 +1,306 @@
+package com.example.village.exploration;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.util.math.ChunkPos;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Mapas de bits dos chunks explorados por cada vila, em um arquivo mapeado em memória
+ * Cada vila ocupa um registro de tamanho fixo com uma janela de 64x64 chunks ao redor do chunk de origem da vila;
+ * cada linha da janela é um long, então consultas, sorteios e uniões trabalham com palavras inteiras
+ * Os registros são mapeados em páginas, de modo que milhares de vilas não ficam no heap da JVM
+ * Registros com o ID nulo estão livres e são reaproveitados antes de o arquivo crescer
+ */
+public class ExploredChunkStore implements AutoCloseable {
+    
+    // Janela de chunks de cada vila: WINDOW_RADIUS chunks para cada lado do chunk de origem
+    public static final int WINDOW_RADIUS = 32;
+    private static final int WINDOW_SIZE = WINDOW_RADIUS * 2;
+    
+    private static final int MAGIC = 0x56584558; // "VXEX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    
+    // Registro: ID da vila (2 longs), chunk de origem (2 ints), reservado, linhas da janela (longs)
+    private static final int SLOT_HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = SLOT_HEADER_SIZE + WINDOW_SIZE * Long.BYTES;
+    private static final int SLOTS_PER_PAGE = 64;
+    private static final int PAGE_SIZE = SLOT_SIZE * SLOTS_PER_PAGE;
+    
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> pages = new ArrayList<>();
+    
+    // Registros livres, reaproveitados nas próximas alocações
+    private final IntArrayList freeSlots = new IntArrayList();
+    
+    public ExploredChunkStore(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        
+        // Arquivo novo ou de outra versão: começa sem nenhum registro
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, 0);
+        }
+        
+        for (int slot = 0; slot < getSlotCount(); slot++) {
+            if (getVillageId(slot) == null) {
+                freeSlots.add(slot);
+            }
+        }
+    }
+    
+    /**
+     * Obtém o registro de uma vila, validando o registro informado, procurando o registro da vila
+     * (se o índice gravado com a vila se perdeu) ou alocando um novo
+     * @param villageId O ID da vila
+     * @param slot O registro gravado com a vila, ou -1 se ela ainda não tem um
+     * @param originChunkX O chunk X de origem usado se um novo registro for alocado
+     * @param originChunkZ O chunk Z de origem usado se um novo registro for alocado
+     * @return O registro da vila
+     */
+    public int getSlot(UUID villageId, int slot, int originChunkX, int originChunkZ) throws IOException {
+        if (slot >= 0 && slot < getSlotCount() && villageId.equals(getVillageId(slot))) {
+            return slot;
+        }
+        for (int existing = 0; existing < getSlotCount(); existing++) {
+            if (villageId.equals(getVillageId(existing))) {
+                return existing;
+            }
+        }
+        
+        // Reaproveita um registro livre ou aloca um novo no fim do arquivo
+        int newSlot = freeSlots.isEmpty() ? getSlotCount() : freeSlots.popInt();
+        MappedByteBuffer page = getPage(newSlot);
+        int offset = slotOffset(newSlot);
+        page.putLong(offset, villageId.getMostSignificantBits());
+        page.putLong(offset + 8, villageId.getLeastSignificantBits());
+        page.putInt(offset + 16, originChunkX);
+        page.putInt(offset + 20, originChunkZ);
+        for (int row = 0; row < WINDOW_SIZE; row++) {
+            page.putLong(rowOffset(offset, row), 0L);
+        }
+        if (newSlot >= getSlotCount()) {
+            header.putInt(8, newSlot + 1);
+        }
+        return newSlot;
+    }
+    
+    /**
+     * Libera os registros de vilas que não existem mais (por exemplo, vilas cujos dados se perderam)
+     * @param liveVillages Os IDs das vilas existentes
+     * @return O número de registros liberados
+     */
+    public int releaseSlots(Set<UUID> liveVillages) throws IOException {
+        int released = 0;
+        for (int slot = 0; slot < getSlotCount(); slot++) {
+            UUID owner = getVillageId(slot);
+            if (owner != null && !liveVillages.contains(owner)) {
+                MappedByteBuffer page = getPage(slot);
+                int offset = slotOffset(slot);
+                page.putLong(offset, 0L);
+                page.putLong(offset + 8, 0L);
+                freeSlots.add(slot);
+                released++;
+            }
+        }
+        return released;
+    }
+    
+    /**
+     * Obtém o ID da vila dona de um registro
+     * @return O ID, ou null se o registro estiver livre
+     */
+    private UUID getVillageId(int slot) throws IOException {
+        MappedByteBuffer page = getPage(slot);
+        int offset = slotOffset(slot);
+        long most = page.getLong(offset);
+        long least = page.getLong(offset + 8);
+        return most == 0L && least == 0L ? null : new UUID(most, least);
+    }
+    
+    /**
+     * Obtém o chunk de origem da janela de uma vila
+     */
+    public ChunkPos getOrigin(int slot) throws IOException {
+        MappedByteBuffer page = getPage(slot);
+        int offset = slotOffset(slot);
+        return new ChunkPos(page.getInt(offset + 16), page.getInt(offset + 20));
+    }
+    
+    /**
+     * Verifica se um chunk foi explorado pela vila
+     * Chunks fora da janela da vila contam como explorados, para nunca serem escolhidos como alvo
+     */
+    public boolean isExplored(int slot, int chunkX, int chunkZ) throws IOException {
+        MappedByteBuffer page = getPage(slot);
+        int offset = slotOffset(slot);
+        int column = chunkX - page.getInt(offset + 16) + WINDOW_RADIUS;
+        int row = chunkZ - page.getInt(offset + 20) + WINDOW_RADIUS;
+        if (column < 0 || column >= WINDOW_SIZE || row < 0 || row >= WINDOW_SIZE) {
+            return true;
+        }
+        return (page.getLong(rowOffset(offset, row)) & (1L << column)) != 0;
+    }
+    
+    /**
+     * Marca um chunk como explorado pela vila (ignorado se estiver fora da janela)
+     */
+    public void markExplored(int slot, int chunkX, int chunkZ) throws IOException {
+        MappedByteBuffer page = getPage(slot);
+        int offset = slotOffset(slot);
+        int column = chunkX - page.getInt(offset + 16) + WINDOW_RADIUS;
+        int row = chunkZ - page.getInt(offset + 20) + WINDOW_RADIUS;
+        if (column < 0 || column >= WINDOW_SIZE || row < 0 || row >= WINDOW_SIZE) {
+            return;
+        }
+        int position = rowOffset(offset, row);
+        page.putLong(position, page.getLong(position) | (1L << column));
+    }
+    
+    /**
+     * Conta os chunks explorados pela vila
+     */
+    public int countExplored(int slot) throws IOException {
+        MappedByteBuffer page = getPage(slot);
+        int offset = slotOffset(slot);
+        int count = 0;
+        for (int row = 0; row < WINDOW_SIZE; row++) {
+            count += Long.bitCount(page.getLong(rowOffset(offset, row)));
+        }
+        return count;
+    }
+    
+    /**
+     * Sorteia um chunk não explorado em um anel ao redor do chunk de origem da vila
+     * @param minRadius A distância mínima (em chunks) da origem
+     * @param maxRadius A distância máxima (em chunks) da origem, limitada à janela
+     * @return O chunk sorteado, ou null se todos os chunks do anel já foram explorados
+     */
+    public ChunkPos pickUnexplored(int slot, int minRadius, int maxRadius, Random random) throws IOException {
+        MappedByteBuffer page = getPage(slot);
+        int offset = slotOffset(slot);
+        long[] candidates = new long[WINDOW_SIZE];
+        int total = 0;
+        
+        // Primeira passada: candidatos de cada linha (anel sem os explorados)
+        for (int row = 0; row < WINDOW_SIZE; row++) {
+            long mask = ringMask(row - WINDOW_RADIUS, minRadius, Math.min(maxRadius, WINDOW_RADIUS - 1));
+            candidates[row] = mask & ~page.getLong(rowOffset(offset, row));
+            total += Long.bitCount(candidates[row]);
+        }
+        if (total == 0) {
+            return null;
+        }
+        
+        // Segunda passada: localiza o candidato sorteado
+        int pick = random.nextInt(total);
+        for (int row = 0; row < WINDOW_SIZE; row++) {
+            int rowCount = Long.bitCount(candidates[row]);
+            if (pick >= rowCount) {
+                pick -= rowCount;
+                continue;
+            }
+            
+            long bits = candidates[row];
+            for (int i = 0; i < pick; i++) {
+                bits &= bits - 1; // Descarta o bit mais baixo
+            }
+            int column = Long.numberOfTrailingZeros(bits);
+            return new ChunkPos(page.getInt(offset + 16) + column - WINDOW_RADIUS,
+                                page.getInt(offset + 20) + row - WINDOW_RADIUS);
+        }
+        return null;
+    }
+    
+    /**
+     * Une os chunks explorados de uma vila aos de outra, ajustando a diferença entre os chunks de origem
+     * @param targetSlot O registro que recebe o conhecimento
+     * @param sourceSlot O registro compartilhado
+     */
+    public void union(int targetSlot, int sourceSlot) throws IOException {
+        MappedByteBuffer targetPage = getPage(targetSlot);
+        MappedByteBuffer sourcePage = getPage(sourceSlot);
+        int targetOffset = slotOffset(targetSlot);
+        int sourceOffset = slotOffset(sourceSlot);
+        int shiftX = sourcePage.getInt(sourceOffset + 16) - targetPage.getInt(targetOffset + 16);
+        int shiftZ = sourcePage.getInt(sourceOffset + 20) - targetPage.getInt(targetOffset + 20);
+        if (Math.abs(shiftX) >= WINDOW_SIZE || Math.abs(shiftZ) >= WINDOW_SIZE) {
+            return; // Janelas sem sobreposição
+        }
+        
+        for (int sourceRow = 0; sourceRow < WINDOW_SIZE; sourceRow++) {
+            int targetRow = sourceRow + shiftZ;
+            if (targetRow < 0 || targetRow >= WINDOW_SIZE) {
+                continue;
+            }
+            
+            long bits = sourcePage.getLong(rowOffset(sourceOffset, sourceRow));
+            bits = shiftX >= 0 ? bits << shiftX : bits >>> -shiftX;
+            int position = rowOffset(targetOffset, targetRow);
+            targetPage.putLong(position, targetPage.getLong(position) | bits);
+        }
+    }
+    
+    public int getSlotCount() {
+        return header.getInt(8);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        header.force();
+        for (MappedByteBuffer page : pages) {
+            page.force();
+        }
+        channel.close();
+    }
+    
+    /**
+     * Obtém a página que contém um registro, mapeando-a se necessário
+     */
+    private MappedByteBuffer getPage(int slot) throws IOException {
+        int pageIndex = slot / SLOTS_PER_PAGE;
+        while (pages.size() <= pageIndex) {
+            pages.add(channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) pages.size() * PAGE_SIZE, PAGE_SIZE));
+        }
+        return pages.get(pageIndex);
+    }
+    
+    /**
+     * Máscara das colunas de uma linha que ficam dentro do anel [minRadius, maxRadius]
+     */
+    private static long ringMask(int dz, int minRadius, int maxRadius) {
+        long mask = 0L;
+        int minSq = minRadius * minRadius;
+        int maxSq = maxRadius * maxRadius;
+        for (int dx = -WINDOW_RADIUS; dx < WINDOW_RADIUS; dx++) {
+            int distanceSq = dx * dx + dz * dz;
+            if (distanceSq >= minSq && distanceSq <= maxSq) {
+                mask |= 1L << (dx + WINDOW_RADIUS);
+            }
+        }
+        return mask;
+    }
+    
+    private static int slotOffset(int slot) {
+        return (slot % SLOTS_PER_PAGE) * SLOT_SIZE;
+    }
+    
+    private static int rowOffset(int slotOffset, int row) {
+        return slotOffset + SLOT_HEADER_SIZE + row * Long.BYTES;
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.village.inventory;
+
+import com.example.VillagerExpansionMod;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gerencia as transferências reais de itens entre os inventários dos villagers e os baús
+ * Os depósitos são enfileirados por baú durante o tick e aplicados de uma vez no fim do tick,
+ * agregando os itens de todos os depositantes e chamando markDirty apenas uma vez por baú
+ */
+public class ChestTransferManager {
+    
+    // Baús com transferências pendentes no tick atual (identidade da block entity)
+    private static final Map<ChestBlockEntity, PendingChest> pendingChests = new IdentityHashMap<>();
+    
+    /**
+     * Enfileira o depósito do inventário de um villager em um baú
+     * Os itens só saem do inventário do villager quando o lote do baú é aplicado no fim do tick
+     * @param chest O baú de destino
+     * @param source O inventário do villager
+     */
+    public static void queueDeposit(ChestBlockEntity chest, SimpleInventory source) {
+        PendingChest pending = pendingChests.computeIfAbsent(chest, c -> new PendingChest());
+        
+        // Evita enfileirar o mesmo inventário duas vezes no mesmo lote
+        for (SimpleInventory depositor : pending.depositors) {
+            if (depositor == source) {
+                return;
+            }
+        }
+        pending.depositors.add(source);
+    }
+    
+    /**
+     * Retira imediatamente até uma quantidade de um item de um baú para o inventário de um villager
+     * A retirada é feita em uma única passada pelos slots do baú, e o markDirty é adiado para o fim do tick
+     * @param chest O baú de origem
+     * @param item O item desejado
+     * @param count A quantidade máxima a retirar
+     * @param target O inventário do villager
+     * @return A quantidade realmente transferida
+     */
+    public static int withdraw(ChestBlockEntity chest, Item item, int count, SimpleInventory target) {
+        // Limita a retirada ao espaço disponível no inventário do villager
+        int remaining = Math.min(count, roomFor(target, item));
+        if (remaining <= 0) {
+            return 0;
+        }
+        
+        // Agrega os itens retirados por item e componentes
+        List<ItemAggregate> taken = new ArrayList<>();
+        for (int slot = 0; slot < chest.size() && remaining > 0; slot++) {
+            ItemStack stack = chest.getStack(slot);
+            if (stack.isEmpty() || !stack.isOf(item)) {
+                continue;
+            }
+            
+            int move = Math.min(remaining, stack.getCount());
+            addToAggregates(taken, stack, move);
+            stack.decrement(move);
+            remaining -= move;
+        }
+        
+        if (taken.isEmpty()) {
+            return 0;
+        }
+        
+        // Insere os agregados no inventário do villager; o que não couber volta para o baú
+        int moved = 0;
+        for (ItemAggregate aggregate : taken) {
+            int leftover = insertAggregate(target, aggregate);
+            moved += aggregate.count - leftover;
+            aggregate.count = leftover;
+        }
+        mergeIntoChest(chest, taken);
+        
+        markChestDirty(chest);
+        return moved;
+    }
+    
+    /**
+     * Aplica todos os lotes pendentes dos baús deste mundo
+     * Chamado uma vez no fim de cada tick do mundo
+     * @param world O mundo do servidor
+     */
+    public static void flush(ServerWorld world) {
+        if (pendingChests.isEmpty()) {
+            return;
+        }
+        
+        Iterator<Map.Entry<ChestBlockEntity, PendingChest>> iterator = pendingChests.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ChestBlockEntity, PendingChest> entry = iterator.next();
+            ChestBlockEntity chest = entry.getKey();
+            if (chest.getWorld() != world) {
+                continue; // Pertence a outro mundo, será aplicado no tick dele
+            }
+            iterator.remove();
+            
+            PendingChest pending = entry.getValue();
+            if (!chest.isRemoved() && !pending.depositors.isEmpty()) {
+                applyDeposits(chest, pending.depositors);
+            }
+            
+            // Uma única notificação por baú por tick
+            chest.markDirty();
+        }
+    }
+    
+    /**
+     * Aplica os lotes pendentes de todos os mundos e esvazia a fila (fim da sessão do servidor)
+     * Chamado antes de os mundos serem gravados, para que as retiradas já feitas também sejam salvas
+     */
+    public static void clear() {
+        for (Map.Entry<ChestBlockEntity, PendingChest> entry : pendingChests.entrySet()) {
+            ChestBlockEntity chest = entry.getKey();
+            if (!chest.isRemoved()) {
+                applyDeposits(chest, entry.getValue().depositors);
+                chest.markDirty();
+            }
+        }
+        pendingChests.clear();
+    }
+    
+    /**
+     * Aplica os depósitos coalescidos de vários villagers em um baú
+     */
+    private static void applyDeposits(ChestBlockEntity chest, List<SimpleInventory> depositors) {
+        // Agrega as pilhas de todos os depositantes por item e componentes
+        List<ItemAggregate> aggregates = new ArrayList<>();
+        for (SimpleInventory depositor : depositors) {
+            for (int slot = 0; slot < depositor.size(); slot++) {
+                ItemStack stack = depositor.getStack(slot);
+                if (!stack.isEmpty()) {
+                    addToAggregates(aggregates, stack, stack.getCount());
+                }
+            }
+        }
+        
+        if (aggregates.isEmpty()) {
+            return;
+        }
+        
+        int[] offered = new int[aggregates.size()];
+        for (int i = 0; i < aggregates.size(); i++) {
+            offered[i] = aggregates.get(i).count;
+        }
+        
+        // Funde tudo no baú em uma única passada
+        mergeIntoChest(chest, aggregates);
+        
+        // Retira dos depositantes, na ordem da fila, apenas o que o baú aceitou
+        int totalStored = 0;
+        for (int i = 0; i < aggregates.size(); i++) {
+            ItemAggregate aggregate = aggregates.get(i);
+            int accepted = offered[i] - aggregate.count;
+            totalStored += accepted;
+            
+            for (int d = 0; d < depositors.size() && accepted > 0; d++) {
+                SimpleInventory depositor = depositors.get(d);
+                for (int slot = 0; slot < depositor.size() && accepted > 0; slot++) {
+                    ItemStack stack = depositor.getStack(slot);
+                    if (!stack.isEmpty() && ItemStack.areItemsAndComponentsEqual(stack, aggregate.prototype)) {
+                        int take = Math.min(accepted, stack.getCount());
+                        depositor.removeStack(slot, take);
+                        accepted -= take;
+                    }
+                }
+            }
+        }
+        
+        if (totalStored > 0) {
+            VillagerExpansionMod.LOGGER.info("Baú em " + chest.getPos() + " recebeu " + totalStored +
+                                          " itens de " + depositors.size() + " villager(s)");
+        }
+    }
+    
+    /**
+     * Funde os agregados no inventário do baú em uma única passada pelos slots
+     * Completa as pilhas existentes e depois ocupa os slots vazios encontrados na mesma passada
+     * Atualiza a contagem de cada agregado com o que não coube
+     */
+    private static void mergeIntoChest(Inventory chest, List<ItemAggregate> aggregates) {
+        int[] emptySlots = new int[chest.size()];
+        int emptyCount = 0;
+        
+        for (int slot = 0; slot < chest.size(); slot++) {
+            ItemStack stack = chest.getStack(slot);
+            if (stack.isEmpty()) {
+                emptySlots[emptyCount++] = slot;
+                continue;
+            }
+            
+            for (ItemAggregate aggregate : aggregates) {
+                if (aggregate.count > 0 && ItemStack.areItemsAndComponentsEqual(stack, aggregate.prototype)) {
+                    int space = chest.getMaxCount(stack) - stack.getCount();
+                    int move = Math.min(space, aggregate.count);
+                    if (move > 0) {
+                        stack.increment(move);
+                        aggregate.count -= move;
+                    }
+                    break;
+                }
+            }
+        }
+        
+        // Ocupa os slots vazios com o restante de cada agregado
+        int nextEmpty = 0;
+        for (ItemAggregate aggregate : aggregates) {
+            while (aggregate.count > 0 && nextEmpty < emptyCount) {
+                int move = Math.min(aggregate.count, chest.getMaxCount(aggregate.prototype));
+                chest.setStack(emptySlots[nextEmpty++], aggregate.prototype.copyWithCount(move));
+                aggregate.count -= move;
+            }
+        }
+    }
+    
+    /**
+     * Insere um agregado no inventário do villager
+     * @return A quantidade que não coube
+     */
+    private static int insertAggregate(SimpleInventory target, ItemAggregate aggregate) {
+        int remaining = aggregate.count;
+        int maxCount = aggregate.prototype.getMaxCount();
+        
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, maxCount);
+            ItemStack rest = target.addStack(aggregate.prototype.copyWithCount(chunk));
+            remaining -= chunk - rest.getCount();
+            if (!rest.isEmpty()) {
+                break; // Inventário cheio
+            }
+        }
+        
+        return remaining;
+    }
+    
+    /**
+     * Calcula quantos itens de um tipo ainda cabem em um inventário
+     */
+    private static int roomFor(SimpleInventory inventory, Item item) {
+        int maxCount = item.getMaxCount();
+        int room = 0;
+        
+        for (int slot = 0; slot < inventory.size(); slot++) {
+            ItemStack stack = inventory.getStack(slot);
+            if (stack.isEmpty()) {
+                room += maxCount;
+            } else if (stack.isOf(item)) {
+                room += Math.max(0, stack.getMaxCount() - stack.getCount());
+            }
+        }
+        
+        return room;
+    }
+    
+    /**
+     * Soma uma quantidade de uma pilha à lista de agregados, agrupando por item e componentes
+     */
+    private static void addToAggregates(List<ItemAggregate> aggregates, ItemStack stack, int count) {
+        for (ItemAggregate aggregate : aggregates) {
+            if (ItemStack.areItemsAndComponentsEqual(aggregate.prototype, stack)) {
+                aggregate.count += count;
+                return;
+            }
+        }
+        aggregates.add(new ItemAggregate(stack.copyWithCount(1), count));
+    }
+    
+    /**
+     * Marca um baú para receber um único markDirty no fim do tick
+     */
+    private static void markChestDirty(ChestBlockEntity chest) {
+        pendingChests.computeIfAbsent(chest, c -> new PendingChest());
+    }
+    
+    /**
+     * Lote de transferências pendentes de um baú
+     */
+    private static final class PendingChest {
+        private final List<SimpleInventory> depositors = new ArrayList<>(2);
+    }
+    
+    /**
+     * Quantidade agregada de um item (com seus componentes)
+     */
+    private static final class ItemAggregate {
+        private final ItemStack prototype;
+        private int count;
+        
+        private ItemAggregate(ItemStack prototype, int count) {
+            this.prototype = prototype;
+            this.count = count;
+        }
+    }
+}
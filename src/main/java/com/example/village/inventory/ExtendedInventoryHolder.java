@@ -0,0 +1,14 @@
+package com.example.village.inventory;
+
+/**
+ * Interface implementada pelos villagers (via mixin) para expor o inventário estendido
+ * O inventário fica armazenado na própria entidade, é salvo no NBT dela e liberado junto com ela
+ */
+public interface ExtendedInventoryHolder {
+    
+    /**
+     * Obtém o inventário estendido do villager
+     * @return O inventário anexado à entidade
+     */
+    VillagerInventory villagerExpansion$getExtendedInventory();
+}
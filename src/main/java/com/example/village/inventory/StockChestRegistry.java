@@ -0,0 +1,99 @@
+package com.example.village.inventory;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.ChestBlock;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.GlobalPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registro dos baús que pertencem ao estoque das vilas
+ * Associa cada baú (mundo + posição) ao índice de estoque da vila dona e repassa a esse índice
+ * as alterações de conteúdo, a remoção do bloco e o carregamento do chunk do baú
+ */
+public class StockChestRegistry {
+    
+    // Dono de cada baú registrado (mundo + posição do baú -> índice da vila)
+    private final Map<GlobalPos, VillageStockIndex> owners = new HashMap<>();
+    
+    /**
+     * Obtém o índice que registrou um baú
+     * @param world O mundo do baú
+     * @param pos A posição do baú
+     * @return O índice dono do baú, ou null se o baú não pertencer a nenhuma vila
+     */
+    public VillageStockIndex getOwner(World world, BlockPos pos) {
+        return owners.get(GlobalPos.create(world.getRegistryKey(), pos));
+    }
+    
+    /**
+     * Associa um baú a um índice, se o baú ainda não pertencer a outra vila
+     * @return true se o baú passou a pertencer ao índice
+     */
+    boolean claim(RegistryKey<World> dimension, BlockPos pos, VillageStockIndex index) {
+        return owners.putIfAbsent(GlobalPos.create(dimension, pos.toImmutable()), index) == null;
+    }
+    
+    /**
+     * Desfaz a associação de um baú com um índice
+     */
+    void release(RegistryKey<World> dimension, BlockPos pos, VillageStockIndex index) {
+        owners.remove(GlobalPos.create(dimension, pos), index);
+    }
+    
+    /**
+     * Chamado quando o inventário de um baú é alterado (via markDirty)
+     * @param chest O baú alterado
+     */
+    public void onChestChanged(ChestBlockEntity chest) {
+        VillageStockIndex owner = getOwner(chest.getWorld(), chest.getPos());
+        if (owner != null) {
+            owner.markChanged(chest);
+        }
+    }
+    
+    /**
+     * Remove do estoque da vila dona um baú cujo bloco foi quebrado ou substituído
+     */
+    public void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        if (!(oldState.getBlock() instanceof ChestBlock) || newState.isOf(oldState.getBlock())) {
+            return;
+        }
+        
+        VillageStockIndex owner = getOwner(world, pos);
+        if (owner != null) {
+            owner.unregisterChest(pos);
+        }
+    }
+    
+    /**
+     * Marca para reconciliação os baús registrados de um chunk que acabou de ser carregado
+     * Os baús restaurados do save só têm o conteúdo conhecido depois que o seu chunk carrega
+     */
+    public void onChunkLoad(ServerWorld world, WorldChunk chunk) {
+        if (owners.isEmpty()) {
+            return;
+        }
+        
+        for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+            if (blockEntity instanceof ChestBlockEntity chest) {
+                onChestChanged(chest);
+            }
+        }
+    }
+    
+    /**
+     * Esquece todos os baús registrados (fim da sessão do servidor)
+     */
+    public void clear() {
+        owners.clear();
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.village.inventory;
+
+import com.example.VillagerExpansionMod;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice agregado do estoque de uma vila
+ * Mantém o total de cada item somando todos os baús de armazenamento registrados
+ * e quais baús guardam cada item, atualizado incrementalmente quando o conteúdo de um baú muda
+ */
+public class VillageStockIndex {
+    
+    // Mundo dos baús registrados (null enquanto não houver nenhum)
+    private RegistryKey<World> dimension = null;
+    
+    // Total de cada item em todos os baús registrados
+    private final Object2IntOpenHashMap<Item> totals = new Object2IntOpenHashMap<>();
+    
+    // Baús que guardam cada item
+    private final Map<Item, Set<BlockPos>> holders = new HashMap<>();
+    
+    // Último conteúdo conhecido de cada baú registrado
+    private final Map<BlockPos, Object2IntOpenHashMap<Item>> chestContents = new HashMap<>();
+    
+    // Baús alterados desde a última reconciliação
+    private final Map<ChestBlockEntity, Boolean> pendingChests = new IdentityHashMap<>();
+    
+    /**
+     * Marca um baú registrado cujo inventário foi alterado
+     * Apenas marca o baú; a diferença é aplicada na próxima consulta
+     * @param chest O baú alterado
+     */
+    void markChanged(ChestBlockEntity chest) {
+        pendingChests.put(chest, Boolean.TRUE);
+    }
+    
+    /**
+     * Registra um baú de armazenamento da vila, se ainda não pertencer a outra vila
+     * Apenas baús que a vila possui (os dos armazéns que ela construiu) devem ser registrados
+     * @param chest O baú
+     */
+    public void registerChest(ChestBlockEntity chest) {
+        RegistryKey<World> chestDimension = chest.getWorld().getRegistryKey();
+        if (dimension != null && dimension != chestDimension) {
+            return; // O estoque de uma vila fica em um único mundo
+        }
+        
+        BlockPos pos = chest.getPos().toImmutable();
+        if (!getRegistry().claim(chestDimension, pos, this)) {
+            return; // Já registrado nesta ou em outra vila
+        }
+        
+        dimension = chestDimension;
+        chestContents.put(pos, new Object2IntOpenHashMap<>());
+        reconcileChest(chest);
+        VillagerExpansionMod.LOGGER.info("Baú em " + pos + " registrado no estoque da vila");
+    }
+    
+    /**
+     * Remove um baú do índice, descontando o seu conteúdo dos totais
+     * @param pos A posição do baú
+     */
+    public void unregisterChest(BlockPos pos) {
+        Object2IntOpenHashMap<Item> contents = chestContents.remove(pos);
+        if (contents == null) {
+            return;
+        }
+        
+        getRegistry().release(dimension, pos, this);
+        for (Object2IntMap.Entry<Item> entry : contents.object2IntEntrySet()) {
+            applyDelta(entry.getKey(), pos, -entry.getIntValue(), 0);
+        }
+    }
+    
+    /**
+     * Obtém a quantidade total de um item no estoque da vila
+     * @param item O item
+     * @return A quantidade somada de todos os baús registrados
+     */
+    public int getCount(Item item) {
+        reconcile();
+        return totals.getInt(item);
+    }
+    
+    /**
+     * Verifica se a vila tem pelo menos uma quantidade de um item em estoque
+     * @param item O item
+     * @param count A quantidade mínima
+     * @return true se o estoque é suficiente
+     */
+    public boolean hasItem(Item item, int count) {
+        return getCount(item) >= count;
+    }
+    
+    /**
+     * Obtém o número de baús registrados no estoque da vila
+     */
+    public int getChestCount() {
+        return chestContents.size();
+    }
+    
+    /**
+     * Obtém os baús que guardam um item
+     * @param item O item
+     * @return Conjunto imutável com as posições dos baús
+     */
+    public Set<BlockPos> getHolders(Item item) {
+        reconcile();
+        Set<BlockPos> positions = holders.get(item);
+        return positions != null ? Collections.unmodifiableSet(positions) : Collections.emptySet();
+    }
+    
+    /**
+     * Atende uma requisição de itens a partir dos baús mais próximos do villager que guardam o item
+     * @param villager O villager que requisita os itens
+     * @param world O mundo do servidor
+     * @param item O item requisitado
+     * @param count A quantidade desejada
+     * @return A quantidade transferida para o inventário do villager
+     */
+    public int requisition(VillagerEntity villager, ServerWorld world, Item item, int count) {
+        if (world.getRegistryKey() != dimension) {
+            return 0; // Os baús da vila estão em outro mundo
+        }
+        
+        reconcile();
+        Set<BlockPos> positions = holders.get(item);
+        if (positions == null || positions.isEmpty() || count <= 0) {
+            return 0;
+        }
+        
+        // Ordena os baús que guardam o item pela distância ao villager
+        BlockPos villagerPos = villager.getBlockPos();
+        List<BlockPos> sorted = new ArrayList<>(positions);
+        sorted.sort((a, b) -> Double.compare(a.getSquaredDistance(villagerPos), b.getSquaredDistance(villagerPos)));
+        
+        int found = 0;
+        for (BlockPos pos : sorted) {
+            if (found >= count) {
+                break;
+            }
+            
+            // Baús em chunks descarregados continuam registrados; o conteúdo é conferido quando o chunk carregar
+            if (world.getChunkManager().getWorldChunk(ChunkSectionPos.getSectionCoord(pos.getX()),
+                                                      ChunkSectionPos.getSectionCoord(pos.getZ())) == null) {
+                continue;
+            }
+            
+            if (world.getBlockEntity(pos) instanceof ChestBlockEntity chest) {
+                int moved = ChestTransferManager.withdraw(chest, item, count - found,
+                                                          VillagerInventorySystem.getInventory(villager));
+                if (moved > 0) {
+                    found += moved;
+                    pendingChests.put(chest, Boolean.TRUE);
+                    VillagerExpansionMod.LOGGER.info("Villager " + villager.getUuid() + " retirou " + moved + "x " +
+                                                  item.getName().getString() + " do estoque em " + pos);
+                }
+            } else {
+                // O chunk está carregado e o baú não existe mais
+                unregisterChest(pos);
+            }
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Grava os baús registrados em NBT
+     * O conteúdo não é gravado: ele é lido de novo dos baús quando os seus chunks carregam
+     */
+    public NbtCompound writeNbt() {
+        NbtCompound nbt = new NbtCompound();
+        if (dimension != null) {
+            nbt.putString("Dimension", dimension.getValue().toString());
+            long[] chests = new long[chestContents.size()];
+            int i = 0;
+            for (BlockPos pos : chestContents.keySet()) {
+                chests[i++] = pos.asLong();
+            }
+            nbt.putLongArray("Chests", chests);
+        }
+        return nbt;
+    }
+    
+    /**
+     * Restaura os baús gravados por writeNbt, com o conteúdo vazio até que os seus chunks carreguem
+     */
+    public void readNbt(NbtCompound nbt) {
+        String dimensionName = nbt.getString("Dimension", "");
+        Identifier dimensionId = Identifier.tryParse(dimensionName);
+        if (dimensionName.isEmpty() || dimensionId == null) {
+            return; // Nenhum baú registrado
+        }
+        
+        dimension = RegistryKey.of(RegistryKeys.WORLD, dimensionId);
+        for (long packed : nbt.getLongArray("Chests").orElse(new long[0])) {
+            BlockPos pos = BlockPos.fromLong(packed);
+            if (getRegistry().claim(dimension, pos, this)) {
+                chestContents.put(pos, new Object2IntOpenHashMap<>());
+            }
+        }
+    }
+    
+    private static StockChestRegistry getRegistry() {
+        return VillagerExpansionMod.getExpansionManager().getStockChests();
+    }
+    
+    /**
+     * Aplica as alterações pendentes dos baús marcados
+     */
+    private void reconcile() {
+        if (pendingChests.isEmpty()) {
+            return;
+        }
+        
+        List<ChestBlockEntity> changed = new ArrayList<>(pendingChests.keySet());
+        pendingChests.clear();
+        for (ChestBlockEntity chest : changed) {
+            if (chest.isRemoved()) {
+                unregisterChest(chest.getPos());
+            } else {
+                reconcileChest(chest);
+            }
+        }
+    }
+    
+    /**
+     * Compara o conteúdo atual de um baú com o último conhecido e aplica apenas a diferença
+     */
+    private void reconcileChest(ChestBlockEntity chest) {
+        BlockPos pos = chest.getPos();
+        Object2IntOpenHashMap<Item> previous = chestContents.get(pos);
+        if (previous == null) {
+            return;
+        }
+        
+        Object2IntOpenHashMap<Item> current = new Object2IntOpenHashMap<>();
+        for (int slot = 0; slot < chest.size(); slot++) {
+            ItemStack stack = chest.getStack(slot);
+            if (!stack.isEmpty()) {
+                current.addTo(stack.getItem(), stack.getCount());
+            }
+        }
+        
+        // Itens que mudaram ou surgiram
+        for (Object2IntMap.Entry<Item> entry : current.object2IntEntrySet()) {
+            int before = previous.getInt(entry.getKey());
+            if (before != entry.getIntValue()) {
+                applyDelta(entry.getKey(), pos, entry.getIntValue() - before, entry.getIntValue());
+            }
+        }
+        
+        // Itens que desapareceram
+        for (Object2IntMap.Entry<Item> entry : previous.object2IntEntrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                applyDelta(entry.getKey(), pos, -entry.getIntValue(), 0);
+            }
+        }
+        
+        chestContents.put(pos.toImmutable(), current);
+    }
+    
+    /**
+     * Aplica a variação de um item em um baú aos totais e ao conjunto de baús que o guardam
+     */
+    private void applyDelta(Item item, BlockPos pos, int delta, int countInChest) {
+        int total = totals.addTo(item, delta) + delta;
+        if (total <= 0) {
+            totals.removeInt(item);
+        }
+        
+        if (countInChest > 0) {
+            holders.computeIfAbsent(item, i -> new HashSet<>()).add(pos.toImmutable());
+        } else {
+            Set<BlockPos> positions = holders.get(item);
+            if (positions != null) {
+                positions.remove(pos);
+                if (positions.isEmpty()) {
+                    holders.remove(item);
+                }
+            }
+        }
+    }
+}
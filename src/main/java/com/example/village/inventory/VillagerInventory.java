@@ -0,0 +1,216 @@
+package com.example.village.inventory;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import java.util.Arrays;
+
+/**
+ * Inventário estendido de um villager
+ * Mantém um resumo com a quantidade total de cada item e uma dica do primeiro slot livre,
+ * atualizados a cada alteração, para que consultas de quantidade não precisem varrer os slots
+ */
+public class VillagerInventory extends SimpleInventory {
+    
+    // Quantidade total de cada item no inventário
+    private final Object2IntOpenHashMap<Item> itemCounts = new Object2IntOpenHashMap<>();
+    
+    // Último item e quantidade conhecidos de cada slot, usados para calcular as diferenças
+    private final Item[] slotItems;
+    private final int[] slotCounts;
+    
+    // Menor índice de slot vazio (igual ao tamanho se o inventário estiver cheio)
+    private int firstFreeSlot = 0;
+    
+    public VillagerInventory(int size) {
+        super(size);
+        this.slotItems = new Item[size];
+        this.slotCounts = new int[size];
+    }
+    
+    /**
+     * Obtém a quantidade total de um item no inventário
+     * @param item O item
+     * @return A quantidade somada de todos os slots
+     */
+    public int getCount(Item item) {
+        return itemCounts.getInt(item);
+    }
+    
+    /**
+     * Verifica se o inventário tem pelo menos uma quantidade de um item
+     * @param item O item
+     * @param count A quantidade mínima
+     * @return true se o inventário tem o item na quantidade especificada
+     */
+    public boolean contains(Item item, int count) {
+        return itemCounts.getInt(item) >= count;
+    }
+    
+    /**
+     * Obtém o primeiro slot vazio do inventário
+     * @return O índice do slot, ou -1 se o inventário estiver cheio
+     */
+    public int getFirstFreeSlot() {
+        return firstFreeSlot < size() ? firstFreeSlot : -1;
+    }
+    
+    /**
+     * Insere uma quantidade de um item, completando primeiro as pilhas existentes
+     * Só cria uma nova pilha quando precisa ocupar um slot vazio
+     * @param item O item
+     * @param count A quantidade a inserir
+     * @return A quantidade que não coube no inventário
+     */
+    public int insert(Item item, int count) {
+        int remaining = count;
+        
+        // Completa as pilhas existentes apenas se o item já estiver no inventário
+        if (itemCounts.getInt(item) > 0) {
+            for (int slot = 0; slot < size() && remaining > 0; slot++) {
+                ItemStack stack = getStack(slot);
+                if (slotItems[slot] == item && stack.isOf(item) && stack.getCount() < stack.getMaxCount()) {
+                    int move = Math.min(remaining, stack.getMaxCount() - stack.getCount());
+                    stack.increment(move);
+                    remaining -= move;
+                    syncSlot(slot);
+                }
+            }
+        }
+        
+        // Ocupa os slots vazios com o restante
+        int maxCount = item.getMaxCount();
+        while (remaining > 0 && firstFreeSlot < size()) {
+            int move = Math.min(remaining, maxCount);
+            setStack(firstFreeSlot, new ItemStack(item, move));
+            remaining -= move;
+        }
+        
+        if (remaining != count) {
+            markDirty();
+        }
+        return remaining;
+    }
+    
+    /**
+     * Remove uma quantidade de um item do inventário
+     * @param item O item
+     * @param count A quantidade a remover
+     * @return A quantidade realmente removida
+     */
+    public int remove(Item item, int count) {
+        int remaining = Math.min(count, itemCounts.getInt(item));
+        int removed = remaining;
+        
+        for (int slot = 0; slot < size() && remaining > 0; slot++) {
+            if (slotItems[slot] == item) {
+                int take = Math.min(remaining, slotCounts[slot]);
+                removeStack(slot, take);
+                remaining -= take;
+            }
+        }
+        
+        return removed - remaining;
+    }
+    
+    @Override
+    public void setStack(int slot, ItemStack stack) {
+        super.setStack(slot, stack);
+        syncSlot(slot);
+    }
+    
+    @Override
+    public ItemStack removeStack(int slot, int amount) {
+        ItemStack removed = super.removeStack(slot, amount);
+        syncSlot(slot);
+        return removed;
+    }
+    
+    @Override
+    public ItemStack removeStack(int slot) {
+        ItemStack removed = super.removeStack(slot);
+        syncSlot(slot);
+        return removed;
+    }
+    
+    @Override
+    public ItemStack addStack(ItemStack stack) {
+        // addStack pode alterar várias pilhas existentes diretamente, então ressincroniza todos os slots
+        ItemStack rest = super.addStack(stack);
+        syncAll();
+        return rest;
+    }
+    
+    @Override
+    public ItemStack removeItem(Item item, int count) {
+        ItemStack removed = super.removeItem(item, count);
+        syncAll();
+        return removed;
+    }
+    
+    @Override
+    public void clear() {
+        super.clear();
+        itemCounts.clear();
+        Arrays.fill(slotItems, null);
+        Arrays.fill(slotCounts, 0);
+        firstFreeSlot = 0;
+    }
+    
+    /**
+     * Ressincroniza o resumo com todos os slots
+     * Usado após operações que alteram pilhas sem passar pelos métodos de slot
+     */
+    public void syncAll() {
+        for (int slot = 0; slot < size(); slot++) {
+            syncSlot(slot);
+        }
+    }
+    
+    /**
+     * Aplica ao resumo a diferença entre o conteúdo atual de um slot e o último conhecido
+     */
+    private void syncSlot(int slot) {
+        ItemStack stack = getStack(slot);
+        Item item = stack.isEmpty() ? null : stack.getItem();
+        int count = stack.isEmpty() ? 0 : stack.getCount();
+        Item previousItem = slotItems[slot];
+        int previousCount = slotCounts[slot];
+        
+        if (item == previousItem && count == previousCount) {
+            return;
+        }
+        
+        if (previousItem != null) {
+            adjustCount(previousItem, -previousCount);
+        }
+        if (item != null) {
+            adjustCount(item, count);
+        }
+        slotItems[slot] = item;
+        slotCounts[slot] = count;
+        
+        // Atualiza a dica do primeiro slot livre
+        if (item == null) {
+            if (slot < firstFreeSlot) {
+                firstFreeSlot = slot;
+            }
+        } else if (slot == firstFreeSlot) {
+            do {
+                firstFreeSlot++;
+            } while (firstFreeSlot < size() && slotItems[firstFreeSlot] != null);
+        }
+    }
+    
+    /**
+     * Soma uma variação à quantidade total de um item
+     */
+    private void adjustCount(Item item, int delta) {
+        int total = itemCounts.addTo(item, delta) + delta;
+        if (total <= 0) {
+            itemCounts.removeInt(item);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.village.inventory;
 
 import com.example.VillagerExpansionMod;
+import com.example.village.VillageData;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.ChestBlockEntity;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.inventory.SimpleInventory;
@@ -11,10 +14,6 @@ import net.minecraft.item.Items;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
-
 /**
  * Sistema de inventário para villagers
  * Permite que os villagers tenham um inventário similar ao dos jogadores,
@@ -22,28 +21,17 @@ import java.util.UUID;
  */
 public class VillagerInventorySystem {
     
-    // Mapa que associa o UUID do villager ao seu inventário
-    private static final Map<UUID, SimpleInventory> villagerInventories = new HashMap<>();
-    
     // Tamanho do inventário do villager (menor que o do jogador)
-    private static final int INVENTORY_SIZE = 15;
+    public static final int INVENTORY_SIZE = 15;
     
     /**
-     * Obtém o inventário de um villager, criando-o se não existir
+     * Obtém o inventário de um villager
+     * O inventário é um campo da própria entidade, salvo no NBT dela
      * @param villager O villager
      * @return O inventário do villager
      */
-    public static SimpleInventory getInventory(VillagerEntity villager) {
-        UUID villagerId = villager.getUuid();
-        
-        // Cria um novo inventário se não existir
-        if (!villagerInventories.containsKey(villagerId)) {
-            SimpleInventory inventory = new SimpleInventory(INVENTORY_SIZE);
-            villagerInventories.put(villagerId, inventory);
-            return inventory;
-        }
-        
-        return villagerInventories.get(villagerId);
+    public static VillagerInventory getInventory(VillagerEntity villager) {
+        return ((ExtendedInventoryHolder) villager).villagerExpansion$getExtendedInventory();
     }
     
     /**
@@ -54,37 +42,8 @@ public class VillagerInventorySystem {
      * @return true se o item foi adicionado com sucesso, false caso contrário
      */
     public static boolean addItemToInventory(VillagerEntity villager, Item item, int count) {
-        SimpleInventory inventory = getInventory(villager);
-        ItemStack stack = new ItemStack(item, count);
-        
-        // Tenta adicionar o item ao inventário
-        for (int i = 0; i < inventory.size(); i++) {
-            ItemStack slotStack = inventory.getStack(i);
-            
-            if (slotStack.isEmpty()) {
-                // Slot vazio, adiciona o item
-                inventory.setStack(i, stack);
-                return true;
-            } else if (slotStack.getItem() == item && slotStack.getCount() < slotStack.getMaxCount()) {
-                // Mesmo item, tenta empilhar
-                int spaceLeft = slotStack.getMaxCount() - slotStack.getCount();
-                if (count <= spaceLeft) {
-                    // Há espaço suficiente para todo o stack
-                    slotStack.increment(count);
-                    inventory.setStack(i, slotStack);
-                    return true;
-                } else {
-                    // Adiciona o que couber e continua procurando slots para o restante
-                    slotStack.increment(spaceLeft);
-                    inventory.setStack(i, slotStack);
-                    count -= spaceLeft;
-                    stack = new ItemStack(item, count);
-                }
-            }
-        }
-        
-        // Se chegou aqui e ainda tem itens para adicionar, o inventário está cheio
-        return count <= 0;
+        // Completa as pilhas existentes e só cria pilhas novas para slots vazios
+        return getInventory(villager).insert(item, count) == 0;
     }
     
     /**
@@ -95,20 +54,17 @@ public class VillagerInventorySystem {
      * @return true se o villager tem o item na quantidade especificada, false caso contrário
      */
     public static boolean hasItem(VillagerEntity villager, Item item, int count) {
-        SimpleInventory inventory = getInventory(villager);
-        int totalCount = 0;
-        
-        for (int i = 0; i < inventory.size(); i++) {
-            ItemStack stack = inventory.getStack(i);
-            if (stack.getItem() == item) {
-                totalCount += stack.getCount();
-                if (totalCount >= count) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
+        return getInventory(villager).contains(item, count);
+    }
+    
+    /**
+     * Conta a quantidade de um item no inventário do villager
+     * @param villager O villager
+     * @param item O item a ser contado
+     * @return A quantidade total do item no inventário
+     */
+    public static int countItem(VillagerEntity villager, Item item) {
+        return getInventory(villager).getCount(item);
     }
     
     /**
@@ -119,29 +75,32 @@ public class VillagerInventorySystem {
      * @return true se os itens foram removidos com sucesso, false caso contrário
      */
     public static boolean removeItem(VillagerEntity villager, Item item, int count) {
-        if (!hasItem(villager, item, count)) {
+        VillagerInventory inventory = getInventory(villager);
+        if (!inventory.contains(item, count)) {
             return false;
         }
         
-        SimpleInventory inventory = getInventory(villager);
-        int remainingToRemove = count;
+        return inventory.remove(item, count) == count;
+    }
+    
+    /**
+     * Retira do inventário do villager uma unidade de um item, com os dados da própria pilha (durabilidade, encantamentos)
+     * @param villager O villager
+     * @param item O item a ser retirado
+     * @return A pilha retirada, ou uma pilha vazia se o villager não tiver o item
+     */
+    public static ItemStack takeStack(VillagerEntity villager, Item item) {
+        VillagerInventory inventory = getInventory(villager);
+        if (!inventory.contains(item, 1)) {
+            return ItemStack.EMPTY;
+        }
         
-        for (int i = 0; i < inventory.size() && remainingToRemove > 0; i++) {
-            ItemStack stack = inventory.getStack(i);
-            if (stack.getItem() == item) {
-                if (stack.getCount() <= remainingToRemove) {
-                    // Remove o stack inteiro
-                    remainingToRemove -= stack.getCount();
-                    inventory.setStack(i, ItemStack.EMPTY);
-                } else {
-                    // Remove apenas parte do stack
-                    stack.decrement(remainingToRemove);
-                    remainingToRemove = 0;
-                }
+        for (int slot = 0; slot < inventory.size(); slot++) {
+            if (inventory.getStack(slot).isOf(item)) {
+                return inventory.removeStack(slot, 1);
             }
         }
-        
-        return remainingToRemove == 0;
+        return ItemStack.EMPTY;
     }
     
     /**
@@ -182,83 +141,111 @@ public class VillagerInventorySystem {
     
     /**
      * Armazena itens do inventário do villager em um baú próximo
+     * O depósito é enfileirado e aplicado no fim do tick junto com os de outros villagers no mesmo baú
      * @param villager O villager
      * @param world O mundo do servidor
-     * @return true se os itens foram armazenados com sucesso, false caso contrário
+     * @return true se os itens foram enfileirados para um baú, false caso contrário
      */
     public static boolean storeItemsInChest(VillagerEntity villager, ServerWorld world) {
         SimpleInventory inventory = getInventory(villager);
         
-        // Verifica se o inventário está vazio
-        boolean hasItems = false;
-        for (int i = 0; i < inventory.size(); i++) {
-            if (!inventory.getStack(i).isEmpty()) {
-                hasItems = true;
-                break;
-            }
+        if (inventory.isEmpty()) {
+            return false; // Inventário vazio, não há nada para armazenar
         }
         
-        if (!hasItems) {
-            return false; // Inventário vazio, não há nada para armazenar
+        ChestBlockEntity chest = findNearbyChest(villager, world);
+        if (chest == null) {
+            return false; // Não encontrou baús próximos
         }
         
-        // Procura por baús próximos
+        return storeItemsInChest(villager, chest);
+    }
+    
+    /**
+     * Armazena itens do inventário do villager em um baú já escolhido
+     * @param villager O villager
+     * @param chest O baú de destino
+     * @return true se havia itens e eles foram enfileirados para o baú, false caso contrário
+     */
+    public static boolean storeItemsInChest(VillagerEntity villager, ChestBlockEntity chest) {
+        SimpleInventory inventory = getInventory(villager);
+        if (inventory.isEmpty()) {
+            return false;
+        }
+        
+        ChestTransferManager.queueDeposit(chest, inventory);
+        return true;
+    }
+    
+    /**
+     * Procura por um item específico em baús próximos e o adiciona ao inventário do villager
+     * @param villager O villager
+     * @param world O mundo do servidor
+     * @param targetItem O item que o villager está procurando
+     * @return true se o item foi encontrado e adicionado ao inventário, false caso contrário
+     */
+    public static boolean findItemInChests(VillagerEntity villager, ServerWorld world, Item targetItem) {
+        return findItemInChests(villager, world, targetItem, 1) > 0;
+    }
+    
+    /**
+     * Procura por uma quantidade de um item em baús próximos e a transfere para o inventário do villager
+     * @param villager O villager
+     * @param world O mundo do servidor
+     * @param targetItem O item que o villager está procurando
+     * @param count A quantidade desejada
+     * @return A quantidade transferida para o inventário do villager
+     */
+    public static int findItemInChests(VillagerEntity villager, ServerWorld world, Item targetItem, int count) {
+        // Se a vila tem estoque registrado, atende só a partir dele, começando pelos baús mais próximos
+        VillageData village = VillagerExpansionMod.getExpansionManager().findVillageOf(villager.getUuid());
+        if (village != null && village.getStockIndex().getChestCount() > 0) {
+            return village.getStockIndex().requisition(villager, world, targetItem, count);
+        }
+        
+        // Sem vila ou sem baús registrados: procura em baús próximos que não pertencem ao estoque de nenhuma vila
+        int found = 0;
+        StockChestRegistry stockChests = VillagerExpansionMod.getExpansionManager().getStockChests();
+        SimpleInventory inventory = getInventory(villager);
         BlockPos villagerPos = villager.getBlockPos();
         int searchRadius = 16;
         
-        for (int x = -searchRadius; x <= searchRadius; x++) {
-            for (int y = -3; y <= 3; y++) {
-                for (int z = -searchRadius; z <= searchRadius; z++) {
+        for (int x = -searchRadius; x <= searchRadius && found < count; x++) {
+            for (int y = -3; y <= 3 && found < count; y++) {
+                for (int z = -searchRadius; z <= searchRadius && found < count; z++) {
                     BlockPos pos = villagerPos.add(x, y, z);
                     
                     // Verifica se o bloco é um baú
-                    if (world.getBlockState(pos).getBlock().equals(net.minecraft.block.Blocks.CHEST)) {
-                        // Simula o armazenamento de itens (em uma implementação completa, usaríamos o inventário do baú)
-                        StringBuilder storedItems = new StringBuilder();
-                        
-                        // Lista os itens armazenados
-                        for (int i = 0; i < inventory.size(); i++) {
-                            ItemStack stack = inventory.getStack(i);
-                            if (!stack.isEmpty()) {
-                                storedItems.append(stack.getCount())
-                                          .append("x ")
-                                          .append(stack.getItem().getName().getString())
-                                          .append(", ");
-                            }
-                        }
-                        
-                        if (storedItems.length() > 0) {
-                            storedItems.setLength(storedItems.length() - 2); // Remove a última vírgula e espaço
+                    if (world.getBlockState(pos).isOf(Blocks.CHEST) && 
+                        world.getBlockEntity(pos) instanceof ChestBlockEntity chest && 
+                        stockChests.getOwner(world, pos) == null) {
+                        int moved = ChestTransferManager.withdraw(chest, targetItem, count - found, inventory);
+                        if (moved > 0) {
+                            found += moved;
                             VillagerExpansionMod.LOGGER.info("Villager " + villager.getUuid() + 
-                                                          " armazenou itens em um baú em " + pos + ": " + 
-                                                          storedItems);
-                            
-                            // Limpa o inventário do villager
-                            for (int i = 0; i < inventory.size(); i++) {
-                                inventory.setStack(i, ItemStack.EMPTY);
-                            }
-                            
-                            return true;
+                                                          " retirou " + moved + "x " + 
+                                                          targetItem.getName().getString() + 
+                                                          " de um baú em " + pos);
                         }
                     }
                 }
             }
         }
         
-        return false; // Não encontrou baús próximos
+        return found;
     }
     
     /**
-     * Procura por itens específicos em baús próximos e os adiciona ao inventário do villager
+     * Encontra o baú mais próximo do villager em um raio de busca
      * @param villager O villager
      * @param world O mundo do servidor
-     * @param targetItem O item que o villager está procurando
-     * @return true se o item foi encontrado e adicionado ao inventário, false caso contrário
+     * @return A block entity do baú, ou null se não houver baús próximos
      */
-    public static boolean findItemInChests(VillagerEntity villager, ServerWorld world, Item targetItem) {
-        // Procura por baús próximos
+    public static ChestBlockEntity findNearbyChest(VillagerEntity villager, ServerWorld world) {
         BlockPos villagerPos = villager.getBlockPos();
         int searchRadius = 16;
+        ChestBlockEntity closest = null;
+        double closestDistance = Double.MAX_VALUE;
         
         for (int x = -searchRadius; x <= searchRadius; x++) {
             for (int y = -3; y <= 3; y++) {
@@ -266,26 +253,18 @@ public class VillagerInventorySystem {
                     BlockPos pos = villagerPos.add(x, y, z);
                     
                     // Verifica se o bloco é um baú
-                    if (world.getBlockState(pos).getBlock().equals(net.minecraft.block.Blocks.CHEST)) {
-                        // Simula a busca pelo item no baú (em uma implementação completa, verificaríamos o inventário do baú)
-                        // Chance de encontrar o item (simulação)
-                        if (world.getRandom().nextFloat() < 0.4f) {
-                            // Encontrou o item, adiciona ao inventário do villager
-                            int count = 1 + world.getRandom().nextInt(3); // 1-3 itens
-                            addItemToInventory(villager, targetItem, count);
-                            
-                            VillagerExpansionMod.LOGGER.info("Villager " + villager.getUuid() + 
-                                                          " encontrou " + count + "x " + 
-                                                          targetItem.getName().getString() + 
-                                                          " em um baú em " + pos);
-                            
-                            return true;
+                    if (world.getBlockState(pos).isOf(Blocks.CHEST) && 
+                        world.getBlockEntity(pos) instanceof ChestBlockEntity chest) {
+                        double distance = pos.getSquaredDistance(villagerPos);
+                        if (distance < closestDistance) {
+                            closest = chest;
+                            closestDistance = distance;
                         }
                     }
                 }
             }
         }
         
-        return false; // Não encontrou o item em nenhum baú próximo
+        return closest;
     }
-}
\ No newline at end of file
+}
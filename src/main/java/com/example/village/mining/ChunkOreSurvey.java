@@ -0,0 +1,106 @@
+package com.example.village.mining;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.world.chunk.PalettedContainer;
+
+/**
+ * Levantamento de minérios de um chunk
+ * Guarda a quantidade de minério por categoria e faixa de altura e o volume de ar subterrâneo (cavernas)
+ */
+public class ChunkOreSurvey {
+    
+    // Altura de cada faixa em blocos e número de faixas (cobre 384 blocos de altura)
+    public static final int BAND_HEIGHT = 32;
+    public static final int BAND_COUNT = 12;
+    
+    private static final OreCategory[] CATEGORIES = OreCategory.values();
+    
+    // Quantidade de minério por [categoria * BAND_COUNT + faixa]
+    private final short[] counts = new short[CATEGORIES.length * BAND_COUNT];
+    
+    // Altura abaixo da qual o ar é considerado caverna
+    private final int caveCutoffY;
+    private int caveAir = 0;
+    
+    public ChunkOreSurvey(int caveCutoffY) {
+        this.caveCutoffY = caveCutoffY;
+    }
+    
+    /**
+     * Calcula o levantamento a partir de cópias das seções do chunk
+     * Pode ser executado fora da thread do servidor, pois só lê as cópias
+     * @param sections Cópias dos containers de blocos das seções, da mais baixa para a mais alta
+     * @param bottomY A altura mínima do mundo
+     * @param caveCutoffY A altura abaixo da qual o ar conta como caverna
+     * @return O levantamento do chunk
+     */
+    public static ChunkOreSurvey compute(PalettedContainer<BlockState>[] sections, int bottomY, int caveCutoffY) {
+        ChunkOreSurvey survey = new ChunkOreSurvey(caveCutoffY);
+        
+        for (int sectionIndex = 0; sectionIndex < sections.length; sectionIndex++) {
+            PalettedContainer<BlockState> section = sections[sectionIndex];
+            int sectionBottomY = bottomY + (sectionIndex << 4);
+            boolean hasOre = section.hasAny(OreLookup::isOre);
+            boolean belowCutoff = sectionBottomY < caveCutoffY;
+            if (!hasOre && !belowCutoff) {
+                continue; // Nada a contar nesta seção
+            }
+            
+            for (int y = 0; y < 16; y++) {
+                int worldY = sectionBottomY + y;
+                int band = getBand(worldY, bottomY);
+                for (int x = 0; x < 16; x++) {
+                    for (int z = 0; z < 16; z++) {
+                        BlockState state = section.get(x, y, z);
+                        if (hasOre) {
+                            OreCategory category = OreLookup.getCategory(state);
+                            if (category != null) {
+                                survey.adjustCount(category, band, 1);
+                                continue;
+                            }
+                        }
+                        if (worldY < caveCutoffY && state.isAir()) {
+                            survey.caveAir++;
+                        }
+                    }
+                }
+            }
+        }
+        
+        return survey;
+    }
+    
+    /**
+     * Obtém a faixa de altura de uma coordenada Y
+     */
+    public static int getBand(int y, int bottomY) {
+        return Math.max(0, Math.min(BAND_COUNT - 1, (y - bottomY) / BAND_HEIGHT));
+    }
+    
+    /**
+     * Soma uma variação à contagem de uma categoria em uma faixa
+     */
+    public void adjustCount(OreCategory category, int band, int delta) {
+        int index = category.ordinal() * BAND_COUNT + band;
+        counts[index] = (short) Math.max(0, Math.min(Short.MAX_VALUE, counts[index] + delta));
+    }
+    
+    /**
+     * Obtém a quantidade de uma categoria em uma faixa
+     */
+    public int getCount(OreCategory category, int band) {
+        return counts[category.ordinal() * BAND_COUNT + band];
+    }
+    
+    public int getCaveCutoffY() {
+        return caveCutoffY;
+    }
+    
+    public int getCaveAir() {
+        return caveAir;
+    }
+    
+    public void setCaveAir(int caveAir) {
+        this.caveAir = caveAir;
+    }
+}
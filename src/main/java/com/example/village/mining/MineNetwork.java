@@ -0,0 +1,279 @@
+package com.example.village.mining;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Grafo dos túneis escavados por uma vila
+ * Os nós são as junções (entradas, fim de escadas, cruzamentos com galerias e pontas de túneis)
+ * e as arestas guardam as posições do piso entre duas junções
+ * As pontas sem saída formam a fronteira a partir da qual novas tarefas estendem a mina
+ */
+public class MineNetwork {
+    
+    // Posição de cada nó (índice do nó -> posição compactada) e o índice inverso
+    private final LongArrayList nodes = new LongArrayList();
+    private final Long2IntOpenHashMap nodeIndex = new Long2IntOpenHashMap();
+    
+    // Número de arestas de cada nó e se o nó é uma entrada na superfície
+    private final IntArrayList degrees = new IntArrayList();
+    private final IntOpenHashSet entrances = new IntOpenHashSet();
+    
+    private final List<Edge> edges = new ArrayList<>();
+    
+    // Pontas sem saída que ainda podem ser estendidas, em ordem de criação
+    private final IntLinkedOpenHashSet frontier = new IntLinkedOpenHashSet();
+    
+    // Todas as posições de piso já escavadas, para não planejar túneis sobre a rede existente
+    private final LongOpenHashSet dug = new LongOpenHashSet();
+    
+    public MineNetwork() {
+        nodeIndex.defaultReturnValue(-1);
+    }
+    
+    /**
+     * Incorpora à rede os trechos de um túnel concluído que ficaram abertos e ligados à origem
+     * Um trecho com algum bloco obstruído, e os trechos que partem dele, ficam de fora
+     * @param plan O plano do túnel
+     * @param fromSurface Se o túnel começou na superfície (a origem vira uma entrada, fora da fronteira)
+     * @param blocked Os índices dos blocos do plano que não foram quebrados e obstruem o túnel
+     * @return true se algum trecho foi incorporado
+     */
+    public boolean addPlan(TunnelPlan plan, boolean fromSurface, BitSet blocked) {
+        List<TunnelPlan.Segment> segments = plan.getSegments();
+        if (segments.isEmpty()) {
+            return false;
+        }
+        
+        // Junções alcançáveis a partir da origem pelos trechos abertos (os trechos estão na ordem de escavação)
+        LongOpenHashSet reachable = new LongOpenHashSet();
+        reachable.add(segments.get(0).getFrom());
+        boolean added = false;
+        
+        for (TunnelPlan.Segment segment : segments) {
+            if (!reachable.contains(segment.getFrom())) {
+                continue;
+            }
+            int firstBlocked = blocked.nextSetBit(segment.getStartIndex());
+            if (firstBlocked >= 0 && firstBlocked < segment.getEndIndex()) {
+                continue;
+            }
+            
+            addEdge(getOrAddNode(segment.getFrom()), getOrAddNode(segment.getTo()), segment.getPath());
+            reachable.add(segment.getTo());
+            added = true;
+        }
+        
+        if (fromSurface && added) {
+            int origin = getOrAddNode(segments.get(0).getFrom());
+            if (entrances.add(origin)) {
+                frontier.remove(origin);
+            }
+        }
+        return added;
+    }
+    
+    /**
+     * Verifica se a rede não tem nenhum túnel
+     */
+    public boolean isEmpty() {
+        return edges.isEmpty();
+    }
+    
+    /**
+     * Verifica se uma posição de piso já pertence à rede
+     */
+    public boolean isDug(BlockPos pos) {
+        return dug.contains(pos.asLong()) || nodeIndex.containsKey(pos.asLong());
+    }
+    
+    /**
+     * Encontra a ponta da fronteira mais próxima de um alvo, dentro de uma distância máxima do centro da vila
+     * @param target O alvo (posição com minério segundo o levantamento), ou null para a ponta mais recente
+     * @param center O centro da vila
+     * @param maxDistance A distância horizontal máxima entre a ponta e o centro
+     * @param reserved Pontas já usadas por tarefas em andamento (posições compactadas)
+     * @return A posição da ponta, ou null se a fronteira não tem pontas elegíveis
+     */
+    public BlockPos findFrontierNode(BlockPos target, BlockPos center, int maxDistance, LongSet reserved) {
+        long maxDistanceSq = (long) maxDistance * maxDistance;
+        long best = 0;
+        long bestDistance = Long.MAX_VALUE;
+        boolean found = false;
+        
+        for (int node : frontier) {
+            long packed = nodes.getLong(node);
+            if (reserved.contains(packed)) {
+                continue;
+            }
+            
+            long dx = BlockPos.unpackLongX(packed) - center.getX();
+            long dz = BlockPos.unpackLongZ(packed) - center.getZ();
+            if (dx * dx + dz * dz > maxDistanceSq) {
+                continue;
+            }
+            
+            long distance = 0;
+            if (target != null) {
+                long tx = BlockPos.unpackLongX(packed) - target.getX();
+                long ty = BlockPos.unpackLongY(packed) - target.getY();
+                long tz = BlockPos.unpackLongZ(packed) - target.getZ();
+                distance = tx * tx + ty * ty + tz * tz;
+            }
+            
+            // Sem alvo, a última ponta elegível (a mais recente) vence
+            if (distance < bestDistance || (target == null && found)) {
+                best = packed;
+                bestDistance = distance;
+                found = true;
+            }
+        }
+        
+        return found ? BlockPos.fromLong(best) : null;
+    }
+    
+    /**
+     * Retira uma ponta da fronteira (por exemplo, quando não há direção livre para estendê-la)
+     */
+    public void closeFrontierNode(BlockPos pos) {
+        int node = nodeIndex.get(pos.asLong());
+        if (node >= 0) {
+            frontier.remove(node);
+        }
+    }
+    
+    public int getNodeCount() {
+        return nodes.size();
+    }
+    
+    public int getEdgeCount() {
+        return edges.size();
+    }
+    
+    public int getFrontierSize() {
+        return frontier.size();
+    }
+    
+    /**
+     * Grava a rede em NBT
+     */
+    public NbtCompound writeNbt() {
+        NbtCompound nbt = new NbtCompound();
+        nbt.putLongArray("Nodes", nodes.toLongArray());
+        nbt.putIntArray("Entrances", entrances.toIntArray());
+        nbt.putIntArray("Closed", closedNodes());
+        
+        NbtList edgeList = new NbtList();
+        for (Edge edge : edges) {
+            NbtCompound edgeNbt = new NbtCompound();
+            edgeNbt.putInt("From", edge.from);
+            edgeNbt.putInt("To", edge.to);
+            edgeNbt.putLongArray("Path", edge.path);
+            edgeList.add(edgeNbt);
+        }
+        nbt.put("Edges", edgeList);
+        return nbt;
+    }
+    
+    /**
+     * Reconstrói a rede a partir do NBT gravado por writeNbt
+     */
+    public static MineNetwork fromNbt(NbtCompound nbt) {
+        MineNetwork network = new MineNetwork();
+        for (long packed : nbt.getLongArray("Nodes").orElse(new long[0])) {
+            network.getOrAddNode(packed);
+        }
+        for (int entrance : nbt.getIntArray("Entrances").orElse(new int[0])) {
+            network.entrances.add(entrance);
+        }
+        
+        NbtList edgeList = nbt.getListOrEmpty("Edges");
+        for (int i = 0; i < edgeList.size(); i++) {
+            NbtCompound edgeNbt = edgeList.getCompoundOrEmpty(i);
+            int from = edgeNbt.getInt("From", -1);
+            int to = edgeNbt.getInt("To", -1);
+            if (from < 0 || to < 0 || from >= network.nodes.size() || to >= network.nodes.size()) {
+                continue;
+            }
+            network.addEdge(from, to, edgeNbt.getLongArray("Path").orElse(new long[0]));
+        }
+        
+        for (int closed : nbt.getIntArray("Closed").orElse(new int[0])) {
+            network.frontier.remove(closed);
+        }
+        return network;
+    }
+    
+    /**
+     * Obtém as pontas sem saída que foram retiradas da fronteira
+     */
+    private int[] closedNodes() {
+        IntArrayList closed = new IntArrayList();
+        for (int node = 0; node < nodes.size(); node++) {
+            if (degrees.getInt(node) == 1 && !entrances.contains(node) && !frontier.contains(node)) {
+                closed.add(node);
+            }
+        }
+        return closed.toIntArray();
+    }
+    
+    private int getOrAddNode(long packed) {
+        int node = nodeIndex.get(packed);
+        if (node < 0) {
+            node = nodes.size();
+            nodes.add(packed);
+            degrees.add(0);
+            nodeIndex.put(packed, node);
+        }
+        return node;
+    }
+    
+    /**
+     * Adiciona uma aresta e atualiza o grau dos nós e a fronteira
+     */
+    private void addEdge(int from, int to, long[] path) {
+        edges.add(new Edge(from, to, path));
+        for (long packed : path) {
+            dug.add(packed);
+        }
+        updateDegree(from);
+        updateDegree(to);
+    }
+    
+    private void updateDegree(int node) {
+        int degree = degrees.getInt(node) + 1;
+        degrees.set(node, degree);
+        if (degree == 1 && !entrances.contains(node)) {
+            frontier.add(node);
+        } else {
+            frontier.remove(node);
+        }
+    }
+    
+    /**
+     * Aresta entre duas junções com as posições do piso do trecho
+     */
+    private static final class Edge {
+        private final int from;
+        private final int to;
+        private final long[] path;
+        
+        private Edge(int from, int to, long[] path) {
+            this.from = from;
+            this.to = to;
+            this.path = path;
+        }
+    }
+}
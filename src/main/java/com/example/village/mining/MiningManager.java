@@ -1,16 +1,25 @@
 package com.example.village.mining;
 
 import com.example.VillagerExpansionMod;
+import com.example.village.BuildingData;
 import com.example.village.VillageData;
-import net.minecraft.block.Block;
-import net.minecraft.block.Blocks;
+import com.example.village.VillageTaskIndex;
+import com.example.village.exploration.DiscoverySummary;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
 import net.minecraft.world.Heightmap;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.poi.PointOfInterestStorage;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.UUID;
 
 /**
@@ -19,7 +28,33 @@ import java.util.UUID;
  */
 public class MiningManager {
     private final Map<UUID, MiningTask> activeMiningTasks = new HashMap<>();
-    private final Random random = new Random();
+    private final VillageTaskIndex<MiningTask> tasksByVillage = new VillageTaskIndex<>();
+    
+    // Levantamento de minérios por chunk ao redor das vilas
+    private final OreSurveyCache oreSurvey = new OreSurveyCache();
+    
+    // Motor que escava os túneis das tarefas ativas
+    private final TunnelMiningEngine tunnelEngine = new TunnelMiningEngine();
+    private final List<MiningTask> tickTasks = new ArrayList<>();
+    
+    private static final Direction[] HORIZONTAL_DIRECTIONS = {
+            Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST
+    };
+    
+    // Distância horizontal máxima entre o centro da vila e uma ponta da rede de minas a ser estendida
+    private static final int MINE_NETWORK_RADIUS = 96;
+    
+    // Distância máxima entre o centro da vila e uma entrada de caverna descoberta usada como mina
+    private static final int CAVE_ENTRANCE_RADIUS = 256;
+    
+    // Profundidade máxima da escada em relação à entrada do túnel
+    private static final int MAX_TUNNEL_DEPTH = 64;
+    
+    // Distância mínima entre uma entrada de túnel na superfície e as construções ou POIs da vila
+    private static final int ENTRANCE_CLEARANCE = 12;
+    
+    // Volume de ar no chunk a partir do qual o fim do túnel é registrado como caverna profunda
+    private static final int DEEP_CAVE_AIR = 512;
     
     // Contador para limitar a frequência de mineração
     private int miningTickCounter = 0;
@@ -29,9 +64,17 @@ public class MiningManager {
      * Processa as tarefas de mineração
      */
     public void processMiningTasks(ServerWorld world) {
+        // Escava os túneis em andamento a cada tick, dentro do orçamento global de blocos
+        processActiveTasks(world);
+        
+        // As vilas não guardam a dimensão e só são carregadas no Overworld (ver VillageStorage),
+        // então novas minerações só começam lá; caso contrário outros mundos escavariam nas coordenadas das vilas
+        if (world.getRegistryKey() != World.OVERWORLD) {
+            return;
+        }
         miningTickCounter++;
         
-        // Limita a frequência de mineração para não sobrecarregar o servidor
+        // Limita a frequência de busca por novas minerações para não sobrecarregar o servidor
         if (miningTickCounter % MINING_TICK_INTERVAL != 0) {
             return;
         }
@@ -40,9 +83,6 @@ public class MiningManager {
         for (VillageData village : VillagerExpansionMod.getExpansionManager().getVillages()) {
             checkVillageMining(village, world);
         }
-        
-        // Processa tarefas de mineração em andamento
-        processActiveTasks(world);
     }
     
     /**
@@ -54,9 +94,7 @@ public class MiningManager {
         int availableMiners = Math.max(1, village.getPopulation() / 6); // ~16% dos villagers
         
         // Conta quantos mineradores já estão ativos para esta vila
-        long activeMiners = activeMiningTasks.values().stream()
-                .filter(task -> task.getVillageId().equals(village.getVillageId()))
-                .count();
+        int activeMiners = tasksByVillage.count(village.getVillageId());
         
         // Se já temos mineradores suficientes, não inicia novas minerações
         if (activeMiners >= availableMiners) {
@@ -65,29 +103,119 @@ public class MiningManager {
         
         // Chance de iniciar uma nova mineração
         if (world.getRandom().nextFloat() < 0.25f) { // 25% de chance
+            // Primeiro tenta estender a rede de minas já escavada pela vila
+            if (tryExtendMineNetwork(village, world)) {
+                return;
+            }
+            
             // Procura por locais de mineração conhecidos (cavernas descobertas)
             BlockPos miningLocation = findMiningLocation(village, world);
             if (miningLocation != null) {
-                // Inicia uma nova tarefa de mineração
-                startMiningTask(village, world, miningLocation);
+                // Inicia uma nova tarefa de mineração a partir da superfície
+                Direction direction = Direction.Type.HORIZONTAL.random(world.getRandom());
+                startMiningTask(village, world, miningLocation, direction, chooseTargetY(world, miningLocation), false);
             }
         }
     }
     
     /**
-     * Encontra um local para mineração
+     * Estende a rede de minas da vila a partir da ponta mais próxima do minério indicado pelo levantamento
+     * @return true se uma tarefa de extensão foi iniciada
      */
-    private BlockPos findMiningLocation(VillageData village, ServerWorld world) {
-        // Primeiro, verifica se a vila já descobriu alguma caverna
-        for (UUID locationId : village.getDiscoveredLocations()) {
-            if ("cave_entrance".equals(village.getDiscoveredLocationType(locationId))) {
-                return village.getDiscoveredLocationPosition(locationId);
+    private boolean tryExtendMineNetwork(VillageData village, ServerWorld world) {
+        MineNetwork network = village.getMineNetwork();
+        if (network.isEmpty()) {
+            return false;
+        }
+        
+        // Alvo: o chunk com mais minérios segundo o levantamento, na altura da faixa mais rica
+        BlockPos center = village.getCenter();
+        BlockPos target = findSurveyedMiningLocation(village, 48, world, false);
+        if (target != null) {
+            target = new BlockPos(target.getX(), chooseTargetY(world, target), target.getZ());
+        }
+        
+        // Pontas que já estão sendo estendidas por outras tarefas da vila
+        LongOpenHashSet reserved = new LongOpenHashSet();
+        for (MiningTask task : tasksByVillage.getTasks(village.getVillageId()).values()) {
+            if (task.extendsNetwork()) {
+                reserved.add(task.getMiningPosition().asLong());
             }
         }
         
-        // Se não encontrou cavernas conhecidas, procura por locais potenciais de mineração
+        BlockPos node = network.findFrontierNode(target, center, MINE_NETWORK_RADIUS, reserved);
+        while (node != null) {
+            Direction direction = chooseExtensionDirection(network, node, target, world);
+            if (direction != null) {
+                // Só desce se o alvo estiver bem abaixo da ponta; nunca sobe
+                int targetY = target != null && target.getY() < node.getY() - 8 ? target.getY() : node.getY();
+                startMiningTask(village, world, node, direction, targetY, true);
+                return true;
+            }
+            
+            // Nenhuma direção livre a partir desta ponta
+            network.closeFrontierNode(node);
+            node = network.findFrontierNode(target, center, MINE_NETWORK_RADIUS, reserved);
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Escolhe a direção horizontal que mais se aproxima do alvo sem voltar sobre túneis já escavados
+     * @return A direção, ou null se todas as direções a partir da ponta já foram escavadas
+     */
+    private Direction chooseExtensionDirection(MineNetwork network, BlockPos node, BlockPos target, ServerWorld world) {
+        Direction best = null;
+        long bestDot = Long.MIN_VALUE;
+        int offset = world.getRandom().nextInt(4);
+        
+        for (int i = 0; i < 4; i++) {
+            Direction direction = HORIZONTAL_DIRECTIONS[(i + offset) & 3];
+            if (network.isDug(node.offset(direction))) {
+                continue;
+            }
+            
+            // Sem alvo, a primeira direção livre (a partir de uma posição aleatória) é usada
+            long dot = target == null ? 0 :
+                    (long) (target.getX() - node.getX()) * direction.getOffsetX() +
+                    (long) (target.getZ() - node.getZ()) * direction.getOffsetZ();
+            if (best == null || dot > bestDot) {
+                best = direction;
+                bestDot = dot;
+            }
+        }
+        
+        return best;
+    }
+    
+    /**
+     * Encontra um local para mineração
+     */
+    private BlockPos findMiningLocation(VillageData village, ServerWorld world) {
+        // Primeiro, verifica se a vila já descobriu alguma caverna, usando a mais próxima do centro
         BlockPos center = village.getCenter();
+        BlockPos cave = village.findNearestDiscoveredLocation("cave_entrance", center, CAVE_ENTRANCE_RADIUS);
+        if (cave != null && isClearOfVillage(village, world, cave)) {
+            return cave;
+        }
+        
+        // Depois, as entradas de caverna que as vilas vizinhas descobriram, segundo o resumo compartilhado
+        BlockPos sharedCave = findSharedCaveEntrance(village, world);
+        if (sharedCave != null) {
+            return sharedCave;
+        }
+        
+        // Em seguida, escolhe o chunk com mais minérios segundo o levantamento, sem acessar os blocos
         int searchRadius = 48; // Raio de busca em blocos
+        BlockPos surveyed = findSurveyedMiningLocation(village, searchRadius, world, true);
+        if (surveyed != null) {
+            return surveyed;
+        }
+        
+        // Sem levantamento disponível, avalia os locais potenciais de mineração diretamente no mundo
+        BlockPos bestPos = null;
+        int bestScore = 0;
         
         // Procura em espiral a partir do centro
         for (int radius = 16; radius <= searchRadius; radius += 8) {
@@ -100,131 +228,292 @@ public class MiningManager {
                     int y = world.getTopY(Heightmap.Type.WORLD_SURFACE, pos.getX(), pos.getZ());
                     pos = new BlockPos(pos.getX(), y, pos.getZ());
                     
-                    // Verifica se há uma caverna ou minérios próximos
-                    if (hasMiningPotential(pos, world)) {
-                        return pos;
+                    // A escada não pode começar dentro da área construída da vila
+                    if (!isClearOfVillage(village, world, pos)) {
+                        continue;
+                    }
+                    
+                    // Pontua o local pelos minérios expostos; cavernas sem minérios ficam com a pontuação mínima
+                    int score = getMiningScore(pos, world, bestScore == 0);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestPos = pos;
                     }
                 }
             }
         }
         
-        return null; // Não encontrou local adequado
+        return bestPos; // null se não encontrou local adequado
     }
     
     /**
-     * Verifica se uma localização tem potencial para mineração
+     * Procura, do centro da vila para fora, o chunk carregado mais próximo onde o resumo das vilas vizinhas indica
+     * uma entrada de caverna
+     * O resumo pode dar falsos positivos; nesse caso o túnel só começa em um ponto comum, que continua sendo válido
+     * @return A posição na superfície do centro do chunk, ou null se nenhuma vizinha compartilhou uma caverna ao alcance
      */
-    private boolean hasMiningPotential(BlockPos pos, ServerWorld world) {
-        // Verifica se há uma caverna próxima
-        if (hasCaveNearby(world, pos)) {
-            return true;
+    private BlockPos findSharedCaveEntrance(VillageData village, ServerWorld world) {
+        DiscoverySummary neighbors = village.getNeighborSummary();
+        if (neighbors.isEmpty()) {
+            return null;
         }
         
-        // Verifica se há minérios expostos próximos
-        return hasExposedOres(world, pos);
+        int centerChunkX = village.getCenter().getX() >> 4;
+        int centerChunkZ = village.getCenter().getZ() >> 4;
+        int chunkRadius = CAVE_ENTRANCE_RADIUS >> 4;
+        for (int ring = 0; ring <= chunkRadius; ring++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                // Apenas o perímetro do anel: todas as linhas nas bordas, as duas pontas nas demais
+                int step = Math.abs(dx) == ring ? 1 : 2 * ring;
+                for (int dz = -ring; dz <= ring; dz += step) {
+                    int chunkX = centerChunkX + dx;
+                    int chunkZ = centerChunkZ + dz;
+                    if (!neighbors.mightContainDiscovery("cave_entrance", chunkX, chunkZ) ||
+                        world.getChunkManager().getWorldChunk(chunkX, chunkZ) == null) {
+                        continue;
+                    }
+                    
+                    BlockPos entrance = surfaceAt(world, chunkX, chunkZ);
+                    if (isClearOfVillage(village, world, entrance)) {
+                        return entrance;
+                    }
+                }
+            }
+        }
+        return null;
     }
     
     /**
-     * Verifica se há uma caverna próxima
+     * Encontra o chunk carregado com a maior pontuação de minérios no levantamento, abaixo da altura do centro da vila
+     * @param asEntrance Se a posição será a entrada de um túnel na superfície (ignora chunks cuja entrada cairia
+     *                   dentro da área construída da vila)
+     * @return A posição na superfície do centro do melhor chunk, ou null se nenhum chunk levantado tem minérios
      */
-    private boolean hasCaveNearby(ServerWorld world, BlockPos pos) {
-        // Verifica se há espaços vazios abaixo da superfície
-        int airCount = 0;
-        int minAirCount = 10;
-        
-        // Verifica blocos abaixo da superfície
-        for (int y = 5; y <= 30; y++) {
-            for (int x = -3; x <= 3; x++) {
-                for (int z = -3; z <= 3; z++) {
-                    BlockPos checkPos = pos.add(x, -y, z);
-                    if (world.isAir(checkPos)) {
-                        airCount++;
-                        
-                        if (airCount >= minAirCount) {
-                            return true;
-                        }
-                    }
+    private BlockPos findSurveyedMiningLocation(VillageData village, int searchRadius, ServerWorld world, boolean asEntrance) {
+        BlockPos center = village.getCenter();
+        int centerChunkX = center.getX() >> 4;
+        int centerChunkZ = center.getZ() >> 4;
+        int chunkRadius = searchRadius >> 4;
+        int bestChunkX = 0;
+        int bestChunkZ = 0;
+        int bestScore = 0;
+        
+        for (int chunkX = centerChunkX - chunkRadius; chunkX <= centerChunkX + chunkRadius; chunkX++) {
+            for (int chunkZ = centerChunkZ - chunkRadius; chunkZ <= centerChunkZ + chunkRadius; chunkZ++) {
+                // A altura da superfície só é conhecida em chunks carregados
+                if (world.getChunkManager().getWorldChunk(chunkX, chunkZ) == null) {
+                    continue;
+                }
+                
+                int score = oreSurvey.getScore(world, chunkX, chunkZ, center.getY());
+                if (score > bestScore && (!asEntrance || isClearOfVillage(village, world, surfaceAt(world, chunkX, chunkZ)))) {
+                    bestScore = score;
+                    bestChunkX = chunkX;
+                    bestChunkZ = chunkZ;
                 }
             }
         }
         
-        return false;
+        if (bestScore <= 0) {
+            return null;
+        }
+        
+        return surfaceAt(world, bestChunkX, bestChunkZ);
     }
     
     /**
-     * Verifica se há minérios expostos próximos
+     * Obtém a posição na superfície do centro de um chunk
      */
-    private boolean hasExposedOres(ServerWorld world, BlockPos pos) {
-        // Blocos de minério para procurar
-        Block[] oreBlocks = new Block[]{
-            Blocks.COAL_ORE, Blocks.IRON_ORE, Blocks.GOLD_ORE, 
-            Blocks.REDSTONE_ORE, Blocks.LAPIS_ORE, Blocks.DIAMOND_ORE,
-            Blocks.EMERALD_ORE, Blocks.COPPER_ORE,
-            Blocks.DEEPSLATE_COAL_ORE, Blocks.DEEPSLATE_IRON_ORE, Blocks.DEEPSLATE_GOLD_ORE,
-            Blocks.DEEPSLATE_REDSTONE_ORE, Blocks.DEEPSLATE_LAPIS_ORE, Blocks.DEEPSLATE_DIAMOND_ORE,
-            Blocks.DEEPSLATE_EMERALD_ORE, Blocks.DEEPSLATE_COPPER_ORE
-        };
-        
-        // Verifica em um raio ao redor da posição
-        for (int y = 1; y <= 20; y++) {
-            for (int x = -5; x <= 5; x++) {
-                for (int z = -5; z <= 5; z++) {
-                    BlockPos checkPos = pos.add(x, -y, z);
-                    Block block = world.getBlockState(checkPos).getBlock();
+    private static BlockPos surfaceAt(ServerWorld world, int chunkX, int chunkZ) {
+        int x = (chunkX << 4) + 8;
+        int z = (chunkZ << 4) + 8;
+        return new BlockPos(x, world.getTopY(Heightmap.Type.WORLD_SURFACE, x, z), z);
+    }
+    
+    /**
+     * Verifica se uma entrada de túnel fica fora da área construída da vila
+     * A entrada precisa estar a pelo menos ENTRANCE_CLEARANCE blocos das construções registradas da vila
+     * e de qualquer ponto de interesse (camas, postos de trabalho, sino)
+     */
+    private boolean isClearOfVillage(VillageData village, ServerWorld world, BlockPos entrance) {
+        for (BuildingData building : village.getBuildings()) {
+            BlockPos corner = building.getPosition();
+            if (entrance.getX() >= corner.getX() - ENTRANCE_CLEARANCE &&
+                entrance.getX() <= corner.getX() + building.getSizeX() + ENTRANCE_CLEARANCE &&
+                entrance.getZ() >= corner.getZ() - ENTRANCE_CLEARANCE &&
+                entrance.getZ() <= corner.getZ() + building.getSizeZ() + ENTRANCE_CLEARANCE) {
+                return false;
+            }
+        }
+        
+        return world.getPointOfInterestStorage().count(type -> true, entrance, ENTRANCE_CLEARANCE,
+                PointOfInterestStorage.OccupationStatus.ANY) == 0;
+    }
+    
+    /**
+     * Calcula a pontuação de uma localização para mineração
+     * @param checkCave Se deve verificar cavernas quando não há minérios (só importa enquanto nenhum local foi pontuado)
+     * @return A pontuação dos minérios expostos, 1 para uma caverna sem minérios, ou 0 se não há potencial
+     */
+    private int getMiningScore(BlockPos pos, ServerWorld world, boolean checkCave) {
+        OreCounts ores = countExposedOres(world, pos);
+        if (!ores.isEmpty()) {
+            return ores.getScore();
+        }
+        
+        // Verifica se há uma caverna próxima
+        return checkCave && hasCaveNearby(world, pos) ? 1 : 0;
+    }
+    
+    /**
+     * Verifica se há uma caverna próxima, entre 5 e 30 blocos abaixo da posição
+     */
+    private boolean hasCaveNearby(ServerWorld world, BlockPos pos) {
+        return VillagerExpansionMod.getExpansionManager().getVoidMap()
+                .hasCave(world, pos, 3, pos.getY() - 30, pos.getY() - 5, 10);
+    }
+    
+    /**
+     * Conta os minérios próximos por categoria em um volume de 11x20x11 abaixo da posição
+     * Seções de chunk vazias ou cuja paleta não contém nenhum minério são ignoradas sem ler os blocos
+     */
+    public OreCounts countExposedOres(ServerWorld world, BlockPos pos) {
+        OreCounts counts = new OreCounts();
+        int minX = pos.getX() - 5;
+        int maxX = pos.getX() + 5;
+        int minY = pos.getY() - 20;
+        int maxY = pos.getY() - 1;
+        int minZ = pos.getZ() - 5;
+        int maxZ = pos.getZ() + 5;
+        
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                // Só lê chunks já carregados, sem forçar o carregamento
+                WorldChunk chunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+                if (chunk == null) {
+                    continue;
+                }
+                
+                ChunkSection[] sections = chunk.getSectionArray();
+                for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+                    int sectionIndex = chunk.sectionCoordToIndex(sectionY);
+                    if (sectionIndex < 0 || sectionIndex >= sections.length) {
+                        continue;
+                    }
                     
-                    for (Block oreBlock : oreBlocks) {
-                        if (block == oreBlock) {
-                            return true;
-                        }
+                    ChunkSection section = sections[sectionIndex];
+                    if (section.isEmpty() || !section.hasAny(OreLookup::isOre)) {
+                        continue; // A paleta da seção não tem nenhum minério
                     }
+                    
+                    countSectionOres(section, counts,
+                            Math.max(minX, chunkX << 4), Math.min(maxX, (chunkX << 4) + 15),
+                            Math.max(minY, sectionY << 4), Math.min(maxY, (sectionY << 4) + 15),
+                            Math.max(minZ, chunkZ << 4), Math.min(maxZ, (chunkZ << 4) + 15));
                 }
             }
         }
         
-        return false;
+        return counts;
+    }
+    
+    /**
+     * Conta os minérios de uma seção dentro dos limites informados (coordenadas absolutas)
+     */
+    private void countSectionOres(ChunkSection section, OreCounts counts,
+                                  int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    OreCategory category = OreLookup.getCategory(section.getBlockState(x & 15, y & 15, z & 15));
+                    if (category != null) {
+                        counts.add(category);
+                    }
+                }
+            }
+        }
     }
     
     /**
      * Inicia uma tarefa de mineração
+     * @param location A entrada do túnel (na superfície ou em uma ponta da rede de minas)
+     * @param extendsNetwork Se o túnel estende a rede de minas a partir de uma ponta
      */
-    private void startMiningTask(VillageData village, ServerWorld world, BlockPos location) {
-        // Cria uma nova tarefa de mineração
-        MiningTask task = new MiningTask(village.getVillageId(), location);
+    private void startMiningTask(VillageData village, ServerWorld world, BlockPos location,
+                                 Direction direction, int targetY, boolean extendsNetwork) {
+        // Cria uma nova tarefa de mineração com o plano do túnel
+        MiningTask task = new MiningTask(village.getVillageId(), location, world.getRegistryKey());
+        task.setPlan(TunnelPlan.create(location, direction, targetY));
+        task.setExtendsNetwork(extendsNetwork);
+        
         UUID taskId = UUID.randomUUID();
         activeMiningTasks.put(taskId, task);
+        tasksByVillage.add(village.getVillageId(), taskId, task);
         
         VillagerExpansionMod.LOGGER.info("Iniciando mineração para a vila " + village.getVillageId() + 
-                                       " em " + location);
+                                       (extendsNetwork ? " estendendo a mina em " : " em ") + location + " (túnel para " + direction.asString() + 
+                                       " até y=" + targetY + ", " + task.getPlan().size() + " blocos)");
     }
     
     /**
-     * Processa as tarefas de mineração ativas
+     * Escolhe a altura do corredor principal pela faixa com mais minérios no levantamento do chunk
+     */
+    private int chooseTargetY(ServerWorld world, BlockPos location) {
+        int minY = Math.max(world.getBottomY() + 5, location.getY() - MAX_TUNNEL_DEPTH);
+        int maxY = location.getY() - 8;
+        int targetY = Math.max(minY, location.getY() - 24); // Padrão sem levantamento
+        
+        ChunkOreSurvey survey = oreSurvey.getSurvey(world, location.getX() >> 4, location.getZ() >> 4);
+        if (survey != null) {
+            int bestScore = 0;
+            for (int band = 0; band < ChunkOreSurvey.BAND_COUNT; band++) {
+                int bandY = world.getBottomY() + band * ChunkOreSurvey.BAND_HEIGHT + ChunkOreSurvey.BAND_HEIGHT / 2;
+                if (bandY < minY || bandY > maxY) {
+                    continue;
+                }
+                
+                int score = 0;
+                for (OreCategory category : OreCategory.values()) {
+                    score += survey.getCount(category, band) * category.getValue();
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    targetY = bandY;
+                }
+            }
+        }
+        
+        return Math.min(targetY, maxY);
+    }
+    
+    /**
+     * Processa as tarefas de mineração ativas deste mundo
      */
     private void processActiveTasks(ServerWorld world) {
-        // Lista para armazenar tarefas concluídas
-        Map<UUID, MiningTask> completedTasks = new HashMap<>();
+        if (activeMiningTasks.isEmpty()) {
+            return;
+        }
         
-        // Processa cada tarefa de mineração
-        for (Map.Entry<UUID, MiningTask> entry : activeMiningTasks.entrySet()) {
-            UUID taskId = entry.getKey();
-            MiningTask task = entry.getValue();
-            
-            // Incrementa o progresso da mineração
-            int progressAmount = random.nextInt(8) + 3; // 3-10 de progresso por tick
-            boolean completed = task.incrementProgress(progressAmount);
-            
-            if (completed) {
-                completedTasks.put(taskId, task);
+        // Seleciona as tarefas deste mundo
+        tickTasks.clear();
+        for (MiningTask task : activeMiningTasks.values()) {
+            if (task.getDimension() == world.getRegistryKey()) {
+                tickTasks.add(task);
             }
         }
         
+        tunnelEngine.tick(world, tickTasks);
+        tickTasks.clear();
+        
         // Finaliza as tarefas concluídas
-        for (Map.Entry<UUID, MiningTask> entry : completedTasks.entrySet()) {
-            UUID taskId = entry.getKey();
-            MiningTask task = entry.getValue();
-            
-            completeMiningTask(taskId, task, world);
-            activeMiningTasks.remove(taskId);
+        Iterator<Map.Entry<UUID, MiningTask>> iterator = activeMiningTasks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, MiningTask> entry = iterator.next();
+            if (entry.getValue().getDimension() == world.getRegistryKey() && entry.getValue().isCompleted()) {
+                completeMiningTask(entry.getKey(), entry.getValue(), world);
+                tasksByVillage.remove(entry.getValue().getVillageId(), entry.getKey());
+                iterator.remove();
+            }
         }
     }
     
@@ -241,56 +530,37 @@ public class MiningManager {
             return;
         }
         
-        // Determina os recursos obtidos na mineração
-        int coal = 0, iron = 0, gold = 0, diamond = 0;
-        int stone = random.nextInt(10) + 5; // 5-15 pedras sempre
-        
-        // Chance de encontrar carvão (alta)
-        if (random.nextFloat() < 0.8f) {
-            coal = random.nextInt(5) + 1; // 1-5 carvão
-        }
-        
-        // Chance de encontrar ferro (média)
-        if (random.nextFloat() < 0.5f) {
-            iron = random.nextInt(3) + 1; // 1-3 ferro
-        }
-        
-        // Chance de encontrar ouro (baixa)
-        if (random.nextFloat() < 0.2f) {
-            gold = random.nextInt(2) + 1; // 1-2 ouro
-        }
+        // Lança os drops restantes nos recursos da vila
+        tunnelEngine.flushDrops(task);
         
-        // Chance de encontrar diamante (muito baixa)
-        if (random.nextFloat() < 0.05f) {
-            diamond = 1; // 1 diamante
+        // Incorpora o túnel à rede de minas da vila
+        MineNetwork network = village.getMineNetwork();
+        if (!network.addPlan(task.getPlan(), !task.extendsNetwork(), task.getBlockedBlocks()) && task.extendsNetwork()) {
+            // O túnel ficou obstruído logo na saída da ponta; a ponta não é estendida de novo
+            network.closeFrontierNode(task.getMiningPosition());
         }
+        VillagerExpansionMod.LOGGER.info("Mineração concluída para a vila " + villageId + ": " + 
+                                       task.getBlocksBroken() + " blocos escavados (rede com " +
+                                       network.getEdgeCount() + " túneis, " + network.getFrontierSize() + " pontas)");
         
-        // Adiciona os recursos à vila
-        village.addResources(0, stone, 0); // Adiciona pedra
-        village.addMineralResources(coal, iron, gold, diamond); // Adiciona minérios
-        
-        VillagerExpansionMod.LOGGER.info("Mineração concluída! Obtido: " + 
-                                       coal + " carvão, " + 
-                                       iron + " ferro, " + 
-                                       gold + " ouro, " + 
-                                       diamond + " diamante, " + 
-                                       stone + " pedra");
-        
-        // Chance de descobrir uma nova caverna durante a mineração
-        if (random.nextFloat() < 0.1f) { // 10% de chance
-            // Cria uma nova localização descoberta para a caverna
-            UUID locationId = UUID.randomUUID();
-            BlockPos cavePos = task.getMiningPosition().add(
-                    random.nextInt(16) - 8,
-                    -random.nextInt(5) - 3,
-                    random.nextInt(16) - 8
-            );
-            
-            village.addDiscoveredLocation(locationId, cavePos, "deep_cave");
-            VillagerExpansionMod.LOGGER.info("Descoberta nova caverna profunda durante mineração em " + cavePos);
+        // Registra uma caverna profunda se o levantamento indica muito ar no chunk do fim do túnel
+        BlockPos tunnelEnd = task.getPlan().getEnd();
+        ChunkOreSurvey survey = oreSurvey.getSurvey(world, tunnelEnd.getX() >> 4, tunnelEnd.getZ() >> 4);
+        if (survey != null && survey.getCaveAir() >= DEEP_CAVE_AIR && !village.isNearDiscoveredLocation(tunnelEnd, 16)) {
+            village.addDiscoveredLocation(UUID.randomUUID(), tunnelEnd, "deep_cave");
+            VillagerExpansionMod.LOGGER.info("Descoberta nova caverna profunda durante mineração em " + tunnelEnd);
         }
     }
     
+    /**
+     * Obtém as tarefas de mineração ativas de uma vila
+     * @param villageId O ID da vila
+     * @return Mapa somente leitura das tarefas da vila
+     */
+    public Map<UUID, MiningTask> getVillageMiningTasks(UUID villageId) {
+        return tasksByVillage.getTasks(villageId);
+    }
+    
     /**
      * Obtém uma tarefa de mineração ativa
      */
@@ -299,9 +569,9 @@ public class MiningManager {
     }
     
     /**
-     * Obtém todas as tarefas de mineração ativas
+     * Obtém o levantamento de minérios por chunk
      */
-    public Map<UUID, MiningTask> getActiveMiningTasks() {
-        return new HashMap<>(activeMiningTasks);
+    public OreSurveyCache getOreSurvey() {
+        return oreSurvey;
     }
 }
\ No newline at end of file
@@ -1,37 +1,51 @@
 package com.example.village.mining;
 
+import com.example.village.resources.ResourceType;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import net.minecraft.registry.RegistryKey;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 
+import java.util.BitSet;
 import java.util.UUID;
 
 /**
  * Representa uma tarefa de mineração em andamento
+ * Guarda o plano do túnel e o cursor da escavação, para que a tarefa possa ser pausada e retomada
  */
 public class MiningTask {
     private final UUID villageId;
     private final BlockPos miningPosition;
-    private int progress = 0;
-    private static final int MAX_PROGRESS = 100;
+    private final RegistryKey<World> dimension;
     
-    public MiningTask(UUID villageId, BlockPos miningPosition) {
+    // Plano do túnel e próxima posição a escavar
+    private TunnelPlan plan = null;
+    private int cursor = 0;
+    
+    // Blocos do plano que ficaram obstruindo o túnel (não puderam ser quebrados)
+    private final BitSet blockedBlocks = new BitSet();
+    
+    // Se o túnel parte de uma ponta da rede de minas da vila em vez da superfície
+    private boolean extendsNetwork = false;
+    
+    // Blocos de veios de minério encontrados, escavados antes de continuar o plano
+    private final LongArrayFIFOQueue veinQueue = new LongArrayFIFOQueue();
+    
+    // Drops ainda não lançados nos recursos da vila, por tipo de recurso
+    private final int[] pendingDrops = new int[ResourceType.values().length];
+    private int blocksBroken = 0;
+    
+    public MiningTask(UUID villageId, BlockPos miningPosition, RegistryKey<World> dimension) {
         this.villageId = villageId;
         this.miningPosition = miningPosition;
-    }
-    
-    /**
-     * Incrementa o progresso da mineração
-     * @return true se a mineração foi concluída
-     */
-    public boolean incrementProgress(int amount) {
-        progress += amount;
-        return progress >= MAX_PROGRESS;
+        this.dimension = dimension;
     }
     
     /**
      * Verifica se a mineração está concluída
      */
     public boolean isCompleted() {
-        return progress >= MAX_PROGRESS;
+        return plan != null && cursor >= plan.size() && veinQueue.isEmpty();
     }
     
     /**
@@ -48,10 +62,77 @@ public class MiningTask {
         return miningPosition;
     }
     
+    /**
+     * Obtém a dimensão onde o túnel é escavado
+     */
+    public RegistryKey<World> getDimension() {
+        return dimension;
+    }
+    
     /**
      * Obtém o progresso atual da mineração (0-100%)
      */
     public float getProgressPercentage() {
-        return (float) progress / MAX_PROGRESS * 100.0f;
+        if (plan == null || plan.size() == 0) {
+            return plan == null ? 0.0f : 100.0f;
+        }
+        return Math.min(100.0f, (float) cursor / plan.size() * 100.0f);
+    }
+    
+    public TunnelPlan getPlan() {
+        return plan;
+    }
+    
+    public void setPlan(TunnelPlan plan) {
+        this.plan = plan;
+        this.cursor = 0;
+        this.blockedBlocks.clear();
+    }
+    
+    public boolean extendsNetwork() {
+        return extendsNetwork;
+    }
+    
+    public void setExtendsNetwork(boolean extendsNetwork) {
+        this.extendsNetwork = extendsNetwork;
+    }
+    
+    public int getCursor() {
+        return cursor;
+    }
+    
+    /**
+     * Avança o cursor do plano para o próximo bloco
+     */
+    public void advanceCursor() {
+        cursor++;
+    }
+    
+    /**
+     * Marca um bloco do plano que não pôde ser quebrado e continua obstruindo o túnel
+     * @param index O índice do bloco no plano
+     */
+    public void markBlocked(int index) {
+        blockedBlocks.set(index);
+    }
+    
+    public BitSet getBlockedBlocks() {
+        return blockedBlocks;
+    }
+    
+    public LongArrayFIFOQueue getVeinQueue() {
+        return veinQueue;
+    }
+    
+    public int[] getPendingDrops() {
+        return pendingDrops;
+    }
+    
+    public int getBlocksBroken() {
+        return blocksBroken;
+    }
+    
+    public void incrementBlocksBroken() {
+        blocksBroken++;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package com.example.village.mining;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+
+/**
+ * Enumeração das categorias de minério, com as variantes de deepslate agrupadas na mesma categoria
+ * O valor é usado para comparar locais de mineração
+ */
+public enum OreCategory {
+    COAL(1, Blocks.COAL_ORE, Blocks.DEEPSLATE_COAL_ORE),
+    COPPER(1, Blocks.COPPER_ORE, Blocks.DEEPSLATE_COPPER_ORE),
+    IRON(3, Blocks.IRON_ORE, Blocks.DEEPSLATE_IRON_ORE),
+    REDSTONE(2, Blocks.REDSTONE_ORE, Blocks.DEEPSLATE_REDSTONE_ORE),
+    LAPIS(2, Blocks.LAPIS_ORE, Blocks.DEEPSLATE_LAPIS_ORE),
+    GOLD(5, Blocks.GOLD_ORE, Blocks.DEEPSLATE_GOLD_ORE),
+    EMERALD(8, Blocks.EMERALD_ORE, Blocks.DEEPSLATE_EMERALD_ORE),
+    DIAMOND(10, Blocks.DIAMOND_ORE, Blocks.DEEPSLATE_DIAMOND_ORE);
+    
+    private final int value;
+    private final Block[] blocks;
+    
+    OreCategory(int value, Block... blocks) {
+        this.value = value;
+        this.blocks = blocks;
+    }
+    
+    /**
+     * Obtém o valor relativo de um bloco desta categoria
+     */
+    public int getValue() {
+        return value;
+    }
+    
+    /**
+     * Obtém os blocos que pertencem a esta categoria
+     */
+    public Block[] getBlocks() {
+        return blocks;
+    }
+}
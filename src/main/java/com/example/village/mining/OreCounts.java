@@ -0,0 +1,66 @@
+package com.example.village.mining;
+
+/**
+ * Quantidade de blocos de minério encontrados em uma região, por categoria
+ */
+public class OreCounts {
+    
+    private static final OreCategory[] CATEGORIES = OreCategory.values();
+    
+    private final int[] counts = new int[CATEGORIES.length];
+    private int total = 0;
+    
+    /**
+     * Soma um bloco de minério à contagem
+     * @param category A categoria do minério
+     */
+    public void add(OreCategory category) {
+        counts[category.ordinal()]++;
+        total++;
+    }
+    
+    /**
+     * Obtém a quantidade de blocos de uma categoria
+     */
+    public int get(OreCategory category) {
+        return counts[category.ordinal()];
+    }
+    
+    /**
+     * Obtém a quantidade total de blocos de minério
+     */
+    public int getTotal() {
+        return total;
+    }
+    
+    /**
+     * Verifica se nenhum minério foi encontrado
+     */
+    public boolean isEmpty() {
+        return total == 0;
+    }
+    
+    /**
+     * Calcula a pontuação da região, ponderando cada categoria pelo seu valor
+     * @return A soma das quantidades multiplicadas pelo valor de cada categoria
+     */
+    public int getScore() {
+        int score = 0;
+        for (OreCategory category : CATEGORIES) {
+            score += counts[category.ordinal()] * category.getValue();
+        }
+        return score;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (OreCategory category : CATEGORIES) {
+            int count = counts[category.ordinal()];
+            if (count > 0) {
+                builder.append(builder.length() > 0 ? ", " : "").append(count).append("x ").append(category);
+            }
+        }
+        return builder.length() > 0 ? builder.toString() : "nenhum minério";
+    }
+}
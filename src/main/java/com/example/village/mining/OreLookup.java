@@ -0,0 +1,63 @@
+package com.example.village.mining;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+/**
+ * Tabela estática que associa o id numérico de cada BlockState à sua categoria de minério
+ * Permite classificar um bloco com um único acesso a array, sem comparar com cada bloco de minério
+ */
+public final class OreLookup {
+    
+    private static final OreCategory[] CATEGORIES = OreCategory.values();
+    
+    // Categoria de cada estado (ordinal + 1), ou 0 se o estado não for minério
+    // Construída no carregamento da classe, que só acontece em jogo, depois do registro dos blocos; a inicialização
+    // estática publica a tabela com segurança para as threads do levantamento de minérios
+    private static final byte[] CATEGORY_BY_STATE = buildTable();
+    
+    private OreLookup() {
+    }
+    
+    /**
+     * Obtém a categoria de minério de um estado de bloco
+     * @param state O estado do bloco
+     * @return A categoria, ou null se o bloco não for minério
+     */
+    public static OreCategory getCategory(BlockState state) {
+        int index = getIndex(state);
+        return index > 0 ? CATEGORIES[index - 1] : null;
+    }
+    
+    /**
+     * Verifica se um estado de bloco é minério
+     * @param state O estado do bloco
+     * @return true se o estado pertence a alguma categoria de minério
+     */
+    public static boolean isOre(BlockState state) {
+        return getIndex(state) > 0;
+    }
+    
+    /**
+     * Obtém o índice da categoria (ordinal + 1) de um estado, ou 0 se não for minério
+     */
+    static int getIndex(BlockState state) {
+        int rawId = Block.getRawIdFromState(state);
+        return rawId >= 0 && rawId < CATEGORY_BY_STATE.length ? CATEGORY_BY_STATE[rawId] : 0;
+    }
+    
+    /**
+     * Constrói a tabela a partir dos estados de cada bloco de minério
+     */
+    private static byte[] buildTable() {
+        byte[] table = new byte[Block.STATE_IDS.size()];
+        for (OreCategory category : CATEGORIES) {
+            for (Block block : category.getBlocks()) {
+                for (BlockState state : block.getStateManager().getStates()) {
+                    table[Block.getRawIdFromState(state)] = (byte) (category.ordinal() + 1);
+                }
+            }
+        }
+        return table;
+    }
+}
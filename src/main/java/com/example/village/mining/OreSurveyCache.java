@@ -0,0 +1,302 @@
+package com.example.village.mining;
+
+import com.example.VillagerExpansionMod;
+import com.example.village.VillageData;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.dimension.DimensionType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache dos levantamentos de minério por chunk
+ * Os chunks próximos das vilas são levantados uma única vez, fora da thread do servidor, a partir de cópias das seções
+ * Os resultados ficam em arquivos binários por região mapeados em memória e são atualizados a cada mudança de bloco
+ */
+public class OreSurveyCache {
+    
+    // Distância máxima (em blocos) entre o chunk e o centro de uma vila para ser levantado
+    private static final int SURVEY_RADIUS = 96;
+    
+    // Profundidade abaixo da superfície a partir da qual o ar conta como caverna
+    private static final int CAVE_DEPTH = 8;
+    
+    // Thread única para os levantamentos, para não competir com o servidor
+    private static final ExecutorService SURVEY_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "VillagerExpansion-OreSurvey");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final Map<RegistryKey<World>, WorldSurvey> worlds = new HashMap<>();
+    
+    /**
+     * Chamado quando um chunk é carregado; agenda o levantamento se o chunk estiver perto de uma vila
+     * @param world O mundo do servidor
+     * @param chunk O chunk carregado
+     */
+    public void onChunkLoad(ServerWorld world, WorldChunk chunk) {
+        ChunkPos chunkPos = chunk.getPos();
+        if (!isNearVillage(chunkPos)) {
+            return;
+        }
+        
+        WorldSurvey worldSurvey = getWorldSurvey(world);
+        long key = chunkPos.toLong();
+        if (worldSurvey.pending.contains(key)) {
+            return; // Já está sendo levantado
+        }
+        
+        OreSurveyRegion region = worldSurvey.getRegion(chunkPos.getRegionX(), chunkPos.getRegionZ(), true);
+        if (region == null || region.isSurveyed(OreSurveyRegion.getLocalIndex(chunkPos.x, chunkPos.z))) {
+            return;
+        }
+        
+        scheduleSurvey(world, worldSurvey, chunk);
+    }
+    
+    /**
+     * Chamado quando um bloco muda; aplica a diferença ao levantamento do chunk
+     * @param world O mundo do servidor
+     * @param pos A posição do bloco
+     * @param oldState O estado anterior
+     * @param newState O novo estado
+     */
+    public void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        OreCategory oldCategory = OreLookup.getCategory(oldState);
+        OreCategory newCategory = OreLookup.getCategory(newState);
+        boolean oldAir = oldState.isAir();
+        boolean newAir = newState.isAir();
+        if (oldCategory == newCategory && oldAir == newAir) {
+            return; // A mudança não afeta o levantamento
+        }
+        
+        WorldSurvey worldSurvey = worlds.get(world.getRegistryKey());
+        if (worldSurvey == null) {
+            return;
+        }
+        
+        int chunkX = pos.getX() >> 4;
+        int chunkZ = pos.getZ() >> 4;
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        if (worldSurvey.pending.contains(key)) {
+            // O levantamento em andamento usa uma cópia antiga; será refeito quando terminar
+            worldSurvey.stale.add(key);
+            return;
+        }
+        
+        OreSurveyRegion region = worldSurvey.getRegion(chunkX >> 5, chunkZ >> 5, false);
+        int localIndex = OreSurveyRegion.getLocalIndex(chunkX, chunkZ);
+        if (region == null || !region.isSurveyed(localIndex)) {
+            return;
+        }
+        
+        int band = ChunkOreSurvey.getBand(pos.getY(), world.getBottomY());
+        if (oldCategory != null) {
+            region.adjustCount(localIndex, oldCategory, band, -1);
+        }
+        if (newCategory != null) {
+            region.adjustCount(localIndex, newCategory, band, 1);
+        }
+        if (oldAir != newAir) {
+            region.adjustCaveAir(localIndex, pos.getY(), newAir ? 1 : -1);
+        }
+    }
+    
+    /**
+     * Obtém o levantamento de um chunk
+     * @return O levantamento, ou null se o chunk ainda não foi levantado
+     */
+    public ChunkOreSurvey getSurvey(ServerWorld world, int chunkX, int chunkZ) {
+        OreSurveyRegion region = getWorldSurvey(world).getRegion(chunkX >> 5, chunkZ >> 5, false);
+        return region != null ? region.read(OreSurveyRegion.getLocalIndex(chunkX, chunkZ)) : null;
+    }
+    
+    /**
+     * Calcula a pontuação de minérios de um chunk abaixo de uma altura, sem acessar o mundo
+     * @param maxY A altura máxima considerada
+     * @return A pontuação, ou -1 se o chunk ainda não foi levantado
+     */
+    public int getScore(ServerWorld world, int chunkX, int chunkZ, int maxY) {
+        OreSurveyRegion region = getWorldSurvey(world).getRegion(chunkX >> 5, chunkZ >> 5, false);
+        int localIndex = OreSurveyRegion.getLocalIndex(chunkX, chunkZ);
+        if (region == null || !region.isSurveyed(localIndex)) {
+            return -1;
+        }
+        return region.getScore(localIndex, ChunkOreSurvey.getBand(maxY, world.getBottomY()));
+    }
+    
+    /**
+     * Fecha todos os arquivos de levantamento, gravando o conteúdo em disco
+     */
+    public void close() {
+        for (WorldSurvey worldSurvey : worlds.values()) {
+            worldSurvey.close();
+        }
+        worlds.clear();
+    }
+    
+    /**
+     * Copia as seções do chunk e agenda o levantamento na thread de levantamentos
+     */
+    private void scheduleSurvey(ServerWorld world, WorldSurvey worldSurvey, WorldChunk chunk) {
+        ChunkPos chunkPos = chunk.getPos();
+        long key = chunkPos.toLong();
+        
+        // Copia as seções na thread do servidor para que o levantamento não leia o chunk vivo
+        ChunkSection[] sections = chunk.getSectionArray();
+        @SuppressWarnings("unchecked")
+        PalettedContainer<BlockState>[] snapshot = new PalettedContainer[sections.length];
+        for (int i = 0; i < sections.length; i++) {
+            snapshot[i] = sections[i].getBlockStateContainer().copy();
+        }
+        
+        int bottomY = world.getBottomY();
+        int caveCutoffY = getSurfaceMinY(chunk) - CAVE_DEPTH;
+        worldSurvey.pending.add(key);
+        
+        CompletableFuture.supplyAsync(() -> ChunkOreSurvey.compute(snapshot, bottomY, caveCutoffY), SURVEY_EXECUTOR)
+                .whenCompleteAsync((survey, error) -> {
+                    worldSurvey.pending.remove(key);
+                    if (error != null) {
+                        VillagerExpansionMod.LOGGER.warn("Falha no levantamento de minérios do chunk " + chunkPos, error);
+                        return;
+                    }
+                    if (worldSurvey.closed) {
+                        return; // O servidor está parando
+                    }
+                    
+                    if (worldSurvey.stale.remove(key)) {
+                        // Blocos mudaram durante o levantamento: refaz a partir do estado atual, se o chunk ainda estiver carregado
+                        WorldChunk current = world.getChunkManager().getWorldChunk(chunkPos.x, chunkPos.z);
+                        if (current != null) {
+                            scheduleSurvey(world, worldSurvey, current);
+                        }
+                        return;
+                    }
+                    
+                    OreSurveyRegion region = worldSurvey.getRegion(chunkPos.getRegionX(), chunkPos.getRegionZ(), true);
+                    if (region != null) {
+                        region.write(OreSurveyRegion.getLocalIndex(chunkPos.x, chunkPos.z), survey);
+                    }
+                }, world.getServer());
+    }
+    
+    /**
+     * Obtém a menor altura de superfície amostrada no chunk
+     */
+    private int getSurfaceMinY(WorldChunk chunk) {
+        int minY = Integer.MAX_VALUE;
+        int[][] samples = {{0, 0}, {15, 0}, {0, 15}, {15, 15}, {8, 8}};
+        for (int[] sample : samples) {
+            minY = Math.min(minY, chunk.sampleHeightmap(Heightmap.Type.WORLD_SURFACE, sample[0], sample[1]));
+        }
+        return minY;
+    }
+    
+    /**
+     * Verifica se um chunk está próximo do centro de alguma vila
+     */
+    private boolean isNearVillage(ChunkPos chunkPos) {
+        int centerX = chunkPos.getCenterX();
+        int centerZ = chunkPos.getCenterZ();
+        for (VillageData village : VillagerExpansionMod.getExpansionManager().getVillages()) {
+            int dx = village.getCenter().getX() - centerX;
+            int dz = village.getCenter().getZ() - centerZ;
+            if (dx * dx + dz * dz <= SURVEY_RADIUS * SURVEY_RADIUS) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private WorldSurvey getWorldSurvey(ServerWorld world) {
+        return worlds.computeIfAbsent(world.getRegistryKey(), key -> {
+            Path root = world.getServer().getSavePath(WorldSavePath.ROOT);
+            Path directory = DimensionType.getSaveDirectory(key, root).resolve("villager_expansion").resolve("ore_survey");
+            return new WorldSurvey(directory);
+        });
+    }
+    
+    /**
+     * Arquivos de levantamento abertos de um mundo e os chunks com levantamento em andamento
+     */
+    private static final class WorldSurvey {
+        private final Path directory;
+        private final Long2ObjectOpenHashMap<OreSurveyRegion> regions = new Long2ObjectOpenHashMap<>();
+        
+        // Regiões sem arquivo em disco (evita consultar o sistema de arquivos a cada mudança de bloco)
+        private final LongOpenHashSet missingRegions = new LongOpenHashSet();
+        
+        private final LongOpenHashSet pending = new LongOpenHashSet();
+        private final LongOpenHashSet stale = new LongOpenHashSet();
+        private boolean closed = false;
+        
+        private WorldSurvey(Path directory) {
+            this.directory = directory;
+        }
+        
+        /**
+         * Obtém o arquivo de uma região, abrindo-o se necessário
+         * @param create Se deve criar o arquivo quando ele ainda não existir
+         * @return O arquivo da região, ou null se não existir (ou não puder ser aberto)
+         */
+        private OreSurveyRegion getRegion(int regionX, int regionZ, boolean create) {
+            long key = ChunkPos.toLong(regionX, regionZ);
+            OreSurveyRegion region = regions.get(key);
+            if (region != null || closed) {
+                return region;
+            }
+            if (!create && missingRegions.contains(key)) {
+                return null;
+            }
+            
+            Path file = directory.resolve("r." + regionX + "." + regionZ + ".vxs");
+            if (!create && !Files.exists(file)) {
+                missingRegions.add(key);
+                return null;
+            }
+            
+            try {
+                region = new OreSurveyRegion(file);
+                regions.put(key, region);
+                missingRegions.remove(key);
+                return region;
+            } catch (IOException e) {
+                VillagerExpansionMod.LOGGER.warn("Não foi possível abrir o arquivo de levantamento " + file, e);
+                missingRegions.add(key);
+                return null;
+            }
+        }
+        
+        private void close() {
+            closed = true;
+            for (OreSurveyRegion region : regions.values()) {
+                try {
+                    region.close();
+                } catch (IOException e) {
+                    VillagerExpansionMod.LOGGER.warn("Falha ao gravar o arquivo de levantamento de minérios", e);
+                }
+            }
+            regions.clear();
+        }
+    }
+}
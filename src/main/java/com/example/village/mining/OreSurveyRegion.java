@@ -0,0 +1,142 @@
+package com.example.village.mining;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Arquivo binário mapeado em memória com os levantamentos de minério de uma região (32x32 chunks)
+ * Cada chunk ocupa um registro de tamanho fixo, então os levantamentos ficam fora do heap da JVM
+ */
+public class OreSurveyRegion implements AutoCloseable {
+    
+    private static final int MAGIC = 0x56584F53; // "VXOS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    
+    // Registro: flags (1 int), altura de corte das cavernas (1 int), ar de cavernas (1 int), contagens (shorts)
+    private static final int COUNTS_OFFSET = 12;
+    private static final int COUNT_ENTRIES = OreCategory.values().length * ChunkOreSurvey.BAND_COUNT;
+    private static final int RECORD_SIZE = COUNTS_OFFSET + COUNT_ENTRIES * 2;
+    private static final int CHUNKS_PER_REGION = 32 * 32;
+    private static final int FLAG_SURVEYED = 1;
+    
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    
+    public OreSurveyRegion(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) RECORD_SIZE * CHUNKS_PER_REGION);
+        
+        // Arquivo novo ou de outra versão: descarta o conteúdo
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            for (int i = 0; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+        }
+    }
+    
+    /**
+     * Obtém o índice local de um chunk dentro da região
+     */
+    public static int getLocalIndex(int chunkX, int chunkZ) {
+        return (chunkX & 31) + ((chunkZ & 31) << 5);
+    }
+    
+    public boolean isSurveyed(int localIndex) {
+        return (buffer.getInt(offset(localIndex)) & FLAG_SURVEYED) != 0;
+    }
+    
+    /**
+     * Grava o levantamento de um chunk
+     */
+    public void write(int localIndex, ChunkOreSurvey survey) {
+        int offset = offset(localIndex);
+        buffer.putInt(offset + 4, survey.getCaveCutoffY());
+        buffer.putInt(offset + 8, survey.getCaveAir());
+        for (OreCategory category : OreCategory.values()) {
+            for (int band = 0; band < ChunkOreSurvey.BAND_COUNT; band++) {
+                buffer.putShort(countOffset(offset, category, band), (short) survey.getCount(category, band));
+            }
+        }
+        buffer.putInt(offset, FLAG_SURVEYED);
+    }
+    
+    /**
+     * Lê o levantamento de um chunk
+     * @return O levantamento, ou null se o chunk ainda não foi levantado
+     */
+    public ChunkOreSurvey read(int localIndex) {
+        if (!isSurveyed(localIndex)) {
+            return null;
+        }
+        
+        int offset = offset(localIndex);
+        ChunkOreSurvey survey = new ChunkOreSurvey(buffer.getInt(offset + 4));
+        survey.setCaveAir(buffer.getInt(offset + 8));
+        for (OreCategory category : OreCategory.values()) {
+            for (int band = 0; band < ChunkOreSurvey.BAND_COUNT; band++) {
+                survey.adjustCount(category, band, buffer.getShort(countOffset(offset, category, band)));
+            }
+        }
+        return survey;
+    }
+    
+    /**
+     * Soma uma variação à contagem de minério de um chunk já levantado
+     */
+    public void adjustCount(int localIndex, OreCategory category, int band, int delta) {
+        int position = countOffset(offset(localIndex), category, band);
+        buffer.putShort(position, (short) Math.max(0, Math.min(Short.MAX_VALUE, buffer.getShort(position) + delta)));
+    }
+    
+    /**
+     * Soma uma variação ao volume de ar de cavernas de um chunk já levantado
+     */
+    public void adjustCaveAir(int localIndex, int y, int delta) {
+        int offset = offset(localIndex);
+        if (y < buffer.getInt(offset + 4)) {
+            buffer.putInt(offset + 8, Math.max(0, buffer.getInt(offset + 8) + delta));
+        }
+    }
+    
+    /**
+     * Calcula a pontuação de minérios de um chunk diretamente do arquivo, sem criar objetos
+     * @param maxBand A faixa mais alta considerada (inclusiva)
+     * @return A soma das contagens ponderadas pelo valor de cada categoria
+     */
+    public int getScore(int localIndex, int maxBand) {
+        int offset = offset(localIndex);
+        int score = 0;
+        for (OreCategory category : OreCategory.values()) {
+            for (int band = 0; band <= maxBand && band < ChunkOreSurvey.BAND_COUNT; band++) {
+                score += buffer.getShort(countOffset(offset, category, band)) * category.getValue();
+            }
+        }
+        return score;
+    }
+    
+    public int getCaveAir(int localIndex) {
+        return buffer.getInt(offset(localIndex) + 8);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+    
+    private static int offset(int localIndex) {
+        return HEADER_SIZE + localIndex * RECORD_SIZE;
+    }
+    
+    private static int countOffset(int recordOffset, OreCategory category, int band) {
+        return recordOffset + COUNTS_OFFSET + (category.ordinal() * ChunkOreSurvey.BAND_COUNT + band) * 2;
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.village.mining;
+
+import com.example.VillagerExpansionMod;
+import com.example.village.VillageData;
+import com.example.village.resources.ResourceFlowSource;
+import com.example.village.resources.ResourceType;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.PaneBlock;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Motor de escavação dos túneis de mineração
+ * Quebra blocos reais seguindo o plano de cada tarefa, limitado por um orçamento global de blocos por tick,
+ * segue veios de minério com uma busca limitada e lança os drops reais nos recursos da vila
+ */
+public class TunnelMiningEngine {
+    
+    // Máximo de blocos quebrados por tick somando todas as tarefas
+    private static final int BLOCKS_PER_TICK = 6;
+    
+    // Máximo de posições puladas (ar, blocos protegidos) por tarefa antes de ceder a vez
+    private static final int MAX_SKIPS_PER_STEP = 16;
+    
+    // Máximo de blocos adicionados por veio de minério
+    private static final int VEIN_LIMIT = 24;
+    
+    // Intervalo (em blocos quebrados) para lançar os drops acumulados nos recursos da vila
+    private static final int DROP_FLUSH_INTERVAL = 32;
+    
+    // Ferramenta usada para calcular os drops
+    private static final ItemStack MINING_TOOL = new ItemStack(Items.IRON_PICKAXE);
+    
+    // Recurso da vila correspondente a cada item obtido na escavação
+    private static final Map<Item, ResourceType> DROP_RESOURCES = new HashMap<>();
+    
+    static {
+        DROP_RESOURCES.put(Items.COBBLESTONE, ResourceType.STONE);
+        DROP_RESOURCES.put(Items.COBBLED_DEEPSLATE, ResourceType.STONE);
+        DROP_RESOURCES.put(Items.STONE, ResourceType.STONE);
+        DROP_RESOURCES.put(Items.ANDESITE, ResourceType.STONE);
+        DROP_RESOURCES.put(Items.DIORITE, ResourceType.STONE);
+        DROP_RESOURCES.put(Items.GRANITE, ResourceType.STONE);
+        DROP_RESOURCES.put(Items.TUFF, ResourceType.STONE);
+        DROP_RESOURCES.put(Items.COAL, ResourceType.COAL);
+        DROP_RESOURCES.put(Items.RAW_IRON, ResourceType.IRON);
+        DROP_RESOURCES.put(Items.RAW_GOLD, ResourceType.GOLD);
+        DROP_RESOURCES.put(Items.DIAMOND, ResourceType.DIAMOND);
+    }
+    
+    // Blocos de construção sem uma tag própria, que o túnel nunca quebra
+    private static final Set<Block> BUILT_BLOCKS = Set.of(
+            Blocks.COBBLESTONE, Blocks.MOSSY_COBBLESTONE, Blocks.BRICKS, Blocks.SMOOTH_STONE, Blocks.DIRT_PATH,
+            Blocks.FARMLAND, Blocks.HAY_BLOCK, Blocks.BELL, Blocks.TORCH, Blocks.WALL_TORCH, Blocks.LANTERN,
+            Blocks.LADDER, Blocks.GLASS_PANE);
+    
+    // Próxima tarefa a ser atendida (rodízio entre as tarefas)
+    private int nextTaskIndex = 0;
+    
+    /**
+     * Escava os túneis das tarefas de um mundo, dentro do orçamento de blocos do tick
+     * @param world O mundo do servidor
+     * @param tasks As tarefas ativas neste mundo
+     */
+    public void tick(ServerWorld world, List<MiningTask> tasks) {
+        int taskCount = tasks.size();
+        if (taskCount == 0) {
+            return;
+        }
+        
+        int budget = BLOCKS_PER_TICK;
+        int idle = 0;
+        int index = nextTaskIndex % taskCount;
+        
+        // Distribui o orçamento em rodízio; para quando nenhuma tarefa consegue avançar
+        while (budget > 0 && idle < taskCount) {
+            MiningTask task = tasks.get(index);
+            if (!task.isCompleted() && step(world, task)) {
+                budget--;
+                idle = 0;
+            } else {
+                idle++;
+            }
+            index = (index + 1) % taskCount;
+        }
+        
+        nextTaskIndex = index;
+    }
+    
+    /**
+     * Lança nos recursos da vila os drops acumulados de uma tarefa
+     * @param task A tarefa de mineração
+     */
+    public void flushDrops(MiningTask task) {
+        int[] drops = task.getPendingDrops();
+        VillageData village = VillagerExpansionMod.getExpansionManager().getVillage(task.getVillageId());
+        if (village != null) {
+            village.addResources(0, drops[ResourceType.STONE.ordinal()], 0, ResourceFlowSource.MINING);
+            village.addMineralResources(drops[ResourceType.COAL.ordinal()], drops[ResourceType.IRON.ordinal()],
+                                        drops[ResourceType.GOLD.ordinal()], drops[ResourceType.DIAMOND.ordinal()],
+                                        ResourceFlowSource.MINING);
+        }
+        Arrays.fill(drops, 0);
+    }
+    
+    /**
+     * Quebra o próximo bloco da tarefa (veios primeiro, depois o plano)
+     * @return true se um bloco foi quebrado, false se a tarefa está pausada ou terminou
+     */
+    private boolean step(ServerWorld world, MiningTask task) {
+        TunnelPlan plan = task.getPlan();
+        LongArrayFIFOQueue veinQueue = task.getVeinQueue();
+        
+        for (int attempt = 0; attempt < MAX_SKIPS_PER_STEP; attempt++) {
+            boolean fromVein = !veinQueue.isEmpty();
+            long packed;
+            if (fromVein) {
+                packed = veinQueue.firstLong();
+            } else if (plan != null && task.getCursor() < plan.size()) {
+                packed = plan.get(task.getCursor());
+            } else {
+                return false;
+            }
+            
+            // Pausa a tarefa enquanto o chunk não estiver carregado, sem perder a posição no plano
+            int x = BlockPos.unpackLongX(packed);
+            int z = BlockPos.unpackLongZ(packed);
+            if (!world.getChunkManager().isChunkLoaded(x >> 4, z >> 4)) {
+                return false;
+            }
+            
+            int planIndex = task.getCursor();
+            if (fromVein) {
+                veinQueue.dequeueLong();
+            } else {
+                task.advanceCursor();
+            }
+            
+            BlockPos pos = BlockPos.fromLong(packed);
+            BlockState state = world.getBlockState(pos);
+            if (!canBreak(world, pos, state)) {
+                // Um bloco sólido ou fluido que ficou no caminho desconecta o resto do trecho
+                if (!fromVein && (!state.getCollisionShape(world, pos).isEmpty() || !state.getFluidState().isEmpty())) {
+                    task.markBlocked(planIndex);
+                }
+                continue;
+            }
+            
+            breakBlock(world, task, pos, state, !fromVein);
+            return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Quebra um bloco, acumulando os drops e seguindo o veio se for minério
+     */
+    private void breakBlock(ServerWorld world, MiningTask task, BlockPos pos, BlockState state, boolean followVein) {
+        OreCategory category = OreLookup.getCategory(state);
+        List<ItemStack> drops = Block.getDroppedStacks(state, world, pos, null, null, MINING_TOOL);
+        world.breakBlock(pos, false);
+        
+        int[] pending = task.getPendingDrops();
+        for (ItemStack drop : drops) {
+            ResourceType resource = DROP_RESOURCES.get(drop.getItem());
+            if (resource != null) {
+                pending[resource.ordinal()] += drop.getCount();
+            }
+        }
+        
+        task.incrementBlocksBroken();
+        if (task.getBlocksBroken() % DROP_FLUSH_INTERVAL == 0) {
+            flushDrops(task);
+        }
+        
+        if (category != null && followVein) {
+            enqueueVein(world, task, pos, category);
+        }
+    }
+    
+    /**
+     * Busca em largura, limitada a VEIN_LIMIT blocos, pelos minérios da mesma categoria conectados ao bloco
+     */
+    private void enqueueVein(ServerWorld world, MiningTask task, BlockPos origin, OreCategory category) {
+        LongOpenHashSet visited = new LongOpenHashSet();
+        LongArrayFIFOQueue frontier = new LongArrayFIFOQueue();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        long start = origin.asLong();
+        visited.add(start);
+        frontier.enqueue(start);
+        int found = 0;
+        
+        while (!frontier.isEmpty() && found < VEIN_LIMIT) {
+            long current = frontier.dequeueLong();
+            for (Direction direction : Direction.values()) {
+                long neighbor = BlockPos.offset(current, direction);
+                if (!visited.add(neighbor)) {
+                    continue;
+                }
+                
+                pos.set(neighbor);
+                if (!world.getChunkManager().isChunkLoaded(pos.getX() >> 4, pos.getZ() >> 4)) {
+                    continue;
+                }
+                
+                if (OreLookup.getCategory(world.getBlockState(pos)) == category) {
+                    task.getVeinQueue().enqueue(neighbor);
+                    frontier.enqueue(neighbor);
+                    if (++found >= VEIN_LIMIT) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Verifica se um bloco pode ser quebrado pelo túnel
+     * Não quebra ar, fluidos, blocos indestrutíveis, blocos com block entity, blocos de construção nem blocos vizinhos de fluidos
+     */
+    private boolean canBreak(ServerWorld world, BlockPos pos, BlockState state) {
+        if (state.isAir() || !state.getFluidState().isEmpty() || state.hasBlockEntity() || isBuiltBlock(state)) {
+            return false;
+        }
+        if (state.getHardness(world, pos) < 0) {
+            return false;
+        }
+        
+        // Evita abrir caminho para água ou lava
+        BlockPos.Mutable neighbor = new BlockPos.Mutable();
+        for (Direction direction : Direction.values()) {
+            if (!world.getFluidState(neighbor.set(pos, direction)).isEmpty()) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Verifica se um bloco faz parte de uma construção (casas, caminhos e fazendas da vila, construções de jogadores
+     * ou estruturas como minas abandonadas e fortalezas), e não do terreno natural
+     */
+    private static boolean isBuiltBlock(BlockState state) {
+        return state.isIn(BlockTags.PLANKS) || state.isIn(BlockTags.WOODEN_SLABS) || state.isIn(BlockTags.WOODEN_STAIRS) ||
+               state.isIn(BlockTags.LOGS) || state.isIn(BlockTags.BEDS) || state.isIn(BlockTags.DOORS) ||
+               state.isIn(BlockTags.TRAPDOORS) || state.isIn(BlockTags.FENCES) || state.isIn(BlockTags.FENCE_GATES) ||
+               state.isIn(BlockTags.WALLS) || state.isIn(BlockTags.WOOL) || state.isIn(BlockTags.WOOL_CARPETS) ||
+               state.isIn(BlockTags.IMPERMEABLE) || state.isIn(BlockTags.RAILS) || state.isIn(BlockTags.STONE_BRICKS) ||
+               state.getBlock() instanceof PaneBlock || BUILT_BLOCKS.contains(state.getBlock());
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.village.mining;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plano de um túnel de mineração: uma escada descendo da origem até a altura alvo,
+ * seguida de um corredor principal com galerias laterais (branch mining)
+ * As posições ficam em um array de longs na ordem de escavação, e os trechos entre junções
+ * ficam registrados para serem incorporados à rede de minas da vila
+ */
+public class TunnelPlan {
+    
+    // Dimensões do corredor principal e das galerias laterais
+    private static final int CORRIDOR_LENGTH = 32;
+    private static final int BRANCH_SPACING = 4;
+    private static final int BRANCH_LENGTH = 8;
+    
+    private final long[] blocks;
+    private final BlockPos end;
+    private final List<Segment> segments;
+    
+    private TunnelPlan(long[] blocks, BlockPos end, List<Segment> segments) {
+        this.blocks = blocks;
+        this.end = end;
+        this.segments = segments;
+    }
+    
+    /**
+     * Cria o plano de um túnel
+     * @param origin A posição de entrada (na superfície ou em uma junção da rede de minas)
+     * @param direction A direção horizontal do túnel
+     * @param targetY A altura do corredor principal (sem escada se não estiver abaixo da origem)
+     * @return O plano com todas as posições a escavar
+     */
+    public static TunnelPlan create(BlockPos origin, Direction direction, int targetY) {
+        LongArrayList blocks = new LongArrayList();
+        List<Segment> segments = new ArrayList<>();
+        BlockPos.Mutable pos = origin.mutableCopy();
+        
+        // Escada: avança um bloco e desce um a cada passo, com três blocos de altura para passagem
+        LongArrayList run = new LongArrayList();
+        int runStart = 0;
+        while (pos.getY() > targetY) {
+            pos.move(direction).move(Direction.DOWN);
+            addColumn(blocks, pos, 3);
+            run.add(pos.asLong());
+        }
+        long lastNode = origin.asLong();
+        if (!run.isEmpty()) {
+            segments.add(new Segment(lastNode, pos.asLong(), run.toLongArray(), runStart, blocks.size()));
+            lastNode = pos.asLong();
+            run.clear();
+        }
+        
+        // Corredor principal com galerias laterais a cada BRANCH_SPACING blocos; cada galeria parte de uma junção
+        Direction left = direction.rotateYCounterclockwise();
+        Direction right = direction.rotateYClockwise();
+        for (int step = 1; step <= CORRIDOR_LENGTH; step++) {
+            if (run.isEmpty()) {
+                runStart = blocks.size();
+            }
+            pos.move(direction);
+            addColumn(blocks, pos, 2);
+            run.add(pos.asLong());
+            
+            if (step % BRANCH_SPACING == 0) {
+                segments.add(new Segment(lastNode, pos.asLong(), run.toLongArray(), runStart, blocks.size()));
+                lastNode = pos.asLong();
+                run.clear();
+                segments.add(addBranch(blocks, pos, left));
+                segments.add(addBranch(blocks, pos, right));
+            }
+        }
+        if (!run.isEmpty()) {
+            segments.add(new Segment(lastNode, pos.asLong(), run.toLongArray(), runStart, blocks.size()));
+        }
+        
+        return new TunnelPlan(blocks.toLongArray(), pos.toImmutable(), segments);
+    }
+    
+    /**
+     * Adiciona uma galeria lateral partindo de uma posição do corredor
+     * @return O trecho da junção até o fim da galeria
+     */
+    private static Segment addBranch(LongArrayList blocks, BlockPos start, Direction side) {
+        BlockPos.Mutable pos = start.mutableCopy();
+        int startIndex = blocks.size();
+        long[] path = new long[BRANCH_LENGTH];
+        for (int i = 0; i < BRANCH_LENGTH; i++) {
+            pos.move(side);
+            addColumn(blocks, pos, 2);
+            path[i] = pos.asLong();
+        }
+        return new Segment(start.asLong(), pos.asLong(), path, startIndex, blocks.size());
+    }
+    
+    /**
+     * Adiciona uma coluna de blocos a partir de uma posição, para cima
+     */
+    private static void addColumn(LongArrayList blocks, BlockPos base, int height) {
+        for (int dy = 0; dy < height; dy++) {
+            blocks.add(BlockPos.asLong(base.getX(), base.getY() + dy, base.getZ()));
+        }
+    }
+    
+    /**
+     * Obtém a posição (compactada) de um bloco do plano
+     */
+    public long get(int index) {
+        return blocks[index];
+    }
+    
+    public int size() {
+        return blocks.length;
+    }
+    
+    /**
+     * Obtém a posição final do corredor principal
+     */
+    public BlockPos getEnd() {
+        return end;
+    }
+    
+    /**
+     * Obtém os trechos do túnel entre junções, na ordem de escavação
+     */
+    public List<Segment> getSegments() {
+        return segments;
+    }
+    
+    /**
+     * Trecho de túnel entre duas junções: as posições do piso, da primeira após a origem até o destino,
+     * e o intervalo [startIndex, endIndex) dos blocos do plano que o formam
+     */
+    public static final class Segment {
+        private final long from;
+        private final long to;
+        private final long[] path;
+        private final int startIndex;
+        private final int endIndex;
+        
+        private Segment(long from, long to, long[] path, int startIndex, int endIndex) {
+            this.from = from;
+            this.to = to;
+            this.path = path;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+        }
+        
+        public long getFrom() {
+            return from;
+        }
+        
+        public long getTo() {
+            return to;
+        }
+        
+        public long[] getPath() {
+            return path;
+        }
+        
+        public int getStartIndex() {
+            return startIndex;
+        }
+        
+        public int getEndIndex() {
+            return endIndex;
+        }
+    }
+}
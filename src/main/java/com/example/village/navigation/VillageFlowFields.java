@@ -0,0 +1,365 @@
+package com.example.village.navigation;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.Arrays;
+
+/**
+ * Campos de direção (flow fields) de uma vila
+ * Mantém a altura caminhável de cada coluna em uma grade ao redor do centro da vila e, para cada destino
+ * compartilhado (local de construção, casa, estoque, sino, entrada da mina), um campo com a direção que leva
+ * cada célula um passo mais perto do destino, calculado por uma única busca em largura a partir do destino
+ * Uma mudança de bloco só reamostra a sua coluna; quando a altura muda, só os campos cuja busca alcançou a coluna
+ * ou uma vizinha ficam desatualizados, e são recalculados na próxima consulta
+ */
+public class VillageFlowFields {
+    
+    // Raio da grade ao redor do centro (o raio da vila mais uma margem para quem chega de fora)
+    public static final int GRID_RADIUS = 80;
+    private static final int SIZE = GRID_RADIUS * 2 + 1;
+    private static final int CELLS = SIZE * SIZE;
+    
+    // Limites dos campos mantidos por vila
+    public static final int MAX_FIELDS = 8;
+    private static final long FIELD_TTL = 6000; // 5 minutos sem uso
+    
+    // Intervalo para reamostrar a grade enquanto houver colunas em chunks não carregados
+    private static final long UNKNOWN_REFRESH_INTERVAL = 200; // 10 segundos
+    
+    // Maior diferença de altura entre células vizinhas que um villager consegue vencer
+    private static final int MAX_STEP = 1;
+    
+    // Alturas especiais: coluna em chunk não carregado e coluna não caminhável (líquido na superfície)
+    private static final short UNKNOWN = Short.MIN_VALUE;
+    private static final short BLOCKED = Short.MIN_VALUE + 1;
+    
+    // Direções das células: 4 vizinhos ortogonais seguidos dos 4 diagonais
+    private static final byte NO_DIRECTION = -1;
+    private static final byte AT_DESTINATION = 8;
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DZ = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final byte[] OPPOSITE = {1, 0, 3, 2, 7, 6, 5, 4};
+    
+    // Fila da busca em largura, compartilhada por todas as vilas (o servidor recalcula um campo por vez)
+    private static final int[] QUEUE = new int[CELLS];
+    
+    // Grade de alturas
+    private RegistryKey<World> worldKey = null;
+    private int minX;
+    private int minZ;
+    private final short[] heights = new short[CELLS];
+    private boolean hasUnknownColumns = false;
+    private long lastSampleTick = 0;
+    
+    // Campos por destino (posição compactada)
+    private final Long2ObjectOpenHashMap<FlowField> fields = new Long2ObjectOpenHashMap<>();
+    
+    // Estatísticas
+    private long rebuildCount = 0;
+    private long queryCount = 0;
+    
+    /**
+     * Obtém o ponto de passagem a alguns passos de distância no caminho até um destino
+     * @param world O mundo do servidor
+     * @param center O centro atual da vila
+     * @param from A posição do villager
+     * @param destination O destino compartilhado
+     * @param maxSteps O número máximo de células a avançar
+     * @return O ponto de passagem, ou null se a origem ou o destino estão fora da grade ou não há caminho
+     */
+    public BlockPos getWaypoint(ServerWorld world, BlockPos center, BlockPos from, BlockPos destination, int maxSteps) {
+        ensureGrid(world, center);
+        
+        int start = cellOf(from.getX(), from.getZ());
+        int target = cellOf(destination.getX(), destination.getZ());
+        if (start < 0 || target < 0) {
+            return null;
+        }
+        
+        queryCount++;
+        FlowField field = getField(destination.asLong(), target, world.getTime());
+        if (field.stale) {
+            rebuild(field);
+        }
+        
+        int cell = start;
+        if (field.directions[cell] == NO_DIRECTION) {
+            return null; // O villager não está em uma célula ligada ao destino
+        }
+        
+        for (int step = 0; step < maxSteps; step++) {
+            byte direction = field.directions[cell];
+            if (direction == AT_DESTINATION || direction == NO_DIRECTION) {
+                break;
+            }
+            cell += DZ[direction] * SIZE + DX[direction];
+        }
+        
+        int x = minX + cell % SIZE;
+        int z = minZ + cell / SIZE;
+        return new BlockPos(x, heights[cell], z);
+    }
+    
+    /**
+     * Reamostra a coluna de um bloco que mudou, se a mudança pode alterar a superfície caminhável
+     * Se a altura da coluna mudou, marca como desatualizados apenas os campos afetados
+     * @param world O mundo do servidor
+     * @param pos A posição do bloco
+     * @param oldState O estado anterior
+     * @param newState O novo estado
+     */
+    public void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        if (worldKey == null || worldKey != world.getRegistryKey()) {
+            return;
+        }
+        
+        int cell = cellOf(pos.getX(), pos.getZ());
+        if (cell < 0) {
+            return;
+        }
+        
+        // Mesmo critério do heightmap MOTION_BLOCKING: bloqueia movimento ou contém líquido
+        boolean oldBlocking = oldState.blocksMovement() || !oldState.getFluidState().isEmpty();
+        boolean newBlocking = newState.blocksMovement() || !newState.getFluidState().isEmpty();
+        if (oldBlocking == newBlocking && oldState.getFluidState().isEmpty() == newState.getFluidState().isEmpty()) {
+            return;
+        }
+        
+        short height = sampleColumn(world, pos.getX(), pos.getZ(), new BlockPos.Mutable());
+        if (height != heights[cell]) {
+            heights[cell] = height;
+            markAffectedFields(cell);
+        }
+    }
+    
+    /**
+     * Marca como desatualizados os campos cuja busca alcançou uma célula ou uma das suas vizinhas
+     * A altura de uma célula só entra nos passos que partem de uma célula alcançada vizinha a ela (inclusive a
+     * verificação de cantos dos passos diagonais), então os demais campos continuam válidos
+     */
+    private void markAffectedFields(int cell) {
+        int x = cell % SIZE;
+        int z = cell / SIZE;
+        for (FlowField field : fields.values()) {
+            if (field.stale || field.target == cell) {
+                field.stale = true;
+                continue;
+            }
+            
+            for (int dz = -1; dz <= 1 && !field.stale; dz++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = x + dx;
+                    int nz = z + dz;
+                    if (nx >= 0 && nz >= 0 && nx < SIZE && nz < SIZE && field.directions[nz * SIZE + nx] != NO_DIRECTION) {
+                        field.stale = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+    
+    public int getFieldCount() {
+        return fields.size();
+    }
+    
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+    
+    public long getQueryCount() {
+        return queryCount;
+    }
+    
+    /**
+     * Posiciona a grade no centro da vila e amostra as alturas quando necessário
+     */
+    private void ensureGrid(ServerWorld world, BlockPos center) {
+        int expectedMinX = center.getX() - GRID_RADIUS;
+        int expectedMinZ = center.getZ() - GRID_RADIUS;
+        if (worldKey != world.getRegistryKey() || minX != expectedMinX || minZ != expectedMinZ) {
+            // Primeiro uso, ou o centro da vila mudou: a grade e os campos são refeitos
+            worldKey = world.getRegistryKey();
+            minX = expectedMinX;
+            minZ = expectedMinZ;
+            fields.clear();
+            sampleAll(world);
+        } else if (hasUnknownColumns && world.getTime() - lastSampleTick >= UNKNOWN_REFRESH_INTERVAL) {
+            // Alguns chunks não estavam carregados na última amostragem
+            if (sampleAll(world)) {
+                for (FlowField field : fields.values()) {
+                    field.stale = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Amostra a altura de todas as colunas da grade a partir dos heightmaps dos chunks carregados
+     * @return true se alguma altura mudou
+     */
+    private boolean sampleAll(ServerWorld world) {
+        BlockPos.Mutable mutable = new BlockPos.Mutable();
+        boolean changed = false;
+        hasUnknownColumns = false;
+        
+        for (int dz = 0; dz < SIZE; dz++) {
+            for (int dx = 0; dx < SIZE; dx++) {
+                int cell = dz * SIZE + dx;
+                short height = sampleColumn(world, minX + dx, minZ + dz, mutable);
+                if (height != heights[cell]) {
+                    heights[cell] = height;
+                    changed = true;
+                }
+                hasUnknownColumns |= height == UNKNOWN;
+            }
+        }
+        
+        lastSampleTick = world.getTime();
+        return changed;
+    }
+    
+    /**
+     * Obtém a altura em que um villager fica de pé em uma coluna, sem forçar o carregamento do chunk
+     */
+    private static short sampleColumn(ServerWorld world, int x, int z, BlockPos.Mutable mutable) {
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(x >> 4, z >> 4);
+        if (chunk == null) {
+            return UNKNOWN;
+        }
+        
+        int y = chunk.sampleHeightmap(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x & 15, z & 15);
+        if (!chunk.getFluidState(mutable.set(x, y - 1, z)).isEmpty()) {
+            return BLOCKED; // Superfície de água ou lava
+        }
+        return (short) y;
+    }
+    
+    /**
+     * Obtém o campo de um destino, criando-o se necessário e descartando os campos sem uso
+     */
+    private FlowField getField(long key, int target, long now) {
+        FlowField field = fields.get(key);
+        if (field == null) {
+            evictFields(now);
+            field = new FlowField(target);
+            fields.put(key, field);
+        }
+        field.lastUsed = now;
+        return field;
+    }
+    
+    /**
+     * Descarta os campos sem uso há mais de FIELD_TTL ticks e, se ainda não houver espaço, o menos usado recentemente
+     */
+    private void evictFields(long now) {
+        ObjectIterator<Long2ObjectMap.Entry<FlowField>> iterator = fields.long2ObjectEntrySet().fastIterator();
+        long oldestKey = 0;
+        long oldestUse = Long.MAX_VALUE;
+        while (iterator.hasNext()) {
+            Long2ObjectMap.Entry<FlowField> entry = iterator.next();
+            if (now - entry.getValue().lastUsed > FIELD_TTL) {
+                iterator.remove();
+            } else if (entry.getValue().lastUsed < oldestUse) {
+                oldestUse = entry.getValue().lastUsed;
+                oldestKey = entry.getLongKey();
+            }
+        }
+        
+        if (fields.size() >= MAX_FIELDS) {
+            fields.remove(oldestKey);
+        }
+    }
+    
+    /**
+     * Recalcula um campo com uma busca em largura a partir do destino sobre as células caminháveis
+     * Cada célula alcançada guarda a direção da célula pela qual foi alcançada
+     */
+    private void rebuild(FlowField field) {
+        byte[] directions = field.directions;
+        Arrays.fill(directions, NO_DIRECTION);
+        field.stale = false;
+        rebuildCount++;
+        
+        if (!isWalkable(heights[field.target])) {
+            return; // Destino em chunk não carregado ou dentro de líquido
+        }
+        
+        directions[field.target] = AT_DESTINATION;
+        QUEUE[0] = field.target;
+        int head = 0;
+        int tail = 1;
+        
+        while (head < tail) {
+            int cell = QUEUE[head++];
+            int x = cell % SIZE;
+            int z = cell / SIZE;
+            int height = heights[cell];
+            
+            for (int direction = 0; direction < DX.length; direction++) {
+                int nx = x + DX[direction];
+                int nz = z + DZ[direction];
+                if (nx < 0 || nz < 0 || nx >= SIZE || nz >= SIZE) {
+                    continue;
+                }
+                
+                int next = nz * SIZE + nx;
+                if (directions[next] != NO_DIRECTION || !canStep(height, heights[next])) {
+                    continue;
+                }
+                
+                // Passos diagonais não cortam cantos: as duas células ortogonais também precisam ser caminháveis
+                if (direction >= 4 && (!canStep(height, heights[z * SIZE + nx]) || !canStep(height, heights[nz * SIZE + x]))) {
+                    continue;
+                }
+                
+                directions[next] = OPPOSITE[direction];
+                QUEUE[tail++] = next;
+            }
+        }
+    }
+    
+    private static boolean isWalkable(short height) {
+        return height != UNKNOWN && height != BLOCKED;
+    }
+    
+    private static boolean canStep(int from, short to) {
+        return isWalkable(to) && Math.abs(to - from) <= MAX_STEP;
+    }
+    
+    /**
+     * Obtém o índice da célula de uma coluna
+     * @return O índice, ou -1 se a coluna estiver fora da grade
+     */
+    private int cellOf(int x, int z) {
+        int dx = x - minX;
+        int dz = z - minZ;
+        if (dx < 0 || dz < 0 || dx >= SIZE || dz >= SIZE) {
+            return -1;
+        }
+        return dz * SIZE + dx;
+    }
+    
+    /**
+     * Campo de direções em direção a um destino
+     */
+    private static final class FlowField {
+        private final int target;
+        private final byte[] directions = new byte[CELLS];
+        private boolean stale = true;
+        private long lastUsed;
+        
+        private FlowField(int target) {
+            this.target = target;
+        }
+    }
+}
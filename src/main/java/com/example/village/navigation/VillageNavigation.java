@@ -0,0 +1,71 @@
+package com.example.village.navigation;
+
+import com.example.VillagerExpansionMod;
+import com.example.village.VillageData;
+import net.minecraft.entity.ai.brain.MemoryModuleType;
+import net.minecraft.entity.ai.brain.WalkTarget;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.Heightmap;
+
+/**
+ * Movimentação dos villagers até destinos compartilhados
+ * Dentro da área de uma vila os villagers seguem o campo de direção da vila até o destino;
+ * fora dela seguem em linha reta, um trecho curto de cada vez
+ * Em ambos os casos o villager recebe apenas um alvo próximo, que o pathfinding vanilla percorre com um caminho curto
+ */
+public class VillageNavigation {
+    
+    // Células avançadas no campo de direção a cada novo alvo
+    private static final int LOOKAHEAD = 8;
+    
+    // Distância máxima de cada trecho em linha reta fora da área das vilas
+    private static final int DIRECT_STEP = 16;
+    
+    private static final float WALK_SPEED = 0.6f;
+    
+    /**
+     * Move um villager em direção a um destino
+     * @param villager O villager
+     * @param world O mundo do servidor
+     * @param destination O destino
+     * @return true se o villager recebeu um alvo pelo campo de direção da vila, false se seguiu em linha reta
+     */
+    public static boolean moveTowards(VillagerEntity villager, ServerWorld world, BlockPos destination) {
+        BlockPos from = villager.getBlockPos();
+        BlockPos waypoint = null;
+        
+        // Usa o campo da vila que contém o destino
+        for (VillageData village : VillagerExpansionMod.getExpansionManager().getVillages()) {
+            if (village.isInRange(destination)) {
+                waypoint = village.getFlowFields().getWaypoint(world, village.getCenter(), from, destination, LOOKAHEAD);
+                break;
+            }
+        }
+        
+        boolean followingField = waypoint != null;
+        if (!followingField) {
+            waypoint = directStep(world, from, destination);
+        }
+        
+        villager.getBrain().remember(MemoryModuleType.WALK_TARGET, new WalkTarget(waypoint, WALK_SPEED, 1));
+        return followingField;
+    }
+    
+    /**
+     * Obtém o ponto a no máximo DIRECT_STEP blocos de distância na linha reta até o destino, na superfície
+     */
+    private static BlockPos directStep(ServerWorld world, BlockPos from, BlockPos destination) {
+        int dx = destination.getX() - from.getX();
+        int dz = destination.getZ() - from.getZ();
+        double distance = Math.sqrt((double) dx * dx + (double) dz * dz);
+        if (distance <= DIRECT_STEP) {
+            return destination;
+        }
+        
+        int x = from.getX() + (int) Math.round(dx * DIRECT_STEP / distance);
+        int z = from.getZ() + (int) Math.round(dz * DIRECT_STEP / distance);
+        return new BlockPos(x, world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x, z), z);
+    }
+}
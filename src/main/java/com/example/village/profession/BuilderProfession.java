@@ -6,54 +6,105 @@ import com.example.village.BuildingType;
 import com.example.village.VillageData;
 import com.example.village.builder.BuildTask;
 import com.example.village.inventory.VillagerInventorySystem;
+import com.example.village.navigation.VillageNavigation;
 import net.minecraft.block.BedBlock;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.passive.VillagerEntity;
-import net.minecraft.inventory.SimpleInventory;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.random.Random;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
  * Implementação da profissão de Construtor para villagers
  * Os construtores são responsáveis por expandir a vila, construindo novas casas
  * e fabricando/colocando camas para permitir o crescimento populacional
+ * O estado de todos os construtores fica nas colunas desta tabela, indexadas pela linha do villager
  */
-public class BuilderProfession implements VillagerProfession {
+public class BuilderProfession extends ProfessionTable {
     
+    // Fluxo aleatório compartilhado por todos os construtores
     private final Random random = Random.create();
-    private boolean hasEquipment = false;
-    private int buildCooldown = 0;
     private static final int BUILD_INTERVAL = 300; // 15 segundos
+    private static final int RESOURCE_GATHER_INTERVAL = 200; // 10 segundos
     
-    // Estado de construção atual
-    private boolean isBuilding = false;
-    private BlockPos currentBuildPos = null;
-    private int buildProgress = 0;
+    // Recursos necessários para construção
+    private static final Item[] REQUIRED_ITEMS = {Items.OAK_PLANKS, Items.COBBLESTONE};
+    private static final int[] REQUIRED_COUNTS = {10, 15};
     
-    // Estado de colocação de cama
-    private boolean isPlacingBed = false;
-    private BlockPos targetHousePos = null;
+    // Posição ausente nas colunas de posições
+    private static final long NO_POS = Long.MIN_VALUE;
     
-    // Estado de busca de recursos
-    private boolean isGatheringResources = false;
-    private int resourceGatherCooldown = 0;
-    private static final int RESOURCE_GATHER_INTERVAL = 200; // 10 segundos
+    private static final int FLAG_BUILDING = FIRST_PROFESSION_FLAG;
+    private static final int FLAG_PLACING_BED = FIRST_PROFESSION_FLAG << 1;
+    private static final int FLAG_GATHERING_RESOURCES = FIRST_PROFESSION_FLAG << 2;
+    private static final int FLAG_HAS_REQUIRED_RESOURCES = FIRST_PROFESSION_FLAG << 3;
     
-    // Recursos necessários para construção
-    private final Map<Item, Integer> requiredResources = new HashMap<>();
-    private boolean hasRequiredResources = false;
+    // Colunas da profissão: cooldowns, construção atual e casa que recebe camas
+    private int[] buildCooldowns = new int[INITIAL_CAPACITY];
+    private int[] resourceGatherCooldowns = new int[INITIAL_CAPACITY];
+    private byte[] buildProgress = new byte[INITIAL_CAPACITY];
+    private long[] currentBuildPositions = new long[INITIAL_CAPACITY];
+    private long[] targetHousePositions = new long[INITIAL_CAPACITY];
+    
+    @Override
+    protected void growColumns(int capacity) {
+        buildCooldowns = Arrays.copyOf(buildCooldowns, capacity);
+        resourceGatherCooldowns = Arrays.copyOf(resourceGatherCooldowns, capacity);
+        buildProgress = Arrays.copyOf(buildProgress, capacity);
+        currentBuildPositions = Arrays.copyOf(currentBuildPositions, capacity);
+        targetHousePositions = Arrays.copyOf(targetHousePositions, capacity);
+    }
+    
+    @Override
+    protected void moveColumns(int from, int to) {
+        buildCooldowns[to] = buildCooldowns[from];
+        resourceGatherCooldowns[to] = resourceGatherCooldowns[from];
+        buildProgress[to] = buildProgress[from];
+        currentBuildPositions[to] = currentBuildPositions[from];
+        targetHousePositions[to] = targetHousePositions[from];
+    }
+    
+    @Override
+    protected void clearColumns(int row) {
+        buildCooldowns[row] = 0;
+        resourceGatherCooldowns[row] = 0;
+        buildProgress[row] = 0;
+        currentBuildPositions[row] = NO_POS;
+        targetHousePositions[row] = NO_POS;
+    }
+    
+    @Override
+    protected void writeColumns(int row, NbtCompound nbt) {
+        nbt.putInt("BuildCooldown", buildCooldowns[row]);
+        nbt.putInt("ResourceGatherCooldown", resourceGatherCooldowns[row]);
+        nbt.putByte("BuildProgress", buildProgress[row]);
+        nbt.putLong("BuildPos", currentBuildPositions[row]);
+        nbt.putLong("HousePos", targetHousePositions[row]);
+    }
+    
+    @Override
+    protected void readColumns(int row, NbtCompound nbt) {
+        buildCooldowns[row] = nbt.getInt("BuildCooldown", 0);
+        resourceGatherCooldowns[row] = nbt.getInt("ResourceGatherCooldown", 0);
+        buildProgress[row] = nbt.getByte("BuildProgress", (byte) 0);
+        currentBuildPositions[row] = nbt.getLong("BuildPos", NO_POS);
+        targetHousePositions[row] = nbt.getLong("HousePos", NO_POS);
+    }
+    
+    private static BlockPos toPos(long packed) {
+        return packed == NO_POS ? null : BlockPos.fromLong(packed);
+    }
     
     @Override
     public String getName() {
@@ -61,68 +112,66 @@ public class BuilderProfession implements VillagerProfession {
     }
     
     @Override
-    public void onTick(VillagerEntity villager, ServerWorld world) {
+    public void onTick(int row, VillagerEntity villager, ServerWorld world) {
         // Equipa o villager com ferramentas de construção se ainda não estiver equipado
-        if (!hasEquipment) {
+        if (!hasFlag(row, FLAG_HAS_EQUIPMENT)) {
             equipBuilder(villager);
-            hasEquipment = true;
+            setFlag(row, FLAG_HAS_EQUIPMENT, true);
         }
         
         // Tenta equipar armaduras do inventário
         VillagerInventorySystem.equipArmorFromInventory(villager);
         
         // Se já está construindo ou colocando cama, continua a tarefa
-        if (isBuilding) {
-            continueBuildingTask(villager, world);
+        if (hasFlag(row, FLAG_BUILDING)) {
+            continueBuildingTask(row, villager, world);
             return;
         }
         
-        if (isPlacingBed) {
-            continuePlacingBed(villager, world);
+        if (hasFlag(row, FLAG_PLACING_BED)) {
+            continuePlacingBed(row, villager, world);
             return;
         }
         
         // Se está buscando recursos, continua essa tarefa
-        if (isGatheringResources) {
-            gatherResourcesFromChests(villager, world);
+        if (hasFlag(row, FLAG_GATHERING_RESOURCES)) {
+            gatherResourcesFromChests(row, villager, world);
             return;
         }
         
         // Verifica se precisa buscar recursos
-        resourceGatherCooldown--;
-        if (resourceGatherCooldown <= 0) {
-            if (!hasRequiredResources) {
-                // Define os recursos necessários para construção
-                requiredResources.clear();
-                requiredResources.put(Items.OAK_PLANKS, 10);
-                requiredResources.put(Items.COBBLESTONE, 15);
-                
-                // Inicia a busca por recursos
-                isGatheringResources = true;
+        if (--resourceGatherCooldowns[row] <= 0) {
+            if (!hasFlag(row, FLAG_HAS_REQUIRED_RESOURCES)) {
+                // Inicia a busca pelos recursos necessários para construção
+                setFlag(row, FLAG_GATHERING_RESOURCES, true);
                 VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " está buscando recursos para construção");
                 return;
             }
-            resourceGatherCooldown = RESOURCE_GATHER_INTERVAL;
+            resourceGatherCooldowns[row] = RESOURCE_GATHER_INTERVAL;
         }
         
         // Tenta iniciar uma nova tarefa de construção ou colocação de cama
-        buildCooldown--;
-        if (buildCooldown <= 0) {
-            if (!tryPlaceBed(villager, world)) {
-                tryStartBuilding(villager, world);
+        if (--buildCooldowns[row] <= 0) {
+            if (!tryPlaceBed(row, villager, world)) {
+                tryStartBuilding(row, villager, world);
             }
-            buildCooldown = BUILD_INTERVAL;
+            buildCooldowns[row] = BUILD_INTERVAL;
         }
     }
     
     @Override
-    public boolean canStoreItems(VillagerEntity villager, ServerWorld world) {
-        // Verifica se o villager tem itens para armazenar
-        return !villager.getInventory().isEmpty();
+    public boolean canStoreItems(int row, VillagerEntity villager, ServerWorld world) {
+        // Não devolve ao baú os materiais que está juntando (ou já juntou) para a próxima construção
+        if (hasFlag(row, FLAG_GATHERING_RESOURCES) || hasFlag(row, FLAG_HAS_REQUIRED_RESOURCES)) {
+            return false;
+        }
+        
+        // Verifica se o villager tem itens para armazenar no inventário estendido
+        return !VillagerInventorySystem.getInventory(villager).isEmpty();
     }
     
     @Override
-    public boolean storeItems(VillagerEntity villager, ServerWorld world) {
+    public boolean storeItems(int row, VillagerEntity villager, ServerWorld world) {
         // Usa o sistema de inventário para armazenar itens
         return VillagerInventorySystem.storeItemsInChest(villager, world);
     }
@@ -149,10 +198,11 @@ public class BuilderProfession implements VillagerProfession {
     
     /**
      * Tenta iniciar uma tarefa de construção
+     * @param row A linha do villager
      * @param villager O villager construtor
      * @param world O mundo do servidor
      */
-    private void tryStartBuilding(VillagerEntity villager, ServerWorld world) {
+    private void tryStartBuilding(int row, VillagerEntity villager, ServerWorld world) {
         // Encontra a vila do villager
         VillageData villagerVillage = null;
         UUID villagerId = villager.getUuid();
@@ -169,72 +219,85 @@ public class BuilderProfession implements VillagerProfession {
         }
         
         // Verifica se tem os recursos necessários para construção
-        if (!hasRequiredResources) {
+        if (!hasFlag(row, FLAG_HAS_REQUIRED_RESOURCES)) {
             VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " não tem recursos suficientes para construção");
             return;
         }
         
+        // Confere se os materiais ainda estão no inventário antes de começar a obra
+        for (int i = 0; i < REQUIRED_ITEMS.length; i++) {
+            if (!VillagerInventorySystem.hasItem(villager, REQUIRED_ITEMS[i], REQUIRED_COUNTS[i])) {
+                VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " perdeu parte dos recursos, voltando a buscá-los");
+                setFlag(row, FLAG_HAS_REQUIRED_RESOURCES, false);
+                return;
+            }
+        }
+        
         // Verifica se a vila precisa de mais casas
         if (villagerVillage.needsMoreHouses()) {
             // Encontra um local adequado para construção
             BlockPos buildLocation = findBuildLocation(villagerVillage, world);
             if (buildLocation != null) {
-                // Inicia a construção de uma nova casa
-                isBuilding = true;
-                currentBuildPos = buildLocation;
-                buildProgress = 0;
-                VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " iniciou construção de casa em " + buildLocation);
-                
-                // Consome os recursos do inventário
-                SimpleInventory inventory = VillagerInventorySystem.getInventory(villager);
-                for (Map.Entry<Item, Integer> entry : requiredResources.entrySet()) {
-                    VillagerInventorySystem.removeItem(villager, entry.getKey(), entry.getValue());
+                // Consome os recursos do inventário; sem eles a obra não começa
+                setFlag(row, FLAG_HAS_REQUIRED_RESOURCES, false);
+                for (int i = 0; i < REQUIRED_ITEMS.length; i++) {
+                    if (!VillagerInventorySystem.removeItem(villager, REQUIRED_ITEMS[i], REQUIRED_COUNTS[i])) {
+                        return;
+                    }
                 }
                 
-                // Reseta o estado de recursos
-                hasRequiredResources = false;
+                // Inicia a construção de uma nova casa
+                setFlag(row, FLAG_BUILDING, true);
+                currentBuildPositions[row] = buildLocation.asLong();
+                buildProgress[row] = 0;
+                VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " iniciou construção de casa em " + buildLocation);
             }
         }
     }
     
     /**
      * Continua uma tarefa de construção em andamento
+     * @param row A linha do villager
      * @param villager O villager construtor
      * @param world O mundo do servidor
      */
-    private void continueBuildingTask(VillagerEntity villager, ServerWorld world) {
+    private void continueBuildingTask(int row, VillagerEntity villager, ServerWorld world) {
+        BlockPos currentBuildPos = toPos(currentBuildPositions[row]);
         if (currentBuildPos == null) {
-            isBuilding = false;
+            setFlag(row, FLAG_BUILDING, false);
             return;
         }
         
         // Verifica se o villager está próximo do local de construção
         double distanceToBuild = villager.getBlockPos().getSquaredDistance(currentBuildPos);
         if (distanceToBuild > 100) { // Mais de 10 blocos de distância
-            // Villager está longe do local de construção, tenta se aproximar
-            // Em uma implementação completa, usaríamos pathfinding para mover o villager
+            // Villager está longe do local de construção, segue o campo de direção da vila até ele
+            VillageNavigation.moveTowards(villager, world, currentBuildPos);
             VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " se aproximando do local de construção em " + currentBuildPos);
             return;
         }
         
         // Simula o progresso da construção
-        buildProgress += 5; // Incrementa o progresso em 5%
+        buildProgress[row] += 5; // Incrementa o progresso em 5%
         
-        if (buildProgress >= 100) {
+        if (buildProgress[row] >= 100) {
             // Construção concluída
-            finishBuilding(villager, world);
+            finishBuilding(row, villager, world);
         } else {
             // Ainda construindo
-            VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " progresso da construção: " + buildProgress + "%");
+            VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " progresso da construção: " + buildProgress[row] + "%");
         }
     }
     
     /**
      * Finaliza a construção de uma casa
+     * @param row A linha do villager
      * @param villager O villager construtor
      * @param world O mundo do servidor
      */
-    private void finishBuilding(VillagerEntity villager, ServerWorld world) {
+    private void finishBuilding(int row, VillagerEntity villager, ServerWorld world) {
+        BlockPos currentBuildPos = toPos(currentBuildPositions[row]);
+        
         // Encontra a vila do villager
         VillageData villagerVillage = null;
         UUID villagerId = villager.getUuid();
@@ -247,8 +310,8 @@ public class BuilderProfession implements VillagerProfession {
         }
         
         if (villagerVillage == null) {
-            isBuilding = false;
-            currentBuildPos = null;
+            setFlag(row, FLAG_BUILDING, false);
+            currentBuildPositions[row] = NO_POS;
             return;
         }
         
@@ -271,19 +334,20 @@ public class BuilderProfession implements VillagerProfession {
         VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " concluiu construção de casa em " + currentBuildPos);
         
         // Prepara para colocar camas na nova casa
-        isBuilding = false;
-        isPlacingBed = true;
-        targetHousePos = currentBuildPos;
-        currentBuildPos = null;
+        setFlag(row, FLAG_BUILDING, false);
+        setFlag(row, FLAG_PLACING_BED, true);
+        targetHousePositions[row] = currentBuildPositions[row];
+        currentBuildPositions[row] = NO_POS;
     }
     
     /**
      * Tenta colocar uma cama em uma casa existente
+     * @param row A linha do villager
      * @param villager O villager construtor
      * @param world O mundo do servidor
      * @return true se iniciou a colocação de cama, false caso contrário
      */
-    private boolean tryPlaceBed(VillagerEntity villager, ServerWorld world) {
+    private boolean tryPlaceBed(int row, VillagerEntity villager, ServerWorld world) {
         // Encontra a vila do villager
         VillageData villagerVillage = null;
         UUID villagerId = villager.getUuid();
@@ -303,9 +367,9 @@ public class BuilderProfession implements VillagerProfession {
         for (BuildingData building : villagerVillage.getBuildings()) {
             if (building.getType() == BuildingType.HOUSE && building.isCompleted() && building.getBedCount() < 2) {
                 // Encontrou uma casa que precisa de camas
-                isPlacingBed = true;
-                targetHousePos = building.getPosition();
-                VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " vai colocar cama em casa em " + targetHousePos);
+                setFlag(row, FLAG_PLACING_BED, true);
+                targetHousePositions[row] = building.getPosition().asLong();
+                VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " vai colocar cama em casa em " + building.getPosition());
                 return true;
             }
         }
@@ -315,20 +379,22 @@ public class BuilderProfession implements VillagerProfession {
     
     /**
      * Continua a tarefa de colocar cama em uma casa
+     * @param row A linha do villager
      * @param villager O villager construtor
      * @param world O mundo do servidor
      */
-    private void continuePlacingBed(VillagerEntity villager, ServerWorld world) {
+    private void continuePlacingBed(int row, VillagerEntity villager, ServerWorld world) {
+        BlockPos targetHousePos = toPos(targetHousePositions[row]);
         if (targetHousePos == null) {
-            isPlacingBed = false;
+            setFlag(row, FLAG_PLACING_BED, false);
             return;
         }
         
         // Verifica se o villager está próximo da casa
         double distanceToHouse = villager.getBlockPos().getSquaredDistance(targetHousePos);
         if (distanceToHouse > 100) { // Mais de 10 blocos de distância
-            // Villager está longe da casa, tenta se aproximar
-            // Em uma implementação completa, usaríamos pathfinding para mover o villager
+            // Villager está longe da casa, segue o campo de direção da vila até ela
+            VillageNavigation.moveTowards(villager, world, targetHousePos);
             VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " se aproximando da casa em " + targetHousePos);
             return;
         }
@@ -345,8 +411,7 @@ public class BuilderProfession implements VillagerProfession {
         }
         
         if (villagerVillage == null) {
-            isPlacingBed = false;
-            targetHousePos = null;
+            stopPlacingBed(row);
             return;
         }
         
@@ -361,8 +426,7 @@ public class BuilderProfession implements VillagerProfession {
         
         if (targetHouse == null || targetHouse.getBedCount() >= 2) {
             // Casa não encontrada ou já tem camas suficientes
-            isPlacingBed = false;
-            targetHousePos = null;
+            stopPlacingBed(row);
             return;
         }
         
@@ -380,17 +444,23 @@ public class BuilderProfession implements VillagerProfession {
             
             // Verifica se a casa já tem camas suficientes
             if (targetHouse.getBedCount() >= 2) {
-                isPlacingBed = false;
-                targetHousePos = null;
+                stopPlacingBed(row);
             }
         } else {
             // Não encontrou um local adequado para a cama
             VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " não encontrou local para cama na casa em " + targetHousePos);
-            isPlacingBed = false;
-            targetHousePos = null;
+            stopPlacingBed(row);
         }
     }
     
+    /**
+     * Encerra a colocação de camas
+     */
+    private void stopPlacingBed(int row) {
+        setFlag(row, FLAG_PLACING_BED, false);
+        targetHousePositions[row] = NO_POS;
+    }
+    
     /**
      * Encontra um local adequado para construção
      * @param village A vila
@@ -548,65 +618,54 @@ public class BuilderProfession implements VillagerProfession {
     
     /**
      * Busca recursos em baús próximos para construção
+     * @param row A linha do villager
      * @param villager O villager construtor
      * @param world O mundo do servidor
      */
-    private void gatherResourcesFromChests(VillagerEntity villager, ServerWorld world) {
-        BlockPos villagerPos = villager.getBlockPos();
-        int searchRadius = 16;
+    private void gatherResourcesFromChests(int row, VillagerEntity villager, ServerWorld world) {
+        VillageData villagerVillage = VillagerExpansionMod.getExpansionManager().findVillageOf(villager.getUuid());
         boolean foundAllResources = true;
         
         // Verifica quais recursos ainda são necessários
-        for (Map.Entry<Item, Integer> entry : requiredResources.entrySet()) {
-            Item resourceItem = entry.getKey();
-            int requiredAmount = entry.getValue();
+        for (int i = 0; i < REQUIRED_ITEMS.length; i++) {
+            Item resourceItem = REQUIRED_ITEMS[i];
+            int requiredAmount = REQUIRED_COUNTS[i];
             
             // Verifica se já tem o recurso no inventário
-            if (VillagerInventorySystem.hasItem(villager, resourceItem, requiredAmount)) {
+            int missing = requiredAmount - VillagerInventorySystem.countItem(villager, resourceItem);
+            if (missing <= 0) {
                 continue; // Já tem este recurso
             }
             
-            // Não tem o recurso, tenta encontrar em baús
-            foundAllResources = false;
+            // Consulta o estoque da vila antes de ir aos baús
+            if (villagerVillage != null && villagerVillage.getStockIndex().getChestCount() > 0 && 
+                !villagerVillage.getStockIndex().hasItem(resourceItem, 1)) {
+                foundAllResources = false;
+                continue; // A vila não tem este recurso em nenhum baú registrado
+            }
             
-            // Procura por baús em um raio ao redor do villager
-            boolean foundResource = false;
-            for (int x = -searchRadius; x <= searchRadius && !foundResource; x++) {
-                for (int y = -3; y <= 3 && !foundResource; y++) {
-                    for (int z = -searchRadius; z <= searchRadius && !foundResource; z++) {
-                        BlockPos pos = villagerPos.add(x, y, z);
-                        
-                        // Verifica se o bloco é um baú
-                        if (world.getBlockState(pos).getBlock().equals(net.minecraft.block.Blocks.CHEST)) {
-                            // Simula a busca pelo recurso no baú
-                            // Em uma implementação completa, verificaríamos o inventário real do baú
-                            if (random.nextFloat() < 0.6f) { // 60% de chance de encontrar o recurso
-                                // Encontrou o recurso, adiciona ao inventário do villager
-                                int foundAmount = random.nextInt(requiredAmount) + 1; // 1 até o necessário
-                                VillagerInventorySystem.addItemToInventory(villager, resourceItem, foundAmount);
-                                
-                                VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + 
-                                                              " encontrou " + foundAmount + "x " + 
-                                                              resourceItem.getName().getString() + 
-                                                              " em um baú em " + pos);
-                                
-                                foundResource = true;
-                            }
-                        }
-                    }
-                }
+            // Requisita o recurso dos baús mais próximos que o guardam
+            int foundAmount = VillagerInventorySystem.findItemInChests(villager, world, resourceItem, missing);
+            if (foundAmount > 0) {
+                VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + 
+                                              " encontrou " + foundAmount + "x " + 
+                                              resourceItem.getName().getString() + " nos baús da vila");
+            }
+            
+            if (foundAmount < missing) {
+                foundAllResources = false;
             }
         }
         
         // Verifica se encontrou todos os recursos necessários
         if (foundAllResources) {
-            isGatheringResources = false;
-            hasRequiredResources = true;
+            setFlag(row, FLAG_GATHERING_RESOURCES, false);
+            setFlag(row, FLAG_HAS_REQUIRED_RESOURCES, true);
             VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " reuniu todos os recursos necessários para construção");
         } else {
             // Não encontrou todos os recursos, continua procurando na próxima vez
-            isGatheringResources = false;
-            resourceGatherCooldown = RESOURCE_GATHER_INTERVAL / 2; // Tenta novamente em metade do tempo
+            setFlag(row, FLAG_GATHERING_RESOURCES, false);
+            resourceGatherCooldowns[row] = RESOURCE_GATHER_INTERVAL / 2; // Tenta novamente em metade do tempo
             VillagerExpansionMod.LOGGER.info("Construtor " + villager.getUuid() + " não encontrou todos os recursos necessários");
         }
     }
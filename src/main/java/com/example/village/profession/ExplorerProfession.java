@@ -3,13 +3,15 @@ package com.example.village.profession;
 import com.example.VillagerExpansionMod;
 import com.example.village.VillageData;
 import com.example.village.exploration.ExplorationTask;
+import com.example.village.inventory.VillagerInventorySystem;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.BlockPos;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
@@ -17,74 +19,87 @@ import java.util.UUID;
 /**
  * Implementação da profissão de Explorador para villagers
  * Os exploradores descobrem novas áreas, coletam recursos e encontram locais de interesse
+ * O estado de todos os exploradores fica nas colunas desta tabela, indexadas pela linha do villager
  */
-public class ExplorerProfession implements VillagerProfession {
+public class ExplorerProfession extends ProfessionTable {
     
+    // Fluxo aleatório compartilhado por todos os exploradores
     private final Random random = new Random();
-    private boolean hasEquipment = false;
-    private UUID currentTaskId = null;
-    private boolean isExploring = false;
-    private int explorationCooldown = 0;
     private static final int EXPLORATION_INTERVAL = 400; // 20 segundos
     
+    private static final int FLAG_EXPLORING = FIRST_PROFESSION_FLAG;
+    
+    // Colunas da profissão
+    private UUID[] currentTaskIds = new UUID[INITIAL_CAPACITY];
+    private int[] explorationCooldowns = new int[INITIAL_CAPACITY];
+    
+    @Override
+    protected void growColumns(int capacity) {
+        currentTaskIds = Arrays.copyOf(currentTaskIds, capacity);
+        explorationCooldowns = Arrays.copyOf(explorationCooldowns, capacity);
+    }
+    
+    @Override
+    protected void moveColumns(int from, int to) {
+        currentTaskIds[to] = currentTaskIds[from];
+        explorationCooldowns[to] = explorationCooldowns[from];
+    }
+    
+    @Override
+    protected void clearColumns(int row) {
+        currentTaskIds[row] = null;
+        explorationCooldowns[row] = 0;
+    }
+    
+    @Override
+    protected void writeColumns(int row, NbtCompound nbt) {
+        nbt.putInt("ExplorationCooldown", explorationCooldowns[row]);
+    }
+    
+    @Override
+    protected void readColumns(int row, NbtCompound nbt) {
+        // As tarefas de exploração não são persistidas: o explorador volta sem tarefa
+        currentTaskIds[row] = null;
+        setFlag(row, FLAG_EXPLORING, false);
+        explorationCooldowns[row] = nbt.getInt("ExplorationCooldown", 0);
+    }
+    
     @Override
     public String getName() {
         return "Explorador";
     }
     
     @Override
-    public void onTick(VillagerEntity villager, ServerWorld world) {
+    public void onTick(int row, VillagerEntity villager, ServerWorld world) {
         // Equipa o villager com itens de exploração se ainda não estiver equipado
-        if (!hasEquipment) {
+        if (!hasFlag(row, FLAG_HAS_EQUIPMENT)) {
             equipExplorer(villager);
-            hasEquipment = true;
+            setFlag(row, FLAG_HAS_EQUIPMENT, true);
         }
         
         // Se já está explorando, verifica o progresso
-        if (isExploring) {
-            checkExplorationProgress(villager, world);
+        if (hasFlag(row, FLAG_EXPLORING)) {
+            checkExplorationProgress(row, villager, world);
             return;
         }
         
         // Tenta iniciar uma nova exploração
-        explorationCooldown--;
-        if (explorationCooldown <= 0) {
-            tryStartExploration(villager, world);
-            explorationCooldown = EXPLORATION_INTERVAL;
+        if (--explorationCooldowns[row] <= 0) {
+            tryStartExploration(row, villager, world);
+            explorationCooldowns[row] = EXPLORATION_INTERVAL;
         }
     }
     
     @Override
-    public boolean canStoreItems(VillagerEntity villager, ServerWorld world) {
-        // Verifica se o villager tem itens para armazenar
-        return !villager.getInventory().isEmpty();
+    public boolean canStoreItems(int row, VillagerEntity villager, ServerWorld world) {
+        // Verifica se o villager tem itens para armazenar no inventário estendido
+        return !VillagerInventorySystem.getInventory(villager).isEmpty();
     }
     
     @Override
-    public boolean storeItems(VillagerEntity villager, ServerWorld world) {
-        // Procura por baús próximos para armazenar itens
-        BlockPos villagerPos = villager.getBlockPos();
-        int searchRadius = 16;
-        
-        // Procura por baús em um raio ao redor do villager
-        for (int x = -searchRadius; x <= searchRadius; x++) {
-            for (int y = -3; y <= 3; y++) {
-                for (int z = -searchRadius; z <= searchRadius; z++) {
-                    BlockPos pos = villagerPos.add(x, y, z);
-                    
-                    // Verifica se o bloco é um baú
-                    if (world.getBlockState(pos).getBlock().equals(net.minecraft.block.Blocks.CHEST)) {
-                        // Simula o armazenamento de itens (em uma implementação completa, usaríamos o inventário do baú)
-                        VillagerExpansionMod.LOGGER.info("Explorador " + villager.getUuid() + " armazenou itens em um baú em " + pos);
-                        // Limpa o inventário do villager (simulação)
-                        // Em uma implementação completa, transferiríamos os itens para o baú
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        return false; // Não encontrou baús próximos
+    public boolean storeItems(int row, VillagerEntity villager, ServerWorld world) {
+        // Usa o sistema de inventário para armazenar itens
+        return VillagerInventorySystem.storeItemsInChest(villager, world);
     }
     
     /**
@@ -114,10 +129,11 @@ public class ExplorerProfession implements VillagerProfession {
     
     /**
      * Tenta iniciar uma tarefa de exploração
+     * @param row A linha do villager
      * @param villager O villager explorador
      * @param world O mundo do servidor
      */
-    private void tryStartExploration(VillagerEntity villager, ServerWorld world) {
+    private void tryStartExploration(int row, VillagerEntity villager, ServerWorld world) {
         // Encontra a vila do villager
         VillageData villagerVillage = null;
         UUID villagerId = villager.getUuid();
@@ -135,15 +151,15 @@ public class ExplorerProfession implements VillagerProfession {
         
         // Verifica se há tarefas de exploração disponíveis
         Map<UUID, ExplorationTask> tasks = VillagerExpansionMod.getExpansionManager()
-                .getExplorationManager().getActiveExplorationTasks();
+                .getExplorationManager().getVillageExplorationTasks(villagerVillage.getVillageId());
         
         // Procura por uma tarefa para a vila deste villager
         for (Map.Entry<UUID, ExplorationTask> entry : tasks.entrySet()) {
             ExplorationTask task = entry.getValue();
-            if (task.getVillageId().equals(villagerVillage.getVillageId()) && !task.isCompleted()) {
+            if (!task.isCompleted()) {
                 // Encontrou uma tarefa, atribui ao villager
-                isExploring = true;
-                currentTaskId = entry.getKey();
+                setFlag(row, FLAG_EXPLORING, true);
+                currentTaskIds[row] = entry.getKey();
                 VillagerExpansionMod.LOGGER.info("Explorador " + villager.getUuid() + 
                                               " iniciou exploração para " + task.getTargetPosition());
                 return;
@@ -153,12 +169,14 @@ public class ExplorerProfession implements VillagerProfession {
     
     /**
      * Verifica o progresso de uma tarefa de exploração
+     * @param row A linha do villager
      * @param villager O villager explorador
      * @param world O mundo do servidor
      */
-    private void checkExplorationProgress(VillagerEntity villager, ServerWorld world) {
+    private void checkExplorationProgress(int row, VillagerEntity villager, ServerWorld world) {
+        UUID currentTaskId = currentTaskIds[row];
         if (currentTaskId == null) {
-            isExploring = false;
+            setFlag(row, FLAG_EXPLORING, false);
             return;
         }
         
@@ -168,8 +186,8 @@ public class ExplorerProfession implements VillagerProfession {
         
         if (task == null || task.isCompleted()) {
             // Tarefa concluída ou removida
-            isExploring = false;
-            currentTaskId = null;
+            setFlag(row, FLAG_EXPLORING, false);
+            currentTaskIds[row] = null;
             VillagerExpansionMod.LOGGER.info("Explorador " + villager.getUuid() + " concluiu tarefa de exploração");
             
             // Adiciona itens ao inventário do villager (simulação de coleta de recursos)
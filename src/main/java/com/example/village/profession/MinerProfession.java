@@ -2,20 +2,21 @@ package com.example.village.profession;
 
 import com.example.VillagerExpansionMod;
 import com.example.village.VillageData;
+import com.example.village.inventory.VillagerInventorySystem;
 import com.example.village.mining.MiningTask;
+import com.example.village.resources.ResourceFlowSource;
 import com.example.village.resources.ResourceType;
+import net.minecraft.block.entity.ChestBlockEntity;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.inventory.SimpleInventory;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.BlockPos;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
@@ -23,27 +24,88 @@ import java.util.UUID;
 /**
  * Implementação da profissão de Minerador para villagers
  * Os mineradores escavam em busca de minérios e recursos subterrâneos
+ * O estado de todos os mineradores fica nas colunas desta tabela, indexadas pela linha do villager
  */
-public class MinerProfession implements VillagerProfession {
+public class MinerProfession extends ProfessionTable {
     
+    // Fluxo aleatório compartilhado por todos os mineradores
     private final Random random = new Random();
-    private boolean hasEquipment = false;
-    private UUID currentTaskId = null;
-    private boolean isMining = false;
-    private int miningCooldown = 0;
     private static final int MINING_INTERVAL = 300; // 15 segundos
+    private static final int TOOL_SEARCH_INTERVAL = 200; // 10 segundos
     
-    // Inventário de minérios coletados
-    private final Map<Item, Integer> collectedOres = new HashMap<>();
+    // Minérios que o minerador coleta (o índice identifica o minério nas colunas)
+    private static final Item[] ORES = {Items.COBBLESTONE, Items.COAL, Items.IRON_ORE, Items.GOLD_ORE, Items.DIAMOND};
+    private static final int COBBLESTONE = 0;
+    private static final int COAL = 1;
+    private static final int IRON_ORE = 2;
+    private static final int GOLD_ORE = 3;
+    private static final int DIAMOND = 4;
     
-    // Estado de busca de ferramentas
-    private boolean isSearchingTools = false;
-    private int toolSearchCooldown = 0;
-    private static final int TOOL_SEARCH_INTERVAL = 200; // 10 segundos
+    // Picaretas na ordem de preferência; a coluna guarda o índice + 1, e 0 indica sem picareta
+    private static final Item[] PICKAXES = {Items.IRON_PICKAXE, Items.STONE_PICKAXE, Items.WOODEN_PICKAXE};
+    private static final byte NO_PICKAXE = 0;
+    
+    private static final int FLAG_MINING = FIRST_PROFESSION_FLAG;
+    private static final int FLAG_SEARCHING_TOOLS = FIRST_PROFESSION_FLAG << 1;
+    
+    // Colunas da profissão: tarefa atual, cooldowns e picareta equipada
+    private UUID[] currentTaskIds = new UUID[INITIAL_CAPACITY];
+    private int[] miningCooldowns = new int[INITIAL_CAPACITY];
+    private int[] toolSearchCooldowns = new int[INITIAL_CAPACITY];
+    private byte[] pickaxes = new byte[INITIAL_CAPACITY];
+    
+    // Minérios coletados por cada minerador (linha * ORES.length + índice do minério)
+    private int[] collectedOres = new int[INITIAL_CAPACITY * ORES.length];
+    
+    @Override
+    protected void growColumns(int capacity) {
+        currentTaskIds = Arrays.copyOf(currentTaskIds, capacity);
+        miningCooldowns = Arrays.copyOf(miningCooldowns, capacity);
+        toolSearchCooldowns = Arrays.copyOf(toolSearchCooldowns, capacity);
+        pickaxes = Arrays.copyOf(pickaxes, capacity);
+        collectedOres = Arrays.copyOf(collectedOres, capacity * ORES.length);
+    }
+    
+    @Override
+    protected void moveColumns(int from, int to) {
+        currentTaskIds[to] = currentTaskIds[from];
+        miningCooldowns[to] = miningCooldowns[from];
+        toolSearchCooldowns[to] = toolSearchCooldowns[from];
+        pickaxes[to] = pickaxes[from];
+        System.arraycopy(collectedOres, from * ORES.length, collectedOres, to * ORES.length, ORES.length);
+    }
+    
+    @Override
+    protected void clearColumns(int row) {
+        currentTaskIds[row] = null;
+        miningCooldowns[row] = 0;
+        toolSearchCooldowns[row] = 0;
+        pickaxes[row] = NO_PICKAXE;
+        clearOres(row);
+    }
+    
+    @Override
+    protected void writeColumns(int row, NbtCompound nbt) {
+        nbt.putInt("MiningCooldown", miningCooldowns[row]);
+        nbt.putInt("ToolSearchCooldown", toolSearchCooldowns[row]);
+        nbt.putByte("Pickaxe", pickaxes[row]);
+        nbt.putIntArray("Ores", Arrays.copyOfRange(collectedOres, row * ORES.length, (row + 1) * ORES.length));
+    }
     
-    // Ferramentas disponíveis para o minerador
-    private boolean hasPickaxe = false;
-    private Item currentPickaxeType = null;
+    @Override
+    protected void readColumns(int row, NbtCompound nbt) {
+        // As tarefas de mineração não são persistidas: o minerador volta sem tarefa em vez de receber
+        // os minérios de uma tarefa que não existe mais como se ela tivesse sido concluída
+        currentTaskIds[row] = null;
+        setFlag(row, FLAG_MINING, false);
+        miningCooldowns[row] = nbt.getInt("MiningCooldown", 0);
+        toolSearchCooldowns[row] = nbt.getInt("ToolSearchCooldown", 0);
+        byte pickaxe = nbt.getByte("Pickaxe", NO_PICKAXE);
+        pickaxes[row] = pickaxe >= 0 && pickaxe <= PICKAXES.length ? pickaxe : NO_PICKAXE;
+        
+        int[] ores = nbt.getIntArray("Ores").orElse(new int[0]);
+        System.arraycopy(ores, 0, collectedOres, row * ORES.length, Math.min(ores.length, ORES.length));
+    }
     
     @Override
     public String getName() {
@@ -51,89 +113,73 @@ public class MinerProfession implements VillagerProfession {
     }
     
     @Override
-    public void onTick(VillagerEntity villager, ServerWorld world) {
+    public void onTick(int row, VillagerEntity villager, ServerWorld world) {
         // Equipa o villager com ferramentas básicas se ainda não estiver equipado
-        if (!hasEquipment) {
+        if (!hasFlag(row, FLAG_HAS_EQUIPMENT)) {
             equipMiner(villager);
-            hasEquipment = true;
+            setFlag(row, FLAG_HAS_EQUIPMENT, true);
         }
         
         // Se está procurando ferramentas, continua essa tarefa
-        if (isSearchingTools) {
-            searchForTools(villager, world);
+        if (hasFlag(row, FLAG_SEARCHING_TOOLS)) {
+            searchForTools(row, villager, world);
             return;
         }
         
         // Se já está minerando, verifica o progresso
-        if (isMining) {
-            checkMiningProgress(villager, world);
+        if (hasFlag(row, FLAG_MINING)) {
+            checkMiningProgress(row, villager, world);
             return;
         }
         
         // Verifica se precisa buscar ferramentas
-        toolSearchCooldown--;
-        if (toolSearchCooldown <= 0) {
-            if (!hasPickaxe) {
-                isSearchingTools = true;
+        if (--toolSearchCooldowns[row] <= 0) {
+            if (pickaxes[row] == NO_PICKAXE) {
+                setFlag(row, FLAG_SEARCHING_TOOLS, true);
                 VillagerExpansionMod.LOGGER.info("Minerador " + villager.getUuid() + " está procurando ferramentas");
                 return;
             }
-            toolSearchCooldown = TOOL_SEARCH_INTERVAL;
+            toolSearchCooldowns[row] = TOOL_SEARCH_INTERVAL;
         }
         
         // Tenta iniciar uma nova mineração
-        miningCooldown--;
-        if (miningCooldown <= 0) {
-            tryStartMining(villager, world);
-            miningCooldown = MINING_INTERVAL;
+        if (--miningCooldowns[row] <= 0) {
+            tryStartMining(row, villager, world);
+            miningCooldowns[row] = MINING_INTERVAL;
         }
     }
     
     @Override
-    public boolean canStoreItems(VillagerEntity villager, ServerWorld world) {
-        // Verifica se o villager tem itens para armazenar
-        return !villager.getInventory().isEmpty();
+    public boolean canStoreItems(int row, VillagerEntity villager, ServerWorld world) {
+        // Verifica se o minerador tem minérios coletados ou itens no inventário estendido para armazenar
+        return hasOres(row) || !VillagerInventorySystem.getInventory(villager).isEmpty();
     }
     
     @Override
-    public boolean storeItems(VillagerEntity villager, ServerWorld world) {
-        // Procura por baús próximos para armazenar itens
-        BlockPos villagerPos = villager.getBlockPos();
-        int searchRadius = 16;
+    public boolean storeItems(int row, VillagerEntity villager, ServerWorld world) {
+        // Procura por um baú próximo para armazenar itens
+        ChestBlockEntity chest = VillagerInventorySystem.findNearbyChest(villager, world);
+        if (chest == null) {
+            return false; // Não encontrou baús próximos
+        }
         
-        // Procura por baús em um raio ao redor do villager
-        for (int x = -searchRadius; x <= searchRadius; x++) {
-            for (int y = -3; y <= 3; y++) {
-                for (int z = -searchRadius; z <= searchRadius; z++) {
-                    BlockPos pos = villagerPos.add(x, y, z);
-                    
-                    // Verifica se o bloco é um baú
-                    if (world.getBlockState(pos).getBlock().equals(net.minecraft.block.Blocks.CHEST)) {
-                        // Simula o armazenamento de itens (em uma implementação completa, usaríamos o inventário do baú)
-                        StringBuilder storedItems = new StringBuilder();
-                        
-                        // Registra os minérios armazenados
-                        for (Map.Entry<Item, Integer> entry : collectedOres.entrySet()) {
-                            storedItems.append(entry.getValue()).append("x ").append(entry.getKey().getName().getString()).append(", ");
-                        }
-                        
-                        if (storedItems.length() > 0) {
-                            storedItems.setLength(storedItems.length() - 2); // Remove a última vírgula e espaço
-                            VillagerExpansionMod.LOGGER.info("Minerador " + villager.getUuid() + " armazenou minérios em um baú em " + pos + ": " + storedItems);
-                            
-                            // Atualiza os recursos da vila
-                            updateVillageResources(villager, world);
-                            
-                            // Limpa o inventário do minerador
-                            collectedOres.clear();
-                            return true;
-                        }
-                    }
-                }
-            }
+        // Deposita os itens do inventário estendido no baú
+        boolean stored = VillagerInventorySystem.storeItemsInChest(villager, chest);
+        
+        // Os minérios coletados vão para os recursos da vila, registrados no mesmo baú
+        String storedOres = describeOres(row);
+        if (!storedOres.isEmpty()) {
+            VillagerExpansionMod.LOGGER.info("Minerador " + villager.getUuid() + " armazenou minérios em um baú em " + chest.getPos() + ": " + storedOres);
+            
+            // Atualiza os recursos da vila
+            updateVillageResources(row, villager, world);
+            
+            // Limpa o inventário do minerador
+            clearOres(row);
+            stored = true;
         }
         
-        return false; // Não encontrou baús próximos ou não tinha itens para armazenar
+        return stored;
     }
     
     /**
@@ -159,10 +205,11 @@ public class MinerProfession implements VillagerProfession {
     
     /**
      * Tenta iniciar uma tarefa de mineração
+     * @param row A linha do villager
      * @param villager O villager minerador
      * @param world O mundo do servidor
      */
-    private void tryStartMining(VillagerEntity villager, ServerWorld world) {
+    private void tryStartMining(int row, VillagerEntity villager, ServerWorld world) {
         // Encontra a vila do villager
         VillageData villagerVillage = null;
         UUID villagerId = villager.getUuid();
@@ -180,15 +227,15 @@ public class MinerProfession implements VillagerProfession {
         
         // Verifica se há tarefas de mineração disponíveis
         Map<UUID, MiningTask> tasks = VillagerExpansionMod.getExpansionManager()
-                .getMiningManager().getActiveMiningTasks();
+                .getMiningManager().getVillageMiningTasks(villagerVillage.getVillageId());
         
         // Procura por uma tarefa para a vila deste villager
         for (Map.Entry<UUID, MiningTask> entry : tasks.entrySet()) {
             MiningTask task = entry.getValue();
-            if (task.getVillageId().equals(villagerVillage.getVillageId()) && !task.isCompleted()) {
+            if (!task.isCompleted()) {
                 // Encontrou uma tarefa, atribui ao villager
-                isMining = true;
-                currentTaskId = entry.getKey();
+                setFlag(row, FLAG_MINING, true);
+                currentTaskIds[row] = entry.getKey();
                 VillagerExpansionMod.LOGGER.info("Minerador " + villager.getUuid() + 
                                               " iniciou mineração em " + task.getMiningPosition());
                 return;
@@ -197,67 +244,56 @@ public class MinerProfession implements VillagerProfession {
     }
     
     /**
-     * Procura por ferramentas em baús próximos
+     * Procura por ferramentas no estoque da vila, dando preferência às melhores picaretas
+     * @param row A linha do villager
      * @param villager O villager minerador
      * @param world O mundo do servidor
      */
-    private void searchForTools(VillagerEntity villager, ServerWorld world) {
-        BlockPos villagerPos = villager.getBlockPos();
-        int searchRadius = 16;
+    private void searchForTools(int row, VillagerEntity villager, ServerWorld world) {
+        VillageData village = VillagerExpansionMod.getExpansionManager().findVillageOf(villager.getUuid());
         
-        // Procura por baús em um raio ao redor do villager
-        for (int x = -searchRadius; x <= searchRadius; x++) {
-            for (int y = -3; y <= 3; y++) {
-                for (int z = -searchRadius; z <= searchRadius; z++) {
-                    BlockPos pos = villagerPos.add(x, y, z);
-                    
-                    // Verifica se o bloco é um baú
-                    if (world.getBlockState(pos).getBlock().equals(net.minecraft.block.Blocks.CHEST)) {
-                        // Simula a busca por ferramentas no baú
-                        // Em uma implementação completa, verificaríamos o inventário real do baú
-                        
-                        // Tenta encontrar uma picareta no baú (simulação)
-                        List<Item> possibleTools = new ArrayList<>();
-                        possibleTools.add(Items.IRON_PICKAXE);
-                        possibleTools.add(Items.STONE_PICKAXE);
-                        possibleTools.add(Items.WOODEN_PICKAXE);
-                        
-                        // Simula uma chance de encontrar uma ferramenta
-                        if (random.nextFloat() < 0.7f) {
-                            // Encontrou uma ferramenta
-                            int toolIndex = random.nextInt(possibleTools.size());
-                            Item foundTool = possibleTools.get(toolIndex);
-                            
-                            // Equipa a ferramenta
-                            villager.equipStack(EquipmentSlot.MAINHAND, new ItemStack(foundTool));
-                            hasPickaxe = true;
-                            currentPickaxeType = foundTool;
-                            
-                            VillagerExpansionMod.LOGGER.info("Minerador " + villager.getUuid() + " encontrou e equipou " + 
-                                                          foundTool.getName().getString() + " de um baú em " + pos);
-                            
-                            isSearchingTools = false;
-                            return;
-                        }
-                    }
-                }
+        for (int index = 0; index < PICKAXES.length; index++) {
+            Item pickaxe = PICKAXES[index];
+            // Consulta o índice antes de sair procurando nos baús
+            if (village != null && village.getStockIndex().getChestCount() > 0 &&
+                !village.getStockIndex().hasItem(pickaxe, 1)) {
+                continue;
+            }
+            
+            if (!VillagerInventorySystem.findItemInChests(villager, world, pickaxe)) {
+                continue;
+            }
+            
+            // Equipa a própria picareta retirada do baú, com a sua durabilidade e encantamentos
+            ItemStack tool = VillagerInventorySystem.takeStack(villager, pickaxe);
+            if (!tool.isEmpty()) {
+                villager.equipStack(EquipmentSlot.MAINHAND, tool);
+                pickaxes[row] = (byte) (index + 1);
+                
+                VillagerExpansionMod.LOGGER.info("Minerador " + villager.getUuid() + " encontrou e equipou " + 
+                                              pickaxe.getName().getString() + " do estoque da vila");
+                
+                setFlag(row, FLAG_SEARCHING_TOOLS, false);
+                return;
             }
         }
         
         // Se chegou aqui, não encontrou ferramentas
-        isSearchingTools = false;
-        toolSearchCooldown = TOOL_SEARCH_INTERVAL / 2; // Tenta novamente em metade do tempo normal
+        setFlag(row, FLAG_SEARCHING_TOOLS, false);
+        toolSearchCooldowns[row] = TOOL_SEARCH_INTERVAL / 2; // Tenta novamente em metade do tempo normal
         VillagerExpansionMod.LOGGER.info("Minerador " + villager.getUuid() + " não encontrou ferramentas disponíveis");
     }
     
     /**
      * Verifica o progresso de uma tarefa de mineração
+     * @param row A linha do villager
      * @param villager O villager minerador
      * @param world O mundo do servidor
      */
-    private void checkMiningProgress(VillagerEntity villager, ServerWorld world) {
+    private void checkMiningProgress(int row, VillagerEntity villager, ServerWorld world) {
+        UUID currentTaskId = currentTaskIds[row];
         if (currentTaskId == null) {
-            isMining = false;
+            setFlag(row, FLAG_MINING, false);
             return;
         }
         
@@ -267,18 +303,17 @@ public class MinerProfession implements VillagerProfession {
         
         if (task == null || task.isCompleted()) {
             // Tarefa concluída ou removida
-            isMining = false;
-            currentTaskId = null;
+            setFlag(row, FLAG_MINING, false);
+            currentTaskIds[row] = null;
             VillagerExpansionMod.LOGGER.info("Minerador " + villager.getUuid() + " concluiu tarefa de mineração");
             
             // Adiciona minérios ao inventário do villager baseado na ferramenta usada
-            collectOres(villager);
+            collectOres(row, villager);
             
             // Chance de quebrar a ferramenta
-            if (hasPickaxe && random.nextFloat() < 0.2f) {
+            if (pickaxes[row] != NO_PICKAXE && random.nextFloat() < 0.2f) {
                 VillagerExpansionMod.LOGGER.info("A picareta do Minerador " + villager.getUuid() + " quebrou durante a mineração");
-                hasPickaxe = false;
-                currentPickaxeType = null;
+                pickaxes[row] = NO_PICKAXE;
                 villager.equipStack(EquipmentSlot.MAINHAND, ItemStack.EMPTY);
             }
         }
@@ -286,69 +321,95 @@ public class MinerProfession implements VillagerProfession {
     
     /**
      * Coleta minérios baseado na ferramenta usada
+     * @param row A linha do villager
      * @param villager O villager minerador
      */
-    private void collectOres(VillagerEntity villager) {
-        if (!hasPickaxe) {
+    private void collectOres(int row, VillagerEntity villager) {
+        if (pickaxes[row] == NO_PICKAXE) {
             // Sem picareta, coleta apenas pedra e carvão em pequenas quantidades
-            addOreToInventory(Items.COBBLESTONE, 1 + random.nextInt(3));
+            addOreToInventory(row, COBBLESTONE, 1 + random.nextInt(3));
             if (random.nextFloat() < 0.3f) {
-                addOreToInventory(Items.COAL, 1);
+                addOreToInventory(row, COAL, 1);
             }
             return;
         }
         
         // Com picareta, coleta baseado no tipo de picareta
         // Sempre coleta pedra e carvão
-        addOreToInventory(Items.COBBLESTONE, 3 + random.nextInt(5));
-        addOreToInventory(Items.COAL, 1 + random.nextInt(3));
+        addOreToInventory(row, COBBLESTONE, 3 + random.nextInt(5));
+        addOreToInventory(row, COAL, 1 + random.nextInt(3));
         
+        Item currentPickaxeType = PICKAXES[pickaxes[row] - 1];
         if (currentPickaxeType == Items.WOODEN_PICKAXE || currentPickaxeType == Items.STONE_PICKAXE) {
             // Picaretas de madeira e pedra: ferro e ouro em pequenas quantidades
             if (random.nextFloat() < 0.5f) {
-                addOreToInventory(Items.IRON_ORE, 1 + random.nextInt(2));
+                addOreToInventory(row, IRON_ORE, 1 + random.nextInt(2));
             }
         } else if (currentPickaxeType == Items.IRON_PICKAXE) {
             // Picareta de ferro: ferro, ouro e diamante
-            addOreToInventory(Items.IRON_ORE, 2 + random.nextInt(3));
+            addOreToInventory(row, IRON_ORE, 2 + random.nextInt(3));
             
             if (random.nextFloat() < 0.4f) {
-                addOreToInventory(Items.GOLD_ORE, 1 + random.nextInt(2));
+                addOreToInventory(row, GOLD_ORE, 1 + random.nextInt(2));
             }
             
             if (random.nextFloat() < 0.2f) {
-                addOreToInventory(Items.DIAMOND, 1);
+                addOreToInventory(row, DIAMOND, 1);
             }
         }
         
         // Log dos minérios coletados
-        StringBuilder oresLog = new StringBuilder("Minerador " + villager.getUuid() + " coletou: ");
-        for (Map.Entry<Item, Integer> entry : collectedOres.entrySet()) {
-            oresLog.append(entry.getValue()).append("x ").append(entry.getKey().getName().getString()).append(", ");
-        }
-        
-        if (oresLog.length() > ("Minerador " + villager.getUuid() + " coletou: ").length()) {
-            oresLog.setLength(oresLog.length() - 2); // Remove a última vírgula e espaço
-            VillagerExpansionMod.LOGGER.info(oresLog.toString());
+        String ores = describeOres(row);
+        if (!ores.isEmpty()) {
+            VillagerExpansionMod.LOGGER.info("Minerador " + villager.getUuid() + " coletou: " + ores);
         }
     }
     
     /**
      * Adiciona um minério ao inventário do minerador
-     * @param ore O minério a ser adicionado
+     * @param row A linha do villager
+     * @param ore O índice do minério
      * @param amount A quantidade a ser adicionada
      */
-    private void addOreToInventory(Item ore, int amount) {
-        int currentAmount = collectedOres.getOrDefault(ore, 0);
-        collectedOres.put(ore, currentAmount + amount);
+    private void addOreToInventory(int row, int ore, int amount) {
+        collectedOres[row * ORES.length + ore] += amount;
+    }
+    
+    private boolean hasOres(int row) {
+        for (int ore = 0; ore < ORES.length; ore++) {
+            if (collectedOres[row * ORES.length + ore] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void clearOres(int row) {
+        Arrays.fill(collectedOres, row * ORES.length, (row + 1) * ORES.length, 0);
+    }
+    
+    /**
+     * Descreve os minérios coletados por um minerador, como "5x Pedregulho, 2x Carvão"
+     */
+    private String describeOres(int row) {
+        StringBuilder description = new StringBuilder();
+        for (int ore = 0; ore < ORES.length; ore++) {
+            int amount = collectedOres[row * ORES.length + ore];
+            if (amount > 0) {
+                description.append(description.length() > 0 ? ", " : "")
+                        .append(amount).append("x ").append(ORES[ore].getName().getString());
+            }
+        }
+        return description.toString();
     }
     
     /**
      * Atualiza os recursos da vila com os minérios coletados
+     * @param row A linha do villager
      * @param villager O villager minerador
      * @param world O mundo do servidor
      */
-    private void updateVillageResources(VillagerEntity villager, ServerWorld world) {
+    private void updateVillageResources(int row, VillagerEntity villager, ServerWorld world) {
         // Encontra a vila do villager
         VillageData villagerVillage = null;
         UUID villagerId = villager.getUuid();
@@ -365,26 +426,14 @@ public class MinerProfession implements VillagerProfession {
         }
         
         // Calcula a quantidade de cada tipo de recurso
-        int stoneAmount = 0;
-        int ironAmount = 0;
-        int goldAmount = 0;
-        
-        for (Map.Entry<Item, Integer> entry : collectedOres.entrySet()) {
-            Item ore = entry.getKey();
-            int amount = entry.getValue();
-            
-            if (ore == Items.COBBLESTONE || ore == Items.STONE) {
-                stoneAmount += amount;
-            } else if (ore == Items.IRON_ORE || ore == Items.IRON_INGOT) {
-                ironAmount += amount;
-            } else if (ore == Items.GOLD_ORE || ore == Items.GOLD_INGOT) {
-                goldAmount += amount;
-            }
-            // Outros recursos como diamante podem ser adicionados ao sistema de recursos da vila se necessário
-        }
+        // Outros recursos como diamante podem ser adicionados ao sistema de recursos da vila se necessário
+        int base = row * ORES.length;
+        int stoneAmount = collectedOres[base + COBBLESTONE];
+        int ironAmount = collectedOres[base + IRON_ORE];
+        int goldAmount = collectedOres[base + GOLD_ORE];
         
         // Atualiza os recursos da vila
-        villagerVillage.addResources(stoneAmount, 0, 0);
+        villagerVillage.addResources(0, stoneAmount, 0, ResourceFlowSource.MINER);
         
         // Registra a atualização de recursos
         VillagerExpansionMod.LOGGER.info("Vila " + villagerVillage.getVillageId() + " recebeu " + 
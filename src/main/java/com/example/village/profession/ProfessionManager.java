@@ -1,139 +1,295 @@
 package com.example.village.profession;
 
 import com.example.VillagerExpansionMod;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayFIFOQueue;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.ai.brain.Activity;
 import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.village.VillagerProfession;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 
 /**
  * Gerencia as profissões personalizadas dos villagers
  * Atribui profissões aos villagers sem profissão e gerencia as profissões existentes
+ * Cada profissão é uma tabela única com o estado de todos os seus villagers (ver {@link ProfessionTable}),
+ * e a referência à entidade de cada villager é atualizada pelos eventos de carregamento e descarregamento de entidades
+ * Os villagers são distribuídos em grupos pelo hash do UUID, e a cada tick do servidor apenas um grupo é processado,
+ * em todos os mundos de uma vez, mantendo o período de cada villager e espalhando o custo ao longo do intervalo
+ * Os villagers sem profissão chegam por uma fila de candidatos, alimentada quando um villager é carregado,
+ * cresce ou muda de profissão vanilla, e consumida em lotes limitados a cada tick
+ * A profissão e o estado de cada villager são gravados no NBT da entidade e restaurados quando ela é lida,
+ * de modo que um reinício do servidor não sorteia, reequipa nem reinicia as tarefas dos villagers
  */
 public class ProfessionManager {
     
-    // Mapa que associa o UUID do villager à sua profissão personalizada
-    private final Map<UUID, com.example.village.profession.VillagerProfession> villagerProfessions = new HashMap<>();
+    // Tabelas das profissões, processadas uma de cada vez
+    private final WarriorProfession warriors = new WarriorProfession();
+    private final ExplorerProfession explorers = new ExplorerProfession();
+    private final MinerProfession miners = new MinerProfession();
+    private final BuilderProfession builders = new BuilderProfession();
+    private final SmithProfession smiths = new SmithProfession();
+    private final ProfessionTable[] tables = {warriors, explorers, miners, builders, smiths};
     
-    // Contador para limitar a frequência de verificações
-    private int professionTickCounter = 0;
+    // Identificador de cada tabela no NBT dos villagers, na mesma ordem de tables
+    private static final String[] TABLE_KEYS = {"Warrior", "Explorer", "Miner", "Builder", "Smith"};
+    
+    // Tabela e linha de cada villager com profissão personalizada, codificadas como (tabela << ROW_BITS) | linha
+    private static final int ROW_BITS = 24;
+    private static final int ROW_MASK = (1 << ROW_BITS) - 1;
+    private final Object2IntOpenHashMap<UUID> rowById = new Object2IntOpenHashMap<>();
+    
+    // Ouvintes que mantêm o índice atualizado durante a compactação de cada tabela
+    private final ProfessionTable.RowListener[] rowListeners = new ProfessionTable.RowListener[tables.length];
+    
+    // Remoções adiadas para o fim da passada atual
+    private boolean ticking = false;
+    
+    // Último tick do servidor processado (processProfessions é chamado uma vez por mundo a cada tick)
+    private int lastServerTick = -1;
     private static final int PROFESSION_CHECK_INTERVAL = 100; // A cada 5 segundos
     
+    // Quantidades de grupos possíveis (divisores do intervalo, para que cada grupo tenha o mesmo período)
+    private static final int[] BUCKET_COUNTS = {1, 2, 4, 5, 10, 20, 25, 50, 100};
+    private static final int VILLAGERS_PER_BUCKET = 4;
+    private int bucketCount = 1;
+    
+    // Villagers que podem precisar de uma profissão, na ordem em que foram sinalizados
+    private final ObjectArrayFIFOQueue<VillagerEntity> candidates = new ObjectArrayFIFOQueue<>();
+    private final ReferenceOpenHashSet<VillagerEntity> queuedCandidates = new ReferenceOpenHashSet<>();
+    private static final int MAX_ASSIGNMENTS_PER_TICK = 4;
+    
+    // Tempo gasto em cada tick em que um grupo foi processado
+    private final TickTimeHistogram tickHistogram = new TickTimeHistogram();
+    
     private final Random random = new Random();
     
+    public ProfessionManager() {
+        rowById.defaultReturnValue(-1);
+        
+        for (int index = 0; index < tables.length; index++) {
+            int tableBits = index << ROW_BITS;
+            rowListeners[index] = new ProfessionTable.RowListener() {
+                @Override
+                public void onRemoved(UUID villagerId) {
+                    rowById.removeInt(villagerId);
+                }
+                
+                @Override
+                public void onMoved(UUID villagerId, int newRow) {
+                    rowById.put(villagerId, tableBits | newRow);
+                }
+            };
+        }
+    }
+    
     /**
      * Processa as profissões dos villagers
+     * Só o primeiro mundo a chamar em cada tick do servidor processa o grupo da vez, com os villagers de todos os mundos;
+     * assim a fase não depende da quantidade de mundos carregados
      * @param world O mundo do servidor
      */
     public void processProfessions(ServerWorld world) {
-        professionTickCounter++;
-        
-        // Limita a frequência de verificações para não sobrecarregar o servidor
-        if (professionTickCounter % PROFESSION_CHECK_INTERVAL != 0) {
+        int serverTick = world.getServer().getTicks();
+        if (serverTick == lastServerTick) {
             return;
         }
+        lastServerTick = serverTick;
+        int phase = serverTick % PROFESSION_CHECK_INTERVAL;
+        
+        // Ajusta a quantidade de grupos à população apenas no início de cada intervalo
+        if (phase == 0) {
+            bucketCount = chooseBucketCount(getProfessionCount());
+        }
         
-        // Processa as profissões existentes
-        processExistingProfessions(world);
+        // Processa as profissões do grupo da vez
+        int stride = PROFESSION_CHECK_INTERVAL / bucketCount;
+        if (phase % stride == 0) {
+            long start = System.nanoTime();
+            processExistingProfessions(phase / stride);
+            tickHistogram.record(System.nanoTime() - start);
+        }
         
         // Atribui profissões aos villagers sem profissão
-        assignProfessionsToUnemployed(world);
+        assignProfessionsToUnemployed();
     }
     
     /**
-     * Processa as profissões existentes
-     * @param world O mundo do servidor
+     * Sinaliza um villager que pode ter ficado sem profissão (carregado, cresceu ou mudou de profissão vanilla)
+     * Villagers que já têm uma profissão personalizada são ignorados sem custo adicional
+     * @param villager O villager
      */
-    private void processExistingProfessions(ServerWorld world) {
-        // Cria uma cópia do mapa para evitar ConcurrentModificationException
-        Map<UUID, com.example.village.profession.VillagerProfession> professionsCopy = new HashMap<>(villagerProfessions);
-        
-        // Processa cada profissão
-        for (Map.Entry<UUID, com.example.village.profession.VillagerProfession> entry : professionsCopy.entrySet()) {
-            UUID villagerId = entry.getKey();
-            com.example.village.profession.VillagerProfession profession = entry.getValue();
-            
-            // Encontra o villager pelo UUID
-            world.getEntity(villagerId);
-            if (world.getEntity(villagerId) instanceof VillagerEntity villager) {
-                // Executa as ações da profissão
-                profession.onTick(villager, world);
-                
-                // Verifica se o villager pode armazenar itens
-                if (profession.canStoreItems(villager, world)) {
-                    profession.storeItems(villager, world);
-                }
+    public void enqueueCandidate(VillagerEntity villager) {
+        if (rowById.containsKey(villager.getUuid())) {
+            return;
+        }
+        if (queuedCandidates.add(villager)) {
+            candidates.enqueue(villager);
+        }
+    }
+    
+    /**
+     * Escolhe a maior quantidade de grupos que mantém pelo menos VILLAGERS_PER_BUCKET villagers por grupo
+     */
+    private static int chooseBucketCount(int population) {
+        int chosen = BUCKET_COUNTS[0];
+        for (int count : BUCKET_COUNTS) {
+            if (count * VILLAGERS_PER_BUCKET <= population) {
+                chosen = count;
+            }
+        }
+        return chosen;
+    }
+    
+    /**
+     * Chamado quando uma entidade é carregada em um mundo
+     * Associa a entidade à profissão do villager, se ele tiver uma
+     */
+    public void onEntityLoad(Entity entity, ServerWorld world) {
+        if (entity instanceof VillagerEntity villager) {
+            int encoded = rowById.getInt(villager.getUuid());
+            if (encoded >= 0) {
+                tableOf(encoded).setHandle(encoded & ROW_MASK, villager);
             } else {
-                // Se o villager não existe mais, remove a profissão
-                villagerProfessions.remove(villagerId);
+                enqueueCandidate(villager);
+            }
+        }
+    }
+    
+    /**
+     * Chamado quando uma entidade é descarregada de um mundo
+     * Em uma troca de dimensão apenas solta a referência à entidade, que é associada de novo quando o villager
+     * chega ao outro mundo; em qualquer outro descarregamento remove a linha, já que o estado está no NBT do villager
+     * e é restaurado por {@link #readProfessionNbt} quando ele for lido de novo
+     */
+    public void onEntityUnload(Entity entity, ServerWorld world) {
+        if (!(entity instanceof VillagerEntity villager)) {
+            return;
+        }
+        
+        int encoded = rowById.getInt(villager.getUuid());
+        if (encoded < 0) {
+            return; // Sem profissão
+        }
+        
+        ProfessionTable table = tableOf(encoded);
+        int row = encoded & ROW_MASK;
+        if (table.getHandle(row) != villager) {
+            return; // Já associado a outra entidade (troca de dimensão)
+        }
+        
+        if (villager.getRemovalReason() == Entity.RemovalReason.CHANGED_DIMENSION) {
+            table.setHandle(row, null);
+        } else {
+            removeRow(table, row);
+        }
+    }
+    
+    /**
+     * Processa as profissões existentes de um grupo
+     * Percorre cada tabela de profissão por vez, sobre os seus arrays contíguos, sem cópias nem buscas por UUID
+     * @param bucket O grupo a processar
+     */
+    private void processExistingProfessions(int bucket) {
+        ticking = true;
+        try {
+            for (ProfessionTable table : tables) {
+                table.tickBucket(bucket, bucketCount);
             }
+        } finally {
+            ticking = false;
         }
+        
+        compactTables();
     }
     
     /**
      * Atribui profissões aos villagers sem profissão
-     * @param world O mundo do servidor
+     * Consome no máximo MAX_ASSIGNMENTS_PER_TICK candidatos da fila a cada tick do servidor, de qualquer mundo
      */
-    private void assignProfessionsToUnemployed(ServerWorld world) {
-        // Encontra todos os villagers sem profissão
-        world.getEntitiesByType(net.minecraft.entity.EntityType.VILLAGER, entity -> {
-            VillagerEntity villager = (VillagerEntity) entity;
+    private void assignProfessionsToUnemployed() {
+        for (int i = 0; i < MAX_ASSIGNMENTS_PER_TICK && !candidates.isEmpty(); i++) {
+            VillagerEntity villager = candidates.dequeue();
+            if (villager.isRemoved()) {
+                queuedCandidates.remove(villager);
+                continue;
+            }
+            queuedCandidates.remove(villager);
+            
             // Verifica se o villager não tem profissão e não é uma criança
             // Na versão 1.21, verificamos se o villager tem uma atividade de trabalho
             boolean hasNoProfession = !villager.getBrain().hasActivity(Activity.WORK);
-            return hasNoProfession && !villager.isBaby();
-        }).forEach(entity -> {
-            VillagerEntity villager = (VillagerEntity) entity;
-            UUID villagerId = villager.getUuid();
-            
-            // Verifica se o villager já tem uma profissão personalizada
-            if (!villagerProfessions.containsKey(villagerId)) {
+            if (hasNoProfession && !villager.isBaby() && !rowById.containsKey(villager.getUuid())) {
                 // Atribui uma profissão aleatória
-                assignRandomProfession(villager, world);
+                assignRandomProfession(villager);
             }
-        });
+        }
     }
     
     /**
      * Atribui uma profissão aleatória a um villager
      * @param villager O villager que receberá a profissão
-     * @param world O mundo do servidor
      */
-    private void assignRandomProfession(VillagerEntity villager, ServerWorld world) {
+    private void assignRandomProfession(VillagerEntity villager) {
         // Escolhe uma profissão aleatória
-        int professionChoice = random.nextInt(5); // 0: Guerreiro, 1: Explorador, 2: Minerador, 3: Construtor, 4: Ferreiro
+        int professionChoice = random.nextInt(tables.length); // 0: Guerreiro, 1: Explorador, 2: Minerador, 3: Construtor, 4: Ferreiro
+        ProfessionTable profession = tables[professionChoice];
+        
+        // Associa a profissão ao villager, ocupando uma linha na tabela da profissão
+        int row = profession.addRow(villager);
+        rowById.put(villager.getUuid(), (professionChoice << ROW_BITS) | row);
         
-        com.example.village.profession.VillagerProfession profession;
-        switch (professionChoice) {
-            case 0:
-                profession = new WarriorProfession();
-                break;
-            case 1:
-                profession = new ExplorerProfession();
-                break;
-            case 2:
-                profession = new MinerProfession();
-                break;
-            case 3:
-                profession = new BuilderProfession();
-                break;
-            case 4:
-                profession = new SmithProfession();
-                break;
-            default:
-                profession = new WarriorProfession(); // Padrão: Guerreiro
+        VillagerExpansionMod.LOGGER.info("Villager " + villager.getUuid() + " recebeu a profissão de " + profession.getName());
+    }
+    
+    /**
+     * Grava a profissão e o estado de um villager em NBT
+     * @param villager O villager
+     * @return O NBT da profissão, ou null se o villager não tiver uma profissão personalizada
+     */
+    public NbtCompound writeProfessionNbt(VillagerEntity villager) {
+        int encoded = rowById.getInt(villager.getUuid());
+        if (encoded < 0) {
+            return null;
         }
         
-        // Associa a profissão ao villager
-        villagerProfessions.put(villager.getUuid(), profession);
+        ProfessionTable table = tableOf(encoded);
+        int row = encoded & ROW_MASK;
+        if (table.isRemoved(row)) {
+            return null;
+        }
         
-        VillagerExpansionMod.LOGGER.info("Villager " + villager.getUuid() + " recebeu a profissão de " + profession.getName());
+        NbtCompound nbt = table.writeRow(row);
+        nbt.putString("Type", TABLE_KEYS[encoded >>> ROW_BITS]);
+        return nbt;
+    }
+    
+    /**
+     * Restaura a profissão e o estado de um villager a partir do NBT gravado por writeProfessionNbt
+     * Chamado quando a entidade é lida, antes de ser carregada no mundo; se o villager já tem uma linha
+     * (troca de dimensão ou recarregamento do chunk), o estado em memória é mantido
+     * @param villager O villager que está sendo lido
+     * @param nbt O NBT da profissão
+     */
+    public void readProfessionNbt(VillagerEntity villager, NbtCompound nbt) {
+        if (rowById.containsKey(villager.getUuid())) {
+            return;
+        }
+        
+        String type = nbt.getString("Type", "");
+        for (int index = 0; index < tables.length; index++) {
+            if (TABLE_KEYS[index].equals(type)) {
+                int row = tables[index].readRow(villager, nbt);
+                rowById.put(villager.getUuid(), (index << ROW_BITS) | row);
+                return;
+            }
+        }
     }
     
     /**
@@ -142,7 +298,13 @@ public class ProfessionManager {
      * @return A profissão do villager, ou null se não tiver uma profissão personalizada
      */
     public com.example.village.profession.VillagerProfession getProfession(UUID villagerId) {
-        return villagerProfessions.get(villagerId);
+        int encoded = rowById.getInt(villagerId);
+        if (encoded < 0) {
+            return null;
+        }
+        
+        ProfessionTable table = tableOf(encoded);
+        return table.isRemoved(encoded & ROW_MASK) ? null : table;
     }
     
     /**
@@ -151,7 +313,7 @@ public class ProfessionManager {
      * @return true se o villager tem uma profissão personalizada, false caso contrário
      */
     public boolean hasProfession(UUID villagerId) {
-        return villagerProfessions.containsKey(villagerId);
+        return getProfession(villagerId) != null;
     }
     
     /**
@@ -159,6 +321,57 @@ public class ProfessionManager {
      * @param villagerId UUID do villager
      */
     public void removeProfession(UUID villagerId) {
-        villagerProfessions.remove(villagerId);
+        int encoded = rowById.getInt(villagerId);
+        if (encoded >= 0) {
+            removeRow(tableOf(encoded), encoded & ROW_MASK);
+        }
+    }
+    
+    /**
+     * Obtém a quantidade de villagers com profissão personalizada
+     */
+    public int getProfessionCount() {
+        int count = 0;
+        for (ProfessionTable table : tables) {
+            count += table.size();
+        }
+        return count;
+    }
+    
+    /**
+     * Obtém a quantidade atual de grupos em que os villagers são distribuídos
+     */
+    public int getBucketCount() {
+        return bucketCount;
+    }
+    
+    /**
+     * Obtém o histograma do tempo gasto por tick no processamento das profissões
+     */
+    public TickTimeHistogram getTickHistogram() {
+        return tickHistogram;
+    }
+    
+    private ProfessionTable tableOf(int encoded) {
+        return tables[encoded >>> ROW_BITS];
+    }
+    
+    /**
+     * Marca uma linha como removida; as tabelas são compactadas imediatamente ou, durante uma passada, no fim dela
+     */
+    private void removeRow(ProfessionTable table, int row) {
+        table.markRemoved(row);
+        if (!ticking) {
+            compactTables();
+        }
+    }
+    
+    /**
+     * Remove as linhas marcadas de todas as tabelas, mantendo o índice por UUID atualizado
+     */
+    private void compactTables() {
+        for (int index = 0; index < tables.length; index++) {
+            tables[index].removeMarkedRows(rowListeners[index]);
+        }
     }
-}
\ No newline at end of file
+}
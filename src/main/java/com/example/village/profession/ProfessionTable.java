@@ -0,0 +1,281 @@
+package com.example.village.profession;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Tabela com o estado de todos os villagers de uma profissão, organizada em arrays paralelos
+ * Cada villager ocupa uma linha; as colunas comuns (UUID, hash, entidade carregada e flags) ficam aqui
+ * e cada profissão acrescenta as suas próprias colunas primitivas
+ * As linhas são mantidas contíguas: uma linha removida recebe a última linha da tabela
+ * Cada linha pode ser gravada no NBT do villager e restaurada quando ele é lido, sem reequipar nem reiniciar tarefas
+ */
+public abstract class ProfessionTable implements VillagerProfession {
+    
+    // Capacidade inicial de todas as colunas, inclusive as das profissões
+    protected static final int INITIAL_CAPACITY = 16;
+    
+    // Flags comuns a todas as profissões; cada profissão usa os bits seguintes para as suas flags
+    protected static final int FLAG_REMOVED = 1;
+    protected static final int FLAG_HAS_EQUIPMENT = 1 << 1;
+    protected static final int FIRST_PROFESSION_FLAG = 1 << 2;
+    
+    // Colunas comuns
+    private UUID[] ids = new UUID[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private VillagerEntity[] handles = new VillagerEntity[INITIAL_CAPACITY];
+    private int[] flags = new int[INITIAL_CAPACITY];
+    private int size = 0;
+    private boolean hasPendingRemovals = false;
+    
+    // Linhas de cada grupo, para que uma passada visite apenas o seu grupo (null quando precisa ser refeito)
+    private IntArrayList[] bucketRows = null;
+    
+    /**
+     * Redimensiona as colunas específicas da profissão para uma nova capacidade
+     */
+    protected abstract void growColumns(int capacity);
+    
+    /**
+     * Copia as colunas específicas da profissão de uma linha para outra
+     */
+    protected abstract void moveColumns(int from, int to);
+    
+    /**
+     * Restaura as colunas específicas da profissão de uma linha ao estado inicial
+     */
+    protected abstract void clearColumns(int row);
+    
+    /**
+     * Grava as colunas específicas da profissão de uma linha em NBT
+     */
+    protected abstract void writeColumns(int row, NbtCompound nbt);
+    
+    /**
+     * Lê as colunas específicas da profissão de uma linha a partir do NBT gravado por writeColumns
+     */
+    protected abstract void readColumns(int row, NbtCompound nbt);
+    
+    /**
+     * Adiciona uma linha para um villager
+     * @param villager O villager
+     * @return A linha ocupada pelo villager
+     */
+    public int addRow(VillagerEntity villager) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            handles = Arrays.copyOf(handles, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            growColumns(capacity);
+        }
+        
+        int row = size++;
+        ids[row] = villager.getUuid();
+        hashes[row] = HashCommon.mix(villager.getUuid().hashCode()) & Integer.MAX_VALUE;
+        handles[row] = villager;
+        flags[row] = 0;
+        clearColumns(row);
+        if (bucketRows != null) {
+            bucketRows[hashes[row] % bucketRows.length].add(row);
+        }
+        return row;
+    }
+    
+    /**
+     * Grava o estado de uma linha em NBT
+     * @param row A linha
+     * @return O NBT com as flags e as colunas da profissão
+     */
+    public NbtCompound writeRow(int row) {
+        NbtCompound nbt = new NbtCompound();
+        nbt.putInt("Flags", flags[row] & ~FLAG_REMOVED);
+        writeColumns(row, nbt);
+        return nbt;
+    }
+    
+    /**
+     * Adiciona uma linha para um villager com o estado gravado por writeRow
+     * A linha fica sem entidade associada até o villager ser carregado no mundo
+     * @param villager O villager que está sendo lido
+     * @param nbt O NBT da linha
+     * @return A linha ocupada pelo villager
+     */
+    public int readRow(VillagerEntity villager, NbtCompound nbt) {
+        int row = addRow(villager);
+        handles[row] = null;
+        flags[row] = nbt.getInt("Flags", 0) & ~FLAG_REMOVED;
+        readColumns(row, nbt);
+        return row;
+    }
+    
+    /**
+     * Grava um UUID opcional em NBT
+     */
+    protected static void putUuid(NbtCompound nbt, String key, UUID id) {
+        if (id != null) {
+            nbt.putString(key, id.toString());
+        }
+    }
+    
+    /**
+     * Lê um UUID gravado por putUuid
+     * @return O UUID, ou null se estiver ausente ou inválido
+     */
+    protected static UUID getUuid(NbtCompound nbt, String key) {
+        String value = nbt.getString(key, "");
+        if (value.isEmpty()) {
+            return null;
+        }
+        
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Processa as linhas de um grupo da tabela
+     * Linhas cujo villager não existe mais são marcadas para remoção em {@link #removeMarkedRows}
+     * Cada villager é processado no mundo em que está
+     * @param bucket O grupo a processar
+     * @param bucketCount A quantidade de grupos
+     */
+    public void tickBucket(int bucket, int bucketCount) {
+        if (bucketRows == null || bucketRows.length != bucketCount) {
+            rebuildBucketRows(bucketCount);
+        }
+        
+        // Linhas adicionadas durante a passada são processadas apenas na próxima
+        IntArrayList rows = bucketRows[bucket];
+        int count = rows.size();
+        for (int i = 0; i < count; i++) {
+            int row = rows.getInt(i);
+            VillagerEntity villager = handles[row];
+            if (villager == null || (flags[row] & FLAG_REMOVED) != 0) {
+                continue; // Villager descarregado ou removido nesta passada
+            }
+            
+            if (villager.isRemoved()) {
+                // O villager não existe mais, remove a linha no fim da passada
+                markRemoved(row);
+                continue;
+            }
+            
+            // Executa as ações da profissão
+            ServerWorld world = (ServerWorld) villager.getWorld();
+            onTick(row, villager, world);
+            
+            // Verifica se o villager pode armazenar itens
+            if (canStoreItems(row, villager, world)) {
+                storeItems(row, villager, world);
+            }
+        }
+    }
+    
+    /**
+     * Refaz a lista de linhas de cada grupo para uma quantidade de grupos
+     */
+    private void rebuildBucketRows(int bucketCount) {
+        bucketRows = new IntArrayList[bucketCount];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketRows[bucket] = new IntArrayList(size / bucketCount + 1);
+        }
+        for (int row = 0; row < size; row++) {
+            bucketRows[hashes[row] % bucketCount].add(row);
+        }
+    }
+    
+    /**
+     * Marca uma linha para remoção no fim da passada
+     */
+    public void markRemoved(int row) {
+        flags[row] |= FLAG_REMOVED;
+        handles[row] = null;
+        hasPendingRemovals = true;
+    }
+    
+    /**
+     * Remove as linhas marcadas, movendo a última linha para o lugar de cada uma
+     * @param listener Recebe o UUID de cada villager removido e de cada villager que mudou de linha
+     */
+    public void removeMarkedRows(RowListener listener) {
+        if (!hasPendingRemovals) {
+            return;
+        }
+        hasPendingRemovals = false;
+        
+        // As linhas mudam de posição; os grupos são refeitos na próxima passada
+        bucketRows = null;
+        
+        // Percorre de trás para frente para que a linha movida já tenha sido verificada
+        for (int row = size - 1; row >= 0; row--) {
+            if ((flags[row] & FLAG_REMOVED) == 0) {
+                continue;
+            }
+            
+            listener.onRemoved(ids[row]);
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                hashes[row] = hashes[last];
+                handles[row] = handles[last];
+                flags[row] = flags[last];
+                moveColumns(last, row);
+                listener.onMoved(ids[row], row);
+            }
+            ids[last] = null;
+            handles[last] = null;
+            clearColumns(last);
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public UUID getId(int row) {
+        return ids[row];
+    }
+    
+    public VillagerEntity getHandle(int row) {
+        return handles[row];
+    }
+    
+    public void setHandle(int row, VillagerEntity villager) {
+        handles[row] = villager;
+    }
+    
+    public boolean isRemoved(int row) {
+        return (flags[row] & FLAG_REMOVED) != 0;
+    }
+    
+    protected boolean hasFlag(int row, int flag) {
+        return (flags[row] & flag) != 0;
+    }
+    
+    protected void setFlag(int row, int flag, boolean value) {
+        if (value) {
+            flags[row] |= flag;
+        } else {
+            flags[row] &= ~flag;
+        }
+    }
+    
+    /**
+     * Ouvinte das mudanças de linha durante a compactação da tabela
+     */
+    public interface RowListener {
+        void onRemoved(UUID villagerId);
+        
+        void onMoved(UUID villagerId, int newRow);
+    }
+}
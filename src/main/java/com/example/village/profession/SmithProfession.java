@@ -2,65 +2,91 @@ package com.example.village.profession;
 
 import com.example.VillagerExpansionMod;
 import com.example.village.VillageData;
+import com.example.village.inventory.VillagerInventorySystem;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.random.Random;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
  * Implementação da profissão de Ferreiro para villagers
  * Os ferreiros fabricam ferramentas e as armazenam em baús para uso por outros villagers
+ * O estado de todos os ferreiros fica nas colunas desta tabela, indexadas pela linha do villager
  */
-public class SmithProfession implements VillagerProfession {
+public class SmithProfession extends ProfessionTable {
     
+    // Fluxo aleatório compartilhado por todos os ferreiros
     private final Random random = Random.create();
-    private boolean hasEquipment = false;
-    private int craftCooldown = 0;
     private static final int CRAFT_INTERVAL = 400; // 20 segundos
     
-    // Estado de fabricação atual
-    private boolean isCrafting = false;
-    private Item currentCraftingItem = null;
-    private int craftingProgress = 0;
+    // Ferramentas que o ferreiro pode fabricar (o índice identifica a ferramenta nas colunas)
+    private static final Item[] TOOLS = {
+        Items.WOODEN_PICKAXE, Items.STONE_PICKAXE, Items.IRON_PICKAXE,
+        Items.WOODEN_AXE, Items.STONE_AXE, Items.IRON_AXE,
+        Items.WOODEN_SHOVEL, Items.STONE_SHOVEL, Items.IRON_SHOVEL,
+        Items.WOODEN_HOE, Items.STONE_HOE, Items.IRON_HOE,
+        Items.WOODEN_SWORD, Items.STONE_SWORD, Items.IRON_SWORD
+    };
+    private static final int NO_TOOL = -1;
     
-    // Mapa para rastrear ferramentas fabricadas e armazenadas
-    private final Map<Item, Integer> toolsInStorage = new HashMap<>();
+    private static final int FLAG_CRAFTING = FIRST_PROFESSION_FLAG;
     
-    // Lista de ferramentas que o ferreiro pode fabricar
-    private final List<Item> availableTools = new ArrayList<>();
+    // Colunas da profissão: cooldown, ferramenta em fabricação e progresso
+    private int[] craftCooldowns = new int[INITIAL_CAPACITY];
+    private byte[] craftingTools = new byte[INITIAL_CAPACITY];
+    private byte[] craftingProgress = new byte[INITIAL_CAPACITY];
     
-    public SmithProfession() {
-        // Inicializa a lista de ferramentas disponíveis
-        availableTools.add(Items.WOODEN_PICKAXE);
-        availableTools.add(Items.STONE_PICKAXE);
-        availableTools.add(Items.IRON_PICKAXE);
-        availableTools.add(Items.WOODEN_AXE);
-        availableTools.add(Items.STONE_AXE);
-        availableTools.add(Items.IRON_AXE);
-        availableTools.add(Items.WOODEN_SHOVEL);
-        availableTools.add(Items.STONE_SHOVEL);
-        availableTools.add(Items.IRON_SHOVEL);
-        availableTools.add(Items.WOODEN_HOE);
-        availableTools.add(Items.STONE_HOE);
-        availableTools.add(Items.IRON_HOE);
-        availableTools.add(Items.WOODEN_SWORD);
-        availableTools.add(Items.STONE_SWORD);
-        availableTools.add(Items.IRON_SWORD);
+    // Ferramentas fabricadas e armazenadas por cada ferreiro (linha * TOOLS.length + índice da ferramenta)
+    private int[] toolsInStorage = new int[INITIAL_CAPACITY * TOOLS.length];
+    
+    @Override
+    protected void growColumns(int capacity) {
+        craftCooldowns = Arrays.copyOf(craftCooldowns, capacity);
+        craftingTools = Arrays.copyOf(craftingTools, capacity);
+        craftingProgress = Arrays.copyOf(craftingProgress, capacity);
+        toolsInStorage = Arrays.copyOf(toolsInStorage, capacity * TOOLS.length);
+    }
+    
+    @Override
+    protected void moveColumns(int from, int to) {
+        craftCooldowns[to] = craftCooldowns[from];
+        craftingTools[to] = craftingTools[from];
+        craftingProgress[to] = craftingProgress[from];
+        System.arraycopy(toolsInStorage, from * TOOLS.length, toolsInStorage, to * TOOLS.length, TOOLS.length);
+    }
+    
+    @Override
+    protected void clearColumns(int row) {
+        craftCooldowns[row] = 0;
+        craftingTools[row] = NO_TOOL;
+        craftingProgress[row] = 0;
+        Arrays.fill(toolsInStorage, row * TOOLS.length, (row + 1) * TOOLS.length, 0);
+    }
+    
+    @Override
+    protected void writeColumns(int row, NbtCompound nbt) {
+        nbt.putInt("CraftCooldown", craftCooldowns[row]);
+        nbt.putByte("CraftingTool", craftingTools[row]);
+        nbt.putByte("CraftingProgress", craftingProgress[row]);
+        nbt.putIntArray("ToolsInStorage", Arrays.copyOfRange(toolsInStorage, row * TOOLS.length, (row + 1) * TOOLS.length));
+    }
+    
+    @Override
+    protected void readColumns(int row, NbtCompound nbt) {
+        craftCooldowns[row] = nbt.getInt("CraftCooldown", 0);
+        byte tool = nbt.getByte("CraftingTool", (byte) NO_TOOL);
+        craftingTools[row] = tool >= 0 && tool < TOOLS.length ? tool : NO_TOOL;
+        craftingProgress[row] = nbt.getByte("CraftingProgress", (byte) 0);
         
-        // Inicializa o mapa de ferramentas em armazenamento
-        for (Item tool : availableTools) {
-            toolsInStorage.put(tool, 0);
-        }
+        int[] tools = nbt.getIntArray("ToolsInStorage").orElse(new int[0]);
+        System.arraycopy(tools, 0, toolsInStorage, row * TOOLS.length, Math.min(tools.length, TOOLS.length));
     }
     
     @Override
@@ -69,66 +95,47 @@ public class SmithProfession implements VillagerProfession {
     }
     
     @Override
-    public void onTick(VillagerEntity villager, ServerWorld world) {
+    public void onTick(int row, VillagerEntity villager, ServerWorld world) {
         // Equipa o villager com ferramentas de ferreiro se ainda não estiver equipado
-        if (!hasEquipment) {
+        if (!hasFlag(row, FLAG_HAS_EQUIPMENT)) {
             equipSmith(villager);
-            hasEquipment = true;
+            setFlag(row, FLAG_HAS_EQUIPMENT, true);
         }
         
         // Se já está fabricando, continua a tarefa
-        if (isCrafting) {
-            continueCraftingTask(villager, world);
+        if (hasFlag(row, FLAG_CRAFTING)) {
+            continueCraftingTask(row, villager, world);
             return;
         }
         
         // Tenta iniciar uma nova tarefa de fabricação
-        craftCooldown--;
-        if (craftCooldown <= 0) {
-            tryStartCrafting(villager, world);
-            craftCooldown = CRAFT_INTERVAL;
+        if (--craftCooldowns[row] <= 0) {
+            tryStartCrafting(row, villager, world);
+            craftCooldowns[row] = CRAFT_INTERVAL;
         }
     }
     
     @Override
-    public boolean canStoreItems(VillagerEntity villager, ServerWorld world) {
-        // Verifica se o villager tem itens para armazenar
-        return !villager.getInventory().isEmpty();
+    public boolean canStoreItems(int row, VillagerEntity villager, ServerWorld world) {
+        // Verifica se o villager tem itens para armazenar no inventário estendido
+        return !VillagerInventorySystem.getInventory(villager).isEmpty();
     }
     
     @Override
-    public boolean storeItems(VillagerEntity villager, ServerWorld world) {
-        // Procura por baús próximos para armazenar itens
-        BlockPos villagerPos = villager.getBlockPos();
-        int searchRadius = 16;
+    public boolean storeItems(int row, VillagerEntity villager, ServerWorld world) {
+        // Deposita as ferramentas no baú mais próximo; o estoque da vila é atualizado pelo índice
+        if (!VillagerInventorySystem.storeItemsInChest(villager, world)) {
+            return false; // Não encontrou baús próximos
+        }
         
-        // Procura por baús em um raio ao redor do villager
-        for (int x = -searchRadius; x <= searchRadius; x++) {
-            for (int y = -3; y <= 3; y++) {
-                for (int z = -searchRadius; z <= searchRadius; z++) {
-                    BlockPos pos = villagerPos.add(x, y, z);
-                    
-                    // Verifica se o bloco é um baú
-                    if (world.getBlockState(pos).getBlock().equals(net.minecraft.block.Blocks.CHEST)) {
-                        // Simula o armazenamento de itens (em uma implementação completa, usaríamos o inventário do baú)
-                        VillagerExpansionMod.LOGGER.info("Ferreiro " + villager.getUuid() + " armazenou ferramentas em um baú em " + pos);
-                        
-                        // Atualiza o registro de ferramentas armazenadas
-                        if (currentCraftingItem != null) {
-                            int currentAmount = toolsInStorage.getOrDefault(currentCraftingItem, 0);
-                            toolsInStorage.put(currentCraftingItem, currentAmount + 1);
-                            VillagerExpansionMod.LOGGER.info("Ferreiro armazenou " + currentCraftingItem.getName().getString() + ". Total em estoque: " + (currentAmount + 1));
-                        }
-                        
-                        // Limpa o inventário do villager (simulação)
-                        // Em uma implementação completa, transferiríamos os itens para o baú
-                        return true;
-                    }
-                }
-            }
+        // Atualiza o registro de ferramentas armazenadas
+        int tool = craftingTools[row];
+        if (tool != NO_TOOL) {
+            int currentAmount = ++toolsInStorage[row * TOOLS.length + tool];
+            VillagerExpansionMod.LOGGER.info("Ferreiro armazenou " + TOOLS[tool].getName().getString() + ". Total em estoque: " + currentAmount);
         }
         
-        return false; // Não encontrou baús próximos
+        return true;
     }
     
     /**
@@ -153,10 +160,11 @@ public class SmithProfession implements VillagerProfession {
     
     /**
      * Tenta iniciar uma tarefa de fabricação
+     * @param row A linha do villager
      * @param villager O villager ferreiro
      * @param world O mundo do servidor
      */
-    private void tryStartCrafting(VillagerEntity villager, ServerWorld world) {
+    private void tryStartCrafting(int row, VillagerEntity villager, ServerWorld world) {
         // Encontra a vila do villager
         VillageData villagerVillage = null;
         UUID villagerId = villager.getUuid();
@@ -172,96 +180,117 @@ public class SmithProfession implements VillagerProfession {
             return; // Villager não pertence a nenhuma vila
         }
         
-        // Verifica quais ferramentas estão em falta
-        List<Item> toolsNeeded = new ArrayList<>();
-        for (Item tool : availableTools) {
-            int currentAmount = toolsInStorage.getOrDefault(tool, 0);
+        // Verifica quais ferramentas estão em falta, usando o estoque real da vila quando houver baús indexados
+        boolean useStockIndex = villagerVillage.getStockIndex().getChestCount() > 0;
+        int[] toolsNeeded = new int[TOOLS.length];
+        int neededCount = 0;
+        for (int tool = 0; tool < TOOLS.length; tool++) {
+            int currentAmount = useStockIndex
+                    ? villagerVillage.getStockIndex().getCount(TOOLS[tool])
+                    : toolsInStorage[row * TOOLS.length + tool];
             if (currentAmount < 2) { // Mantém pelo menos 2 de cada ferramenta
-                toolsNeeded.add(tool);
+                toolsNeeded[neededCount++] = tool;
             }
         }
         
-        if (toolsNeeded.isEmpty()) {
+        if (neededCount == 0) {
             return; // Não há necessidade de fabricar novas ferramentas
         }
         
         // Escolhe uma ferramenta aleatória para fabricar
-        currentCraftingItem = toolsNeeded.get(random.nextInt(toolsNeeded.size()));
+        int tool = toolsNeeded[random.nextInt(neededCount)];
+        craftingTools[row] = (byte) tool;
         
         // Inicia a fabricação
-        isCrafting = true;
-        craftingProgress = 0;
-        VillagerExpansionMod.LOGGER.info("Ferreiro " + villager.getUuid() + " iniciou fabricação de " + currentCraftingItem.getName().getString());
+        setFlag(row, FLAG_CRAFTING, true);
+        craftingProgress[row] = 0;
+        VillagerExpansionMod.LOGGER.info("Ferreiro " + villager.getUuid() + " iniciou fabricação de " + TOOLS[tool].getName().getString());
     }
     
     /**
      * Continua uma tarefa de fabricação em andamento
+     * @param row A linha do villager
      * @param villager O villager ferreiro
      * @param world O mundo do servidor
      */
-    private void continueCraftingTask(VillagerEntity villager, ServerWorld world) {
-        if (currentCraftingItem == null) {
-            isCrafting = false;
+    private void continueCraftingTask(int row, VillagerEntity villager, ServerWorld world) {
+        if (craftingTools[row] == NO_TOOL) {
+            setFlag(row, FLAG_CRAFTING, false);
             return;
         }
         
         // Simula o progresso da fabricação
-        craftingProgress += 10; // Incrementa o progresso em 10%
+        craftingProgress[row] += 10; // Incrementa o progresso em 10%
         
-        if (craftingProgress >= 100) {
+        if (craftingProgress[row] >= 100) {
             // Fabricação concluída
-            finishCrafting(villager, world);
+            finishCrafting(row, villager, world);
         } else {
             // Ainda fabricando
-            VillagerExpansionMod.LOGGER.info("Ferreiro " + villager.getUuid() + " progresso da fabricação: " + craftingProgress + "%");
+            VillagerExpansionMod.LOGGER.info("Ferreiro " + villager.getUuid() + " progresso da fabricação: " + craftingProgress[row] + "%");
         }
     }
     
     /**
      * Finaliza a fabricação de uma ferramenta
+     * @param row A linha do villager
      * @param villager O villager ferreiro
      * @param world O mundo do servidor
      */
-    private void finishCrafting(VillagerEntity villager, ServerWorld world) {
+    private void finishCrafting(int row, VillagerEntity villager, ServerWorld world) {
+        Item craftedTool = TOOLS[craftingTools[row]];
+        
         // Adiciona a ferramenta ao inventário do villager
-        villager.getInventory().insertStack(new ItemStack(currentCraftingItem));
+        VillagerInventorySystem.addItemToInventory(villager, craftedTool, 1);
         
-        VillagerExpansionMod.LOGGER.info("Ferreiro " + villager.getUuid() + " concluiu fabricação de " + currentCraftingItem.getName().getString());
+        VillagerExpansionMod.LOGGER.info("Ferreiro " + villager.getUuid() + " concluiu fabricação de " + craftedTool.getName().getString());
         
         // Tenta armazenar a ferramenta em um baú
-        if (storeItems(villager, world)) {
+        if (storeItems(row, villager, world)) {
             VillagerExpansionMod.LOGGER.info("Ferreiro armazenou a ferramenta fabricada em um baú");
         } else {
             VillagerExpansionMod.LOGGER.info("Ferreiro não encontrou um baú para armazenar a ferramenta");
         }
         
         // Reseta o estado de fabricação
-        isCrafting = false;
-        currentCraftingItem = null;
-        craftingProgress = 0;
+        setFlag(row, FLAG_CRAFTING, false);
+        craftingTools[row] = NO_TOOL;
+        craftingProgress[row] = 0;
     }
     
     /**
      * Verifica se há ferramentas disponíveis para um tipo específico
+     * @param row A linha do ferreiro
      * @param toolType O tipo de ferramenta desejada
      * @return true se há ferramentas disponíveis, false caso contrário
      */
-    public boolean hasToolAvailable(Item toolType) {
-        return toolsInStorage.getOrDefault(toolType, 0) > 0;
+    public boolean hasToolAvailable(int row, Item toolType) {
+        int tool = indexOfTool(toolType);
+        return tool != NO_TOOL && toolsInStorage[row * TOOLS.length + tool] > 0;
     }
     
     /**
      * Obtém uma ferramenta do armazenamento
+     * @param row A linha do ferreiro
      * @param toolType O tipo de ferramenta desejada
      * @return true se a ferramenta foi obtida com sucesso, false caso contrário
      */
-    public boolean retrieveTool(Item toolType) {
-        int currentAmount = toolsInStorage.getOrDefault(toolType, 0);
-        if (currentAmount > 0) {
-            toolsInStorage.put(toolType, currentAmount - 1);
-            VillagerExpansionMod.LOGGER.info("Ferramenta " + toolType.getName().getString() + " retirada do armazenamento. Restantes: " + (currentAmount - 1));
-            return true;
+    public boolean retrieveTool(int row, Item toolType) {
+        if (!hasToolAvailable(row, toolType)) {
+            return false;
+        }
+        
+        int currentAmount = --toolsInStorage[row * TOOLS.length + indexOfTool(toolType)];
+        VillagerExpansionMod.LOGGER.info("Ferramenta " + toolType.getName().getString() + " retirada do armazenamento. Restantes: " + currentAmount);
+        return true;
+    }
+    
+    private static int indexOfTool(Item toolType) {
+        for (int tool = 0; tool < TOOLS.length; tool++) {
+            if (TOOLS[tool] == toolType) {
+                return tool;
+            }
         }
-        return false;
+        return NO_TOOL;
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.example.village.profession;
+
+import java.util.Arrays;
+
+/**
+ * Histograma do tempo gasto por tick em um trabalho periódico
+ * Cada tick medido cai em uma faixa de duração de escala aproximadamente logarítmica,
+ * o que permite ver se o custo está concentrado em picos ou distribuído entre os ticks
+ */
+public class TickTimeHistogram {
+    
+    // Limites superiores (exclusivos) de cada faixa, em microssegundos; a última faixa não tem limite
+    private static final long[] BOUNDS_MICROS = {10, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000};
+    
+    private final long[] counts = new long[BOUNDS_MICROS.length + 1];
+    private long samples = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+    
+    /**
+     * Registra a duração de um tick
+     * @param nanos A duração em nanossegundos
+     */
+    public void record(long nanos) {
+        long micros = nanos / 1_000;
+        int bucket = 0;
+        while (bucket < BOUNDS_MICROS.length && micros >= BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        
+        counts[bucket]++;
+        samples++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+    
+    /**
+     * Zera o histograma
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        samples = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+    
+    public int getBucketCount() {
+        return counts.length;
+    }
+    
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+    
+    /**
+     * Obtém a descrição da faixa de duração de um índice, como "<250us" ou ">=25000us"
+     */
+    public String getBucketLabel(int bucket) {
+        return bucket < BOUNDS_MICROS.length
+                ? "<" + BOUNDS_MICROS[bucket] + "us"
+                : ">=" + BOUNDS_MICROS[BOUNDS_MICROS.length - 1] + "us";
+    }
+    
+    public long getSamples() {
+        return samples;
+    }
+    
+    public double getAverageMicros() {
+        return samples > 0 ? totalNanos / 1_000.0 / samples : 0.0;
+    }
+    
+    public double getMaxMicros() {
+        return maxNanos / 1_000.0;
+    }
+}
@@ -6,6 +6,8 @@ import net.minecraft.server.world.ServerWorld;
 /**
  * Interface base para as profissões personalizadas de villagers
  * Define os métodos que todas as profissões devem implementar
+ * Cada profissão é uma única instância que guarda o estado de todos os seus villagers,
+ * e cada villager é identificado pela sua linha na tabela da profissão
  */
 public interface VillagerProfession {
     
@@ -17,24 +19,27 @@ public interface VillagerProfession {
     
     /**
      * Executa as ações específicas da profissão a cada tick
+     * @param row A linha do villager na tabela da profissão
      * @param villager O villager que possui esta profissão
      * @param world O mundo do servidor
      */
-    void onTick(VillagerEntity villager, ServerWorld world);
+    void onTick(int row, VillagerEntity villager, ServerWorld world);
     
     /**
      * Verifica se o villager pode armazenar itens em baús
+     * @param row A linha do villager na tabela da profissão
      * @param villager O villager que possui esta profissão
      * @param world O mundo do servidor
      * @return true se o villager pode armazenar itens, false caso contrário
      */
-    boolean canStoreItems(VillagerEntity villager, ServerWorld world);
+    boolean canStoreItems(int row, VillagerEntity villager, ServerWorld world);
     
     /**
      * Tenta armazenar os itens coletados em baús próximos
+     * @param row A linha do villager na tabela da profissão
      * @param villager O villager que possui esta profissão
      * @param world O mundo do servidor
      * @return true se os itens foram armazenados com sucesso, false caso contrário
      */
-    boolean storeItems(VillagerEntity villager, ServerWorld world);
-}
\ No newline at end of file
+    boolean storeItems(int row, VillagerEntity villager, ServerWorld world);
+}
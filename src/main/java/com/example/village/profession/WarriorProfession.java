@@ -2,6 +2,8 @@ package com.example.village.profession;
 
 import com.example.VillagerExpansionMod;
 import com.example.village.VillageData;
+import com.example.village.inventory.VillagerInventorySystem;
+import com.example.village.navigation.VillageNavigation;
 import com.example.village.relation.VillageRelationManager;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
@@ -12,10 +14,12 @@ import net.minecraft.entity.mob.HostileEntity;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Box;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
@@ -24,85 +28,99 @@ import java.util.UUID;
  * Implementação da profissão de Guerreiro para villagers
  * Os guerreiros defendem a vila contra ameaças e coletam itens dos inimigos derrotados
  * Também participam de conflitos entre vilas
+ * O estado de todos os guerreiros fica nas colunas desta tabela, indexadas pela linha do villager
  */
-public class WarriorProfession implements VillagerProfession {
+public class WarriorProfession extends ProfessionTable {
     
+    // Fluxo aleatório compartilhado por todos os guerreiros
     private final Random random = new Random();
-    private boolean hasEquipment = false;
-    private int patrolCooldown = 0;
     private static final int PATROL_INTERVAL = 200; // 10 segundos
-    
-    // Rastreamento de alvo para conflitos entre vilas
-    private UUID targetVillageId = null;
-    private boolean isAttacking = false;
-    private int conflictCooldown = 0;
     private static final int CONFLICT_CHECK_INTERVAL = 400; // 20 segundos
     
+    private static final int FLAG_ATTACKING = FIRST_PROFESSION_FLAG;
+    
+    // Colunas da profissão: cooldowns e vila alvo nos conflitos entre vilas
+    private int[] patrolCooldowns = new int[INITIAL_CAPACITY];
+    private int[] conflictCooldowns = new int[INITIAL_CAPACITY];
+    private UUID[] targetVillageIds = new UUID[INITIAL_CAPACITY];
+    
+    @Override
+    protected void growColumns(int capacity) {
+        patrolCooldowns = Arrays.copyOf(patrolCooldowns, capacity);
+        conflictCooldowns = Arrays.copyOf(conflictCooldowns, capacity);
+        targetVillageIds = Arrays.copyOf(targetVillageIds, capacity);
+    }
+    
+    @Override
+    protected void moveColumns(int from, int to) {
+        patrolCooldowns[to] = patrolCooldowns[from];
+        conflictCooldowns[to] = conflictCooldowns[from];
+        targetVillageIds[to] = targetVillageIds[from];
+    }
+    
+    @Override
+    protected void clearColumns(int row) {
+        patrolCooldowns[row] = 0;
+        conflictCooldowns[row] = 0;
+        targetVillageIds[row] = null;
+    }
+    
+    @Override
+    protected void writeColumns(int row, NbtCompound nbt) {
+        nbt.putInt("PatrolCooldown", patrolCooldowns[row]);
+        nbt.putInt("ConflictCooldown", conflictCooldowns[row]);
+        putUuid(nbt, "TargetVillage", targetVillageIds[row]);
+    }
+    
+    @Override
+    protected void readColumns(int row, NbtCompound nbt) {
+        patrolCooldowns[row] = nbt.getInt("PatrolCooldown", 0);
+        conflictCooldowns[row] = nbt.getInt("ConflictCooldown", 0);
+        targetVillageIds[row] = getUuid(nbt, "TargetVillage");
+    }
+    
     @Override
     public String getName() {
         return "Guerreiro";
     }
     
     @Override
-    public void onTick(VillagerEntity villager, ServerWorld world) {
+    public void onTick(int row, VillagerEntity villager, ServerWorld world) {
         // Equipa o villager com armas e armaduras se ainda não estiver equipado
-        if (!hasEquipment) {
+        if (!hasFlag(row, FLAG_HAS_EQUIPMENT)) {
             equipWarrior(villager);
-            hasEquipment = true;
+            setFlag(row, FLAG_HAS_EQUIPMENT, true);
         }
         
         // Verifica se deve participar de conflitos entre vilas
-        conflictCooldown--;
-        if (conflictCooldown <= 0) {
-            checkVillageConflicts(villager, world);
-            conflictCooldown = CONFLICT_CHECK_INTERVAL;
+        if (--conflictCooldowns[row] <= 0) {
+            checkVillageConflicts(row, villager, world);
+            conflictCooldowns[row] = CONFLICT_CHECK_INTERVAL;
         }
         
         // Se estiver atacando outra vila, foca nessa tarefa
-        if (isAttacking && targetVillageId != null) {
-            attackEnemyVillage(villager, world);
+        if (hasFlag(row, FLAG_ATTACKING) && targetVillageIds[row] != null) {
+            attackEnemyVillage(row, villager, world);
             return;
         }
         
         // Patrulha a área em busca de ameaças normais
-        patrolCooldown--;
-        if (patrolCooldown <= 0) {
+        if (--patrolCooldowns[row] <= 0) {
             patrolArea(villager, world);
-            patrolCooldown = PATROL_INTERVAL;
+            patrolCooldowns[row] = PATROL_INTERVAL;
         }
     }
     
     @Override
-    public boolean canStoreItems(VillagerEntity villager, ServerWorld world) {
-        // Verifica se o villager tem itens para armazenar
-        return !villager.getInventory().isEmpty();
+    public boolean canStoreItems(int row, VillagerEntity villager, ServerWorld world) {
+        // Verifica se o villager tem itens para armazenar no inventário estendido
+        return !VillagerInventorySystem.getInventory(villager).isEmpty();
     }
     
     @Override
-    public boolean storeItems(VillagerEntity villager, ServerWorld world) {
-        // Procura por baús próximos para armazenar itens
-        BlockPos villagerPos = villager.getBlockPos();
-        int searchRadius = 16;
-        
-        // Procura por baús em um raio ao redor do villager
-        for (int x = -searchRadius; x <= searchRadius; x++) {
-            for (int y = -3; y <= 3; y++) {
-                for (int z = -searchRadius; z <= searchRadius; z++) {
-                    BlockPos pos = villagerPos.add(x, y, z);
-                    
-                    // Verifica se o bloco é um baú
-                    if (world.getBlockState(pos).getBlock().equals(net.minecraft.block.Blocks.CHEST)) {
-                        // Simula o armazenamento de itens (em uma implementação completa, usaríamos o inventário do baú)
-                        VillagerExpansionMod.LOGGER.info("Guerreiro " + villager.getUuid() + " armazenou itens em um baú em " + pos);
-                        // Limpa o inventário do villager (simulação)
-                        // Em uma implementação completa, transferiríamos os itens para o baú
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        return false; // Não encontrou baús próximos
+    public boolean storeItems(int row, VillagerEntity villager, ServerWorld world) {
+        // Usa o sistema de inventário para armazenar itens
+        return VillagerInventorySystem.storeItemsInChest(villager, world);
     }
     
     /**
@@ -169,10 +187,11 @@ public class WarriorProfession implements VillagerProfession {
     
     /**
      * Verifica se há conflitos entre vilas e se este guerreiro deve participar
+     * @param row A linha do villager
      * @param villager O villager guerreiro
      * @param world O mundo do servidor
      */
-    private void checkVillageConflicts(VillagerEntity villager, ServerWorld world) {
+    private void checkVillageConflicts(int row, VillagerEntity villager, ServerWorld world) {
         // Encontra a vila do villager
         VillageData villagerVillage = null;
         UUID villagerId = villager.getUuid();
@@ -202,11 +221,10 @@ public class WarriorProfession implements VillagerProfession {
             if (relationManager.hasActiveConflict(villagerVillage.getVillageId(), otherVillage.getVillageId())) {
                 // Chance de participar do conflito (nem todos os guerreiros participam ao mesmo tempo)
                 if (random.nextFloat() < 0.7f) { // 70% de chance
-                    targetVillageId = otherVillage.getVillageId();
-                    isAttacking = true;
+                    setTargetVillage(row, otherVillage.getVillageId());
                     VillagerExpansionMod.LOGGER.info("Guerreiro " + villager.getUuid() + 
                                                   " mobilizado para conflito contra vila " + 
-                                                  targetVillageId);
+                                                  targetVillageIds[row]);
                     return;
                 }
             }
@@ -214,21 +232,22 @@ public class WarriorProfession implements VillagerProfession {
         
         // Se chegou aqui, não há conflitos ativos ou o guerreiro não foi selecionado para participar
         // Reseta o estado de ataque se estava atacando anteriormente
-        if (isAttacking) {
-            isAttacking = false;
-            targetVillageId = null;
+        if (hasFlag(row, FLAG_ATTACKING)) {
+            setTargetVillage(row, null);
             VillagerExpansionMod.LOGGER.info("Guerreiro " + villager.getUuid() + " retornou de conflito");
         }
     }
     
     /**
      * Ataca uma vila inimiga durante um conflito
+     * @param row A linha do villager
      * @param villager O villager guerreiro
      * @param world O mundo do servidor
      */
-    private void attackEnemyVillage(VillagerEntity villager, ServerWorld world) {
+    private void attackEnemyVillage(int row, VillagerEntity villager, ServerWorld world) {
+        UUID targetVillageId = targetVillageIds[row];
         if (targetVillageId == null) {
-            isAttacking = false;
+            setFlag(row, FLAG_ATTACKING, false);
             return;
         }
         
@@ -247,8 +266,7 @@ public class WarriorProfession implements VillagerProfession {
         
         if (targetVillage == null) {
             // Vila alvo não existe mais
-            isAttacking = false;
-            targetVillageId = null;
+            setTargetVillage(row, null);
             return;
         }
         
@@ -259,8 +277,8 @@ public class WarriorProfession implements VillagerProfession {
         double distanceToTarget = villager.getBlockPos().getSquaredDistance(targetPos);
         
         if (distanceToTarget > 100 * 100) { // Mais de 100 blocos de distância
-            // Guerreiro está longe da vila alvo, tenta se aproximar
-            // Em uma implementação completa, usaríamos pathfinding para mover o villager
+            // Guerreiro está longe da vila alvo, segue em direção a ela (pelo campo da vila alvo ao entrar na sua área)
+            VillageNavigation.moveTowards(villager, world, targetPos);
             VillagerExpansionMod.LOGGER.info("Guerreiro " + villager.getUuid() + 
                                           " se aproximando da vila alvo em " + targetPos);
             return;
@@ -321,34 +339,36 @@ public class WarriorProfession implements VillagerProfession {
         
         // Chance de encerrar o ataque e retornar à vila
         if (random.nextFloat() < 0.05f) { // 5% de chance a cada verificação
-            isAttacking = false;
-            targetVillageId = null;
+            setTargetVillage(row, null);
             VillagerExpansionMod.LOGGER.info("Guerreiro " + villager.getUuid() + " retornando à vila após ataque");
         }
     }
     
     /**
      * Define a vila alvo para ataque durante um conflito
+     * @param row A linha do guerreiro
      * @param targetId ID da vila alvo
      */
-    public void setTargetVillage(UUID targetId) {
-        this.targetVillageId = targetId;
-        this.isAttacking = targetId != null;
+    public void setTargetVillage(int row, UUID targetId) {
+        targetVillageIds[row] = targetId;
+        setFlag(row, FLAG_ATTACKING, targetId != null);
     }
     
     /**
      * Verifica se o guerreiro está atacando uma vila
+     * @param row A linha do guerreiro
      * @return true se está atacando, false caso contrário
      */
-    public boolean isAttacking() {
-        return isAttacking;
+    public boolean isAttacking(int row) {
+        return hasFlag(row, FLAG_ATTACKING);
     }
     
     /**
      * Obtém o ID da vila alvo
+     * @param row A linha do guerreiro
      * @return UUID da vila alvo, ou null se não estiver atacando
      */
-    public UUID getTargetVillageId() {
-        return targetVillageId;
+    public UUID getTargetVillageId(int row) {
+        return targetVillageIds[row];
     }
 }
\ No newline at end of file
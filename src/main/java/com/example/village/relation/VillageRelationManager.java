@@ -4,6 +4,7 @@ import com.example.VillagerExpansionMod;
 import com.example.village.VillageData;
 import com.example.village.profession.ProfessionManager;
 import com.example.village.profession.WarriorProfession;
+import com.example.village.resources.ResourceFlowSource;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
@@ -296,10 +297,10 @@ public class VillageRelationManager {
             int foodStolen = Math.min(25, defender.getFoodResource());
             
             // Remove recursos da vila defensora
-            defender.consumeResources(woodStolen, stoneStolen, foodStolen);
+            defender.consumeResources(woodStolen, stoneStolen, foodStolen, ResourceFlowSource.RAID);
             
             // Adiciona recursos à vila atacante
-            attacker.addResources(woodStolen, stoneStolen, foodStolen);
+            attacker.addResources(woodStolen, stoneStolen, foodStolen, ResourceFlowSource.RAID);
             
             // Deteriora ainda mais a relação
             int currentReputation = villageRelations.getOrDefault(relationKey, 0);
@@ -0,0 +1,173 @@
+package com.example.village.resources;
+
+/**
+ * Registro circular de tamanho fixo das movimentações de recursos de uma vila
+ * Cada entrada guarda (tick, recurso, variação, origem) em arrays primitivos,
+ * sobrescrevendo as entradas mais antigas quando o registro está cheio
+ */
+public class ResourceFlowLog {
+    
+    public static final int TICKS_PER_MINUTE = 20 * 60;
+    public static final int TICKS_PER_HOUR = TICKS_PER_MINUTE * 60;
+    
+    // Capacidade do registro (entradas)
+    private static final int CAPACITY = 2048;
+    
+    private static final ResourceType[] RESOURCES = ResourceType.values();
+    private static final ResourceFlowSource[] SOURCES = ResourceFlowSource.values();
+    
+    private final long[] ticks = new long[CAPACITY];
+    private final byte[] resources = new byte[CAPACITY];
+    private final int[] deltas = new int[CAPACITY];
+    private final byte[] sources = new byte[CAPACITY];
+    
+    // Próxima posição de escrita e quantidade de entradas válidas
+    private int head = 0;
+    private int size = 0;
+    
+    // Totais acumulados desde a criação da vila, por recurso
+    private final long[] totalIn = new long[RESOURCES.length];
+    private final long[] totalOut = new long[RESOURCES.length];
+    
+    /**
+     * Visitante das entradas do registro, usado por comandos e exportadores de métricas
+     */
+    public interface FlowVisitor {
+        void visit(long tick, ResourceType resource, int delta, ResourceFlowSource source);
+    }
+    
+    /**
+     * Registra uma movimentação de recurso
+     * @param tick O tick do servidor
+     * @param resource O recurso
+     * @param delta A variação (positiva para entrada, negativa para saída)
+     * @param source A origem da movimentação
+     */
+    public void record(long tick, ResourceType resource, int delta, ResourceFlowSource source) {
+        if (delta == 0) {
+            return;
+        }
+        
+        ticks[head] = tick;
+        resources[head] = (byte) resource.ordinal();
+        deltas[head] = delta;
+        sources[head] = (byte) source.ordinal();
+        head = (head + 1) % CAPACITY;
+        if (size < CAPACITY) {
+            size++;
+        }
+        
+        if (delta > 0) {
+            totalIn[resource.ordinal()] += delta;
+        } else {
+            totalOut[resource.ordinal()] -= delta;
+        }
+    }
+    
+    /**
+     * Soma as variações líquidas de um recurso desde um tick
+     * @param resource O recurso
+     * @param sinceTick O tick inicial (inclusivo)
+     * @return A soma das variações no intervalo
+     */
+    public int sumSince(ResourceType resource, long sinceTick) {
+        int sum = 0;
+        byte ordinal = (byte) resource.ordinal();
+        
+        // Percorre das entradas mais novas para as mais antigas e para ao sair da janela
+        for (int i = 0, index = newestIndex(); i < size; i++, index = previousIndex(index)) {
+            if (ticks[index] < sinceTick) {
+                break;
+            }
+            if (resources[index] == ordinal) {
+                sum += deltas[index];
+            }
+        }
+        
+        return sum;
+    }
+    
+    /**
+     * Soma as variações de um recurso desde um tick, separadas por origem
+     * @param resource O recurso
+     * @param sinceTick O tick inicial (inclusivo)
+     * @return Array indexado pelo ordinal de ResourceFlowSource
+     */
+    public int[] sumBySource(ResourceType resource, long sinceTick) {
+        int[] sums = new int[SOURCES.length];
+        byte ordinal = (byte) resource.ordinal();
+        
+        for (int i = 0, index = newestIndex(); i < size; i++, index = previousIndex(index)) {
+            if (ticks[index] < sinceTick) {
+                break;
+            }
+            if (resources[index] == ordinal) {
+                sums[sources[index]] += deltas[index];
+            }
+        }
+        
+        return sums;
+    }
+    
+    /**
+     * Calcula a variação líquida por minuto de um recurso, medida na última janela
+     * Se o registro não cobre a janela inteira, a taxa é calculada sobre o período coberto
+     * @param resource O recurso
+     * @param now O tick atual
+     * @param windowTicks O tamanho da janela em ticks
+     * @return A variação média por minuto
+     */
+    public double getRatePerMinute(ResourceType resource, long now, int windowTicks) {
+        long since = now - windowTicks;
+        
+        // Usa pelo menos um minuto como base para não inflar a taxa de registros muito recentes
+        long covered = Math.max(TICKS_PER_MINUTE, now - Math.max(since, getOldestTick(now)));
+        return sumSince(resource, since) * (double) TICKS_PER_MINUTE / covered;
+    }
+    
+    /**
+     * Visita as entradas desde um tick, das mais antigas para as mais novas
+     * @param sinceTick O tick inicial (inclusivo)
+     * @param visitor O visitante
+     */
+    public void forEachSince(long sinceTick, FlowVisitor visitor) {
+        int start = (head - size + CAPACITY) % CAPACITY;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % CAPACITY;
+            if (ticks[index] >= sinceTick) {
+                visitor.visit(ticks[index], RESOURCES[resources[index]], deltas[index], SOURCES[sources[index]]);
+            }
+        }
+    }
+    
+    /**
+     * Obtém o tick da entrada mais antiga ainda no registro
+     * @param now O tick atual, retornado se o registro estiver vazio
+     */
+    public long getOldestTick(long now) {
+        if (size == 0) {
+            return now;
+        }
+        return ticks[(head - size + CAPACITY) % CAPACITY];
+    }
+    
+    public long getTotalIn(ResourceType resource) {
+        return totalIn[resource.ordinal()];
+    }
+    
+    public long getTotalOut(ResourceType resource) {
+        return totalOut[resource.ordinal()];
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    private int newestIndex() {
+        return (head - 1 + CAPACITY) % CAPACITY;
+    }
+    
+    private int previousIndex(int index) {
+        return (index - 1 + CAPACITY) % CAPACITY;
+    }
+}
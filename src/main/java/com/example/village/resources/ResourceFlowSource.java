@@ -0,0 +1,15 @@
+package com.example.village.resources;
+
+/**
+ * Enumeração das origens de uma movimentação de recursos da vila
+ */
+public enum ResourceFlowSource {
+    COLLECTION,   // Coleta de madeira e pedra
+    FARMING,      // Colheita das fazendas
+    MINING,       // Tarefas de mineração
+    MINER,        // Entregas dos villagers mineradores
+    EXPLORATION,  // Descobertas dos exploradores
+    BUILDING,     // Consumo para construções
+    POPULATION,   // Consumo para novos villagers
+    RAID          // Saques entre vilas
+}
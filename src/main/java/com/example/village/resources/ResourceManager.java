@@ -76,8 +76,8 @@ public class ResourceManager {
             if (village.getFarmCount() > 0) {
                 // Simula a coleta de alimentos das fazendas
                 int foodCollected = random.nextInt(5) + 1; // 1-5 unidades de comida
-                village.addResources(0, 0, foodCollected);
-                VillagerExpansionMod.LOGGER.info("Vila coletou " + foodCollected + " unidades de comida das fazendas");
+                village.addResources(0, 0, foodCollected, ResourceFlowSource.FARMING);
+                VillagerExpansionMod.LOGGER.debug("Vila coletou " + foodCollected + " unidades de comida das fazendas");
             }
         }
     }
@@ -178,12 +178,12 @@ public class ResourceManager {
         // Adiciona os recursos à vila
         switch (task.getResourceType()) {
             case WOOD:
-                village.addResources(amount, 0, 0);
-                VillagerExpansionMod.LOGGER.info("Vila coletou " + amount + " unidades de madeira");
+                village.addResources(amount, 0, 0, ResourceFlowSource.COLLECTION);
+                VillagerExpansionMod.LOGGER.debug("Vila coletou " + amount + " unidades de madeira");
                 break;
             case STONE:
-                village.addResources(0, amount, 0);
-                VillagerExpansionMod.LOGGER.info("Vila coletou " + amount + " unidades de pedra");
+                village.addResources(0, amount, 0, ResourceFlowSource.COLLECTION);
+                VillagerExpansionMod.LOGGER.debug("Vila coletou " + amount + " unidades de pedra");
                 break;
         }
         
@@ -208,21 +208,4 @@ public class ResourceManager {
         
         return false;
     }
-    
-    /**
-     * Obtém a quantidade de um item específico no inventário de um villager
-     */
-    public int getItemCount(VillagerEntity villager, Item item) {
-        int count = 0;
-        
-        // Conta a quantidade do item no inventário
-        for (int i = 0; i < villager.getInventory().size(); i++) {
-            ItemStack stack = villager.getInventory().getStack(i);
-            if (!stack.isEmpty() && stack.getItem() == item) {
-                count += stack.getCount();
-            }
-        }
-        
-        return count;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package com.example.village.terrain;
+
+import com.example.mixin.ServerChunkManagerInvoker;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.OptionalChunk;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkStatus;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Acesso a chunks sem bloquear a thread do servidor
+ * Chunks já carregados são devolvidos imediatamente; os demais são pedidos ao gerenciador de chunks
+ * e ficam disponíveis em ticks seguintes, quando o carregamento (ou a geração) termina
+ */
+public class AsyncChunkAccess {
+    
+    // Máximo de pedidos em andamento por mundo, para não inundar a geração de chunks
+    private static final int MAX_PENDING = 64;
+    
+    private final Map<RegistryKey<World>, Long2ObjectOpenHashMap<CompletableFuture<OptionalChunk<Chunk>>>> requests = new HashMap<>();
+    
+    /**
+     * Obtém um chunk se ele já estiver disponível, pedindo o carregamento em segundo plano caso contrário
+     * @param world O mundo do servidor
+     * @param chunkX A coordenada X do chunk
+     * @param chunkZ A coordenada Z do chunk
+     * @return O chunk, ou null se ainda não estiver disponível
+     */
+    public WorldChunk getIfReady(ServerWorld world, int chunkX, int chunkZ) {
+        WorldChunk loaded = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+        Long2ObjectOpenHashMap<CompletableFuture<OptionalChunk<Chunk>>> pending = getRequests(world);
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        if (loaded != null) {
+            pending.remove(key);
+            return loaded;
+        }
+        
+        CompletableFuture<OptionalChunk<Chunk>> future = pending.get(key);
+        if (future == null) {
+            request(world, pending, key, chunkX, chunkZ);
+            return null;
+        }
+        if (!future.isDone()) {
+            return null;
+        }
+        
+        // O pedido terminou; o chunk pode já ter sido descarregado, mas o objeto continua legível
+        OptionalChunk<Chunk> result = future.getNow(null);
+        Chunk chunk = result != null ? result.orElse(null) : null;
+        if (chunk instanceof WorldChunk worldChunk) {
+            return worldChunk;
+        }
+        
+        // Falhou; descarta para tentar de novo em uma próxima chamada
+        pending.remove(key);
+        return null;
+    }
+    
+    /**
+     * Pede o carregamento de um chunk em segundo plano, se ainda não estiver carregado nem pedido
+     */
+    public void prefetch(ServerWorld world, int chunkX, int chunkZ) {
+        if (world.getChunkManager().getWorldChunk(chunkX, chunkZ) != null) {
+            return;
+        }
+        
+        Long2ObjectOpenHashMap<CompletableFuture<OptionalChunk<Chunk>>> pending = getRequests(world);
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        if (!pending.containsKey(key)) {
+            request(world, pending, key, chunkX, chunkZ);
+        }
+    }
+    
+    /**
+     * Libera o pedido de um chunk que não é mais necessário
+     */
+    public void release(ServerWorld world, int chunkX, int chunkZ) {
+        Long2ObjectOpenHashMap<CompletableFuture<OptionalChunk<Chunk>>> pending = requests.get(world.getRegistryKey());
+        if (pending != null) {
+            pending.remove(ChunkPos.toLong(chunkX, chunkZ));
+        }
+    }
+    
+    private void request(ServerWorld world, Long2ObjectOpenHashMap<CompletableFuture<OptionalChunk<Chunk>>> pending,
+                         long key, int chunkX, int chunkZ) {
+        if (pending.size() >= MAX_PENDING) {
+            return; // Tenta de novo quando houver espaço
+        }
+        // Usa a variante sem espera: o ticket temporário mantém o pedido vivo até o chunk ficar pronto
+        ServerChunkManagerInvoker chunkManager = (ServerChunkManagerInvoker) world.getChunkManager();
+        pending.put(key, chunkManager.invokeGetChunkFuture(chunkX, chunkZ, ChunkStatus.FULL, true));
+    }
+    
+    private Long2ObjectOpenHashMap<CompletableFuture<OptionalChunk<Chunk>>> getRequests(ServerWorld world) {
+        return requests.computeIfAbsent(world.getRegistryKey(), key -> new Long2ObjectOpenHashMap<>());
+    }
+}
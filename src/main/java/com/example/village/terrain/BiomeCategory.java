@@ -0,0 +1,45 @@
+package com.example.village.terrain;
+
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.tag.BiomeTags;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.BiomeKeys;
+
+/**
+ * Categorias de bioma usadas nas decisões de exploração e construção
+ */
+public enum BiomeCategory {
+    OTHER,
+    FOREST,
+    DESERT,
+    SNOWY,
+    OCEAN,
+    MOUNTAIN;
+    
+    // Temperatura abaixo da qual a precipitação vira neve
+    private static final float SNOW_TEMPERATURE = 0.15f;
+    
+    /**
+     * Classifica um bioma
+     * @param biome O bioma
+     * @return A categoria do bioma
+     */
+    public static BiomeCategory of(RegistryEntry<Biome> biome) {
+        if (biome.isIn(BiomeTags.IS_OCEAN)) {
+            return OCEAN;
+        }
+        if (biome.matchesKey(BiomeKeys.DESERT) || biome.isIn(BiomeTags.IS_BADLANDS)) {
+            return DESERT;
+        }
+        if (biome.value().getTemperature() < SNOW_TEMPERATURE) {
+            return SNOWY;
+        }
+        if (biome.isIn(BiomeTags.IS_FOREST) || biome.isIn(BiomeTags.IS_TAIGA) || biome.isIn(BiomeTags.IS_JUNGLE)) {
+            return FOREST;
+        }
+        if (biome.isIn(BiomeTags.IS_MOUNTAIN)) {
+            return MOUNTAIN;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.village.terrain;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.source.BiomeCoords;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Grade em cache com a categoria e a faixa de temperatura do bioma de cada chunk
+ * O bioma é amostrado uma vez por chunk, na resolução de quarto de bloco: dos dados do chunk se ele estiver carregado,
+ * ou da fonte de biomas do gerador caso contrário, sem gerar chunks
+ * Os valores ficam em um array de bytes por região de 32x32 chunks, então cada consulta é uma leitura de array
+ */
+public class BiomeGrid {
+    
+    private static final int CHUNKS_PER_REGION = 32 * 32;
+    
+    // Bits de cada valor: categoria + 1 nos 4 bits baixos (0 = não amostrado) e faixa de temperatura nos 2 seguintes
+    private static final int CATEGORY_MASK = 0x0F;
+    private static final int TEMPERATURE_SHIFT = 4;
+    
+    private static final BiomeCategory[] CATEGORIES = BiomeCategory.values();
+    private static final BiomeTemperature[] TEMPERATURES = BiomeTemperature.values();
+    
+    private final Map<RegistryKey<World>, Long2ObjectOpenHashMap<byte[]>> regions = new HashMap<>();
+    
+    /**
+     * Obtém a categoria do bioma do chunk de uma posição
+     */
+    public BiomeCategory getCategory(ServerWorld world, BlockPos pos) {
+        return CATEGORIES[(getEntry(world, pos.getX() >> 4, pos.getZ() >> 4) & CATEGORY_MASK) - 1];
+    }
+    
+    /**
+     * Obtém a faixa de temperatura do bioma do chunk de uma posição
+     */
+    public BiomeTemperature getTemperature(ServerWorld world, BlockPos pos) {
+        return TEMPERATURES[getEntry(world, pos.getX() >> 4, pos.getZ() >> 4) >> TEMPERATURE_SHIFT];
+    }
+    
+    /**
+     * Obtém o valor em cache de um chunk, amostrando o bioma na primeira consulta
+     */
+    private int getEntry(ServerWorld world, int chunkX, int chunkZ) {
+        byte[] region = regions.computeIfAbsent(world.getRegistryKey(), key -> new Long2ObjectOpenHashMap<>())
+                .computeIfAbsent(ChunkPos.toLong(chunkX >> 5, chunkZ >> 5), key -> new byte[CHUNKS_PER_REGION]);
+        int index = (chunkX & 31) + ((chunkZ & 31) << 5);
+        if (region[index] == 0) {
+            RegistryEntry<Biome> biome = sampleBiome(world, chunkX, chunkZ);
+            region[index] = (byte) ((BiomeCategory.of(biome).ordinal() + 1) |
+                    (BiomeTemperature.of(biome.value().getTemperature()).ordinal() << TEMPERATURE_SHIFT));
+        }
+        return region[index];
+    }
+    
+    /**
+     * Amostra o bioma no centro de um chunk, na altura da superfície (ou do nível do mar, se não estiver carregado)
+     */
+    private RegistryEntry<Biome> sampleBiome(ServerWorld world, int chunkX, int chunkZ) {
+        int x = (chunkX << 4) + 8;
+        int z = (chunkZ << 4) + 8;
+        ServerChunkManager chunkManager = world.getChunkManager();
+        
+        WorldChunk chunk = chunkManager.getWorldChunk(chunkX, chunkZ);
+        if (chunk != null) {
+            int y = chunk.sampleHeightmap(Heightmap.Type.WORLD_SURFACE, x & 15, z & 15);
+            return chunk.getBiomeForNoiseGen(BiomeCoords.fromBlock(x), BiomeCoords.fromBlock(y), BiomeCoords.fromBlock(z));
+        }
+        
+        return chunkManager.getChunkGenerator().getBiomeSource().getBiome(
+                BiomeCoords.fromBlock(x), BiomeCoords.fromBlock(world.getSeaLevel()), BiomeCoords.fromBlock(z),
+                chunkManager.getNoiseConfig().getMultiNoiseSampler());
+    }
+}
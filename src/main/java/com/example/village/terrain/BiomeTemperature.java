@@ -0,0 +1,25 @@
+package com.example.village.terrain;
+
+/**
+ * Faixas de temperatura de bioma usadas para escolher os materiais das construções
+ */
+public enum BiomeTemperature {
+    COLD,
+    TEMPERATE,
+    HOT;
+    
+    /**
+     * Classifica a temperatura de um bioma
+     * @param temperature A temperatura base do bioma
+     * @return A faixa de temperatura
+     */
+    public static BiomeTemperature of(float temperature) {
+        if (temperature < 0.3f) {
+            return COLD;
+        }
+        if (temperature > 0.9f) {
+            return HOT;
+        }
+        return TEMPERATE;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.village.terrain;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.tag.BlockTags;
+
+/**
+ * Categorias de bloco de superfície usadas para classificar o terreno explorado
+ */
+public enum SurfaceCategory {
+    WATER,
+    LAVA,
+    TREE,
+    SAND,
+    SNOW,
+    OTHER;
+    
+    /**
+     * Classifica o bloco do topo de uma coluna
+     * @param state O estado do bloco de superfície
+     * @return A categoria do bloco
+     */
+    public static SurfaceCategory of(BlockState state) {
+        if (state.isOf(Blocks.WATER)) {
+            return WATER;
+        }
+        if (state.isOf(Blocks.LAVA)) {
+            return LAVA;
+        }
+        if (state.isIn(BlockTags.LOGS) || state.isIn(BlockTags.LEAVES)) {
+            return TREE;
+        }
+        if (state.isOf(Blocks.SAND)) {
+            return SAND;
+        }
+        if (state.isOf(Blocks.SNOW_BLOCK) || state.isOf(Blocks.SNOW) || state.isOf(Blocks.POWDER_SNOW)) {
+            return SNOW;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.village.terrain;
+
+import com.example.VillagerExpansionMod;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Classifica o terreno ao redor de um chunk em uma única passada de amostragem
+ * Os resumos ficam em cache por chunk, de modo que alvos próximos no mesmo chunk não repetem a amostragem,
+ * e os chunks são obtidos pelo acesso assíncrono, sem bloquear a thread do servidor
+ */
+public class TerrainClassifier {
+    
+    // Raio e espaçamento da amostragem ao redor do centro do chunk
+    private static final int SAMPLE_RADIUS = 16;
+    private static final int SAMPLE_STEP = 4;
+    
+    // Profundidade abaixo da superfície considerada na busca por cavernas
+    private static final int CAVE_DEPTH = 20;
+    private static final int CAVE_RADIUS = 3;
+    
+    // Quantidade máxima de resumos em cache por mundo
+    private static final int MAX_CACHED_CHUNKS = 1024;
+    
+    private final Map<RegistryKey<World>, Map<Long, TerrainSummary>> caches = new HashMap<>();
+    
+    /**
+     * Obtém o resumo do terreno do chunk de uma posição, calculando-o se ainda não estiver em cache
+     * Nunca carrega chunks na thread do servidor: se algum chunk da área ainda não estiver disponível,
+     * o carregamento é pedido em segundo plano e o resumo fica para uma próxima chamada
+     * @param world O mundo do servidor
+     * @param pos A posição
+     * @return O resumo do terreno ao redor do centro do chunk, ou null se os chunks ainda não estão disponíveis
+     */
+    public TerrainSummary getSummary(ServerWorld world, BlockPos pos) {
+        Map<Long, TerrainSummary> cache = caches.computeIfAbsent(world.getRegistryKey(), key -> createCache());
+        int chunkX = pos.getX() >> 4;
+        int chunkZ = pos.getZ() >> 4;
+        long chunkKey = ChunkPos.toLong(chunkX, chunkZ);
+        TerrainSummary summary = cache.get(chunkKey);
+        if (summary != null) {
+            return summary;
+        }
+        
+        // A área amostrada cobre o chunk e os seus vizinhos
+        AsyncChunkAccess chunkAccess = VillagerExpansionMod.getExpansionManager().getChunkAccess();
+        WorldChunk[] chunks = new WorldChunk[9];
+        boolean ready = true;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                WorldChunk chunk = chunkAccess.getIfReady(world, chunkX + dx, chunkZ + dz);
+                chunks[(dx + 1) * 3 + dz + 1] = chunk;
+                ready &= chunk != null;
+            }
+        }
+        if (!ready) {
+            return null;
+        }
+        
+        summary = classify(world, chunks, (chunkX << 4) + 8, (chunkZ << 4) + 8);
+        cache.put(chunkKey, summary);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                chunkAccess.release(world, chunkX + dx, chunkZ + dz);
+            }
+        }
+        return summary;
+    }
+    
+    /**
+     * Pede em segundo plano os chunks necessários para o resumo do chunk de uma posição
+     */
+    public void prefetch(ServerWorld world, BlockPos pos) {
+        Map<Long, TerrainSummary> cache = caches.get(world.getRegistryKey());
+        int chunkX = pos.getX() >> 4;
+        int chunkZ = pos.getZ() >> 4;
+        if (cache != null && cache.containsKey(ChunkPos.toLong(chunkX, chunkZ))) {
+            return;
+        }
+        
+        AsyncChunkAccess chunkAccess = VillagerExpansionMod.getExpansionManager().getChunkAccess();
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                chunkAccess.prefetch(world, chunkX + dx, chunkZ + dz);
+            }
+        }
+    }
+    
+    /**
+     * Amostra a superfície ao redor de um centro a partir dos 3x3 chunks da área
+     */
+    private TerrainSummary classify(ServerWorld world, WorldChunk[] chunks, int centerX, int centerZ) {
+        TerrainSummary summary = new TerrainSummary();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        int baseChunkX = (centerX >> 4) - 1;
+        int baseChunkZ = (centerZ >> 4) - 1;
+        
+        for (int x = centerX - SAMPLE_RADIUS; x <= centerX + SAMPLE_RADIUS; x += SAMPLE_STEP) {
+            for (int z = centerZ - SAMPLE_RADIUS; z <= centerZ + SAMPLE_RADIUS; z += SAMPLE_STEP) {
+                WorldChunk chunk = chunks[((x >> 4) - baseChunkX) * 3 + (z >> 4) - baseChunkZ];
+                
+                // Altura e bloco do topo da coluna (inclui fluidos e folhas)
+                int height = chunk.sampleHeightmap(Heightmap.Type.WORLD_SURFACE, x & 15, z & 15);
+                summary.addSample(SurfaceCategory.of(chunk.getBlockState(pos.set(x, height, z))), height);
+                if (x == centerX && z == centerZ) {
+                    summary.setCenterHeight(height);
+                }
+            }
+        }
+        
+        // Ar subterrâneo abaixo do centro, que fica inteiramente dentro do chunk central
+        int surfaceY = summary.getCenterHeight();
+        summary.setCaveAir((int) Math.round(VillagerExpansionMod.getExpansionManager().getVoidMap()
+                .estimateChunkAir(world, chunks[4], centerX - CAVE_RADIUS, centerX + CAVE_RADIUS,
+                                  surfaceY - CAVE_DEPTH, surfaceY, centerZ - CAVE_RADIUS, centerZ + CAVE_RADIUS)));
+        return summary;
+    }
+    
+    private static Map<Long, TerrainSummary> createCache() {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TerrainSummary> eldest) {
+                return size() > MAX_CACHED_CHUNKS;
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.village.terrain;
+
+/**
+ * Resumo do terreno de uma área: histograma das categorias de superfície amostradas,
+ * alturas da superfície e volume de ar subterrâneo estimado
+ */
+public class TerrainSummary {
+    
+    private final int[] counts = new int[SurfaceCategory.values().length];
+    private int samples = 0;
+    private int maxHeight = Integer.MIN_VALUE;
+    private int centerHeight = 0;
+    private int caveAir = 0;
+    
+    /**
+     * Adiciona uma amostra de superfície ao histograma
+     * @param category A categoria do bloco do topo
+     * @param height A altura do bloco do topo
+     */
+    void addSample(SurfaceCategory category, int height) {
+        counts[category.ordinal()]++;
+        samples++;
+        maxHeight = Math.max(maxHeight, height);
+    }
+    
+    void setCenterHeight(int centerHeight) {
+        this.centerHeight = centerHeight;
+    }
+    
+    void setCaveAir(int caveAir) {
+        this.caveAir = caveAir;
+    }
+    
+    /**
+     * Obtém o número de amostras de uma categoria
+     */
+    public int getCount(SurfaceCategory category) {
+        return counts[category.ordinal()];
+    }
+    
+    public int getSamples() {
+        return samples;
+    }
+    
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+    
+    public int getCenterHeight() {
+        return centerHeight;
+    }
+    
+    /**
+     * Obtém o volume de ar subterrâneo estimado abaixo do centro da área
+     */
+    public int getCaveAir() {
+        return caveAir;
+    }
+}
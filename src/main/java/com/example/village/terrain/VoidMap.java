@@ -0,0 +1,215 @@
+package com.example.village.terrain;
+
+import com.example.mixin.ChunkSectionAccessor;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mapa de vazios subterrâneos por seção de chunk
+ * Estima o volume de ar abaixo da superfície usando a contagem de blocos não vazios de cada seção,
+ * contando bloco a bloco apenas as seções que cruzam a superfície, com os resultados em cache até uma mudança de bloco
+ */
+public class VoidMap {
+    
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+    
+    // Ar subterrâneo de cada seção já avaliada, por mundo (chave: posição compactada da seção)
+    private final Map<RegistryKey<World>, Long2IntOpenHashMap> sectionAir = new HashMap<>();
+    
+    /**
+     * Verifica se há uma caverna em um volume abaixo da superfície
+     * @param world O mundo do servidor
+     * @param center O centro horizontal do volume
+     * @param radius O raio horizontal do volume
+     * @param minY A altura mínima do volume
+     * @param maxY A altura máxima do volume
+     * @param minAir O volume de ar mínimo para considerar uma caverna
+     * @return true se o ar subterrâneo estimado no volume atinge o mínimo
+     */
+    public boolean hasCave(ServerWorld world, BlockPos center, int radius, int minY, int maxY, int minAir) {
+        return estimateAir(world, center, radius, minY, maxY) >= minAir;
+    }
+    
+    /**
+     * Estima o volume de ar subterrâneo em um volume
+     * Cada seção contribui com o seu ar subterrâneo proporcional à parte da seção dentro do volume
+     * @return O volume de ar estimado, em blocos
+     */
+    public int estimateAir(ServerWorld world, BlockPos center, int radius, int minY, int maxY) {
+        int minX = center.getX() - radius;
+        int maxX = center.getX() + radius;
+        int minZ = center.getZ() - radius;
+        int maxZ = center.getZ() + radius;
+        double air = 0.0;
+        
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                // Só lê chunks já carregados, sem forçar o carregamento
+                WorldChunk chunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+                if (chunk != null) {
+                    air += estimateChunkAir(world, chunk, minX, maxX, minY, maxY, minZ, maxZ);
+                }
+            }
+        }
+        
+        return (int) Math.round(air);
+    }
+    
+    /**
+     * Estima o volume de ar subterrâneo na parte de um volume que cai dentro de um chunk
+     * Aceita chunks obtidos de forma assíncrona, mesmo que já não estejam carregados no mundo
+     * @return O volume de ar estimado, em blocos
+     */
+    public double estimateChunkAir(ServerWorld world, WorldChunk chunk,
+                                   int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        ChunkPos chunkPos = chunk.getPos();
+        int overlapX = Math.min(maxX, chunkPos.getEndX()) - Math.max(minX, chunkPos.getStartX()) + 1;
+        int overlapZ = Math.min(maxZ, chunkPos.getEndZ()) - Math.max(minZ, chunkPos.getStartZ()) + 1;
+        if (overlapX <= 0 || overlapZ <= 0) {
+            return 0.0;
+        }
+        
+        double air = 0.0;
+        for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+            int sectionAirCount = getUndergroundAir(world, chunk, sectionY);
+            if (sectionAirCount == 0) {
+                continue;
+            }
+            
+            int overlapY = Math.min(maxY, (sectionY << 4) + 15) - Math.max(minY, sectionY << 4) + 1;
+            air += sectionAirCount * ((double) overlapX * overlapY * overlapZ / SECTION_VOLUME);
+        }
+        return air;
+    }
+    
+    /**
+     * Obtém o volume de ar abaixo da superfície em uma seção
+     * @return O número de blocos de ar subterrâneos, ou 0 se a seção não existir
+     */
+    public int getUndergroundAir(ServerWorld world, WorldChunk chunk, int sectionY) {
+        int sectionIndex = chunk.sectionCoordToIndex(sectionY);
+        ChunkSection[] sections = chunk.getSectionArray();
+        if (sectionIndex < 0 || sectionIndex >= sections.length) {
+            return 0;
+        }
+        
+        // Só guarda em cache seções de chunks carregados, que são descartadas quando o chunk descarrega
+        ChunkPos chunkPos = chunk.getPos();
+        if (world.getChunkManager().getWorldChunk(chunkPos.x, chunkPos.z) != chunk) {
+            return computeUndergroundAir(chunk, sections[sectionIndex], sectionY);
+        }
+        
+        long key = ChunkSectionPos.asLong(chunkPos.x, sectionY, chunkPos.z);
+        Long2IntOpenHashMap cache = getCache(world);
+        int cached = cache.get(key);
+        if (cached >= 0) {
+            return cached;
+        }
+        
+        int air = computeUndergroundAir(chunk, sections[sectionIndex], sectionY);
+        cache.put(key, air);
+        return air;
+    }
+    
+    /**
+     * Descarta o valor em cache da seção de um bloco que mudou entre ar e sólido
+     * @param world O mundo do servidor
+     * @param pos A posição do bloco
+     * @param oldState O estado anterior
+     * @param newState O novo estado
+     */
+    public void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        if (oldState.isAir() == newState.isAir()) {
+            return;
+        }
+        
+        Long2IntOpenHashMap cache = sectionAir.get(world.getRegistryKey());
+        if (cache == null || cache.isEmpty()) {
+            return;
+        }
+        
+        // A superfície da coluna pode ter mudado, então descarta todas as seções do chunk
+        invalidateChunk(cache, world, pos.getX() >> 4, pos.getZ() >> 4);
+    }
+    
+    /**
+     * Descarta os valores em cache de um chunk descarregado
+     */
+    public void onChunkUnload(ServerWorld world, WorldChunk chunk) {
+        Long2IntOpenHashMap cache = sectionAir.get(world.getRegistryKey());
+        if (cache != null && !cache.isEmpty()) {
+            invalidateChunk(cache, world, chunk.getPos().x, chunk.getPos().z);
+        }
+    }
+    
+    /**
+     * Conta o ar subterrâneo de uma seção
+     * Seções inteiramente abaixo da superfície usam a contagem de blocos não vazios da própria seção;
+     * seções acima da superfície não têm ar subterrâneo; só as que cruzam a superfície são percorridas
+     */
+    private int computeUndergroundAir(WorldChunk chunk, ChunkSection section, int sectionY) {
+        int bottomY = sectionY << 4;
+        int topY = bottomY + 15;
+        
+        // Menor e maior altura de superfície do chunk
+        int minSurface = Integer.MAX_VALUE;
+        int maxSurface = Integer.MIN_VALUE;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                int surface = chunk.sampleHeightmap(Heightmap.Type.WORLD_SURFACE, x, z);
+                minSurface = Math.min(minSurface, surface);
+                maxSurface = Math.max(maxSurface, surface);
+            }
+        }
+        
+        if (topY < minSurface) {
+            // Inteiramente abaixo da superfície
+            return SECTION_VOLUME - ((ChunkSectionAccessor) section).getNonEmptyBlockCount();
+        }
+        if (bottomY >= maxSurface || section.isEmpty()) {
+            return 0; // Acima da superfície, ou uma seção vazia que cruza a superfície (céu aberto)
+        }
+        
+        // Cruza a superfície: conta coluna por coluna apenas o ar abaixo do topo de cada coluna
+        int air = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                int columnTop = Math.min(topY, chunk.sampleHeightmap(Heightmap.Type.WORLD_SURFACE, x, z) - 1);
+                for (int y = bottomY; y <= columnTop; y++) {
+                    if (section.getBlockState(x, y & 15, z).isAir()) {
+                        air++;
+                    }
+                }
+            }
+        }
+        return air;
+    }
+    
+    private void invalidateChunk(Long2IntOpenHashMap cache, ServerWorld world, int chunkX, int chunkZ) {
+        int bottomSection = world.getBottomSectionCoord();
+        int topSection = world.getTopSectionCoord();
+        for (int sectionY = bottomSection; sectionY <= topSection; sectionY++) {
+            cache.remove(ChunkSectionPos.asLong(chunkX, sectionY, chunkZ));
+        }
+    }
+    
+    private Long2IntOpenHashMap getCache(ServerWorld world) {
+        return sectionAir.computeIfAbsent(world.getRegistryKey(), key -> {
+            Long2IntOpenHashMap cache = new Long2IntOpenHashMap();
+            cache.defaultReturnValue(-1);
+            return cache;
+        });
+    }
+}